@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.apache.hadoop.yarn.client.api.AMRMClient.ContainerRequest;
+import org.apache.hadoop.yarn.client.api.async.AMRMClientAsync;
+
+/**
+ * A ledger of the container requests that have been sent to the ResourceManager and have not been fulfilled or withdrawn yet. The requests are counted per
+ * resource class (i.e., priority and capability) and locality (i.e., nodes and racks). Since the AMRMClient sends the changes of these counts to the
+ * ResourceManager on each heartbeat, adding a request to or removing it from the ledger issues the corresponding delta. The ledger reconciles allocated
+ * containers against the outstanding requests, such that containers allocated at a resource class without outstanding requests are not released if they can
+ * fulfill a request of another class, and it withdraws surplus requests once the scheduler has no use for them anymore.
+ */
+public class ContainerRequestLedger {
+
+	private static enum Locality {
+		NODE_LOCAL, RACK_LOCAL, OFF_SWITCH
+	}
+
+	private static boolean fits(ContainerRequest request, Container container) {
+		Resource capability = request.getCapability();
+		Resource resource = container.getResource();
+		return capability.getMemory() <= resource.getMemory() && capability.getVirtualCores() <= resource.getVirtualCores();
+	}
+
+	private static String getKey(ContainerRequest request) {
+		return request.getPriority().getPriority() + ":" + request.getCapability().getMemory() + ":" + request.getCapability().getVirtualCores() + ":"
+				+ request.getNodes() + ":" + request.getRacks();
+	}
+
+	// the locality of a container for a request or null if the request cannot be fulfilled on the container's node
+	private static Locality getLocality(ContainerRequest request, String host, String rack) {
+		if (request.getNodes() != null && request.getNodes().contains(host)) {
+			return Locality.NODE_LOCAL;
+		}
+		if (rack != null && request.getRacks() != null && request.getRacks().contains(rack)) {
+			return Locality.RACK_LOCAL;
+		}
+		boolean unconstrained = (request.getNodes() == null || request.getNodes().isEmpty()) && (request.getRacks() == null || request.getRacks().isEmpty());
+		return (unconstrained || request.getRelaxLocality()) ? Locality.OFF_SWITCH : null;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private final AMRMClientAsync amRMClient;
+	// the outstanding requests per resource class and locality, in the order in which they have been issued
+	private final Map<String, LinkedList<ContainerRequest>> requests = new LinkedHashMap<>();
+	private int size = 0;
+
+	@SuppressWarnings("rawtypes")
+	public ContainerRequestLedger(AMRMClientAsync amRMClient) {
+		this.amRMClient = amRMClient;
+	}
+
+	/**
+	 * Sends a request to the ResourceManager.
+	 * 
+	 * @param request
+	 *            The request.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized void add(ContainerRequest request) {
+		String key = getKey(request);
+		LinkedList<ContainerRequest> requestsOfKey = requests.get(key);
+		if (requestsOfKey == null) {
+			requestsOfKey = new LinkedList<>();
+			requests.put(key, requestsOfKey);
+		}
+		requestsOfKey.add(request);
+		size++;
+		amRMClient.addContainerRequest(request);
+	}
+
+	/**
+	 * Determines (and removes) the outstanding request fulfilled by a container. Since the ResourceManager has accounted the container to a request of the
+	 * container's priority, a request of this priority is removed if there is one. Among these requests, one hinting at the container's node is preferred
+	 * over one hinting at its rack, which in turn is preferred over any other request, such that the hints of the remaining requests stay accurate. If there
+	 * is no request of the container's priority (e.g., since it has been withdrawn while the container was being allocated), the container can fulfill a
+	 * request of another priority whose capability it meets.
+	 * 
+	 * @param container
+	 *            The container.
+	 * @param rack
+	 *            The rack of the container's node (or null if not known).
+	 * @return The fulfilled request or null if the container does not fulfill any outstanding request (in which case it is surplus and has to be released).
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized ContainerRequest fulfill(Container container, String rack) {
+		String host = container.getNodeId().getHost();
+		int priority = container.getPriority().getPriority();
+		LinkedList<ContainerRequest> bestRequests = null;
+		Locality bestLocality = null;
+		boolean bestSamePriority = false;
+		for (LinkedList<ContainerRequest> requestsOfKey : requests.values()) {
+			ContainerRequest request = requestsOfKey.getFirst();
+			boolean samePriority = request.getPriority().getPriority() == priority;
+			Locality locality = getLocality(request, host, rack);
+			if (locality == null || (!samePriority && (bestSamePriority || !fits(request, container)))) {
+				continue;
+			}
+			if (bestRequests == null || (samePriority && !bestSamePriority) || locality.compareTo(bestLocality) < 0) {
+				bestRequests = requestsOfKey;
+				bestLocality = locality;
+				bestSamePriority = samePriority;
+			}
+		}
+		if (bestRequests == null) {
+			return null;
+		}
+		ContainerRequest request = bestRequests.removeFirst();
+		if (bestRequests.isEmpty()) {
+			requests.remove(getKey(request));
+		}
+		size--;
+		amRMClient.removeContainerRequest(request);
+		return request;
+	}
+
+	/**
+	 * @return The number of outstanding requests.
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, LinkedList<ContainerRequest>> requestsOfKey : requests.entrySet()) {
+			sb.append(sb.length() > 0 ? ", " : "").append(requestsOfKey.getKey()).append("=").append(requestsOfKey.getValue().size());
+		}
+		return "{" + sb + "}";
+	}
+
+	/**
+	 * Withdraws the most recently issued requests, e.g., since the scheduler has no use for the containers requested by them anymore.
+	 * 
+	 * @param count
+	 *            The number of requests to withdraw.
+	 * @return The withdrawn requests, which might be fewer than requested if there are not enough outstanding requests.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized List<ContainerRequest> trim(int count) {
+		List<ContainerRequest> withdrawnRequests = new ArrayList<>();
+		List<String> keys = new ArrayList<>(requests.keySet());
+		for (int i = keys.size() - 1; i >= 0 && withdrawnRequests.size() < count; i--) {
+			LinkedList<ContainerRequest> requestsOfKey = requests.get(keys.get(i));
+			while (!requestsOfKey.isEmpty() && withdrawnRequests.size() < count) {
+				ContainerRequest request = requestsOfKey.removeLast();
+				amRMClient.removeContainerRequest(request);
+				withdrawnRequests.add(request);
+				size--;
+			}
+			if (requestsOfKey.isEmpty()) {
+				requests.remove(keys.get(i));
+			}
+		}
+		return withdrawnRequests;
+	}
+
+	/**
+	 * Withdraws an outstanding request for a container on the given nodes, regardless of its resource class (since the resource requirements of tasks might
+	 * have been adjusted since it has been issued).
+	 * 
+	 * @param nodes
+	 *            The nodes on which the container has been requested (if empty, the container has been requested on any node).
+	 * @return The withdrawn request or null if there is no outstanding request for a container on these nodes.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized ContainerRequest withdraw(String[] nodes) {
+		Iterator<LinkedList<ContainerRequest>> iterator = requests.values().iterator();
+		while (iterator.hasNext()) {
+			LinkedList<ContainerRequest> requestsOfKey = iterator.next();
+			List<String> requestedNodes = requestsOfKey.getFirst().getNodes();
+			if (requestedNodes == null ? nodes.length == 0 : requestedNodes.equals(Arrays.asList(nodes))) {
+				ContainerRequest request = requestsOfKey.removeLast();
+				if (requestsOfKey.isEmpty()) {
+					iterator.remove();
+				}
+				size--;
+				amRMClient.removeContainerRequest(request);
+				return request;
+			}
+		}
+		return null;
+	}
+
+}
@@ -38,8 +38,10 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -49,6 +51,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.cli.CommandLine;
@@ -61,6 +68,7 @@ import org.apache.hadoop.net.NetUtils;
 import org.apache.hadoop.security.Credentials;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
@@ -70,9 +78,12 @@ import org.apache.hadoop.yarn.api.protocolrecords.RegisterApplicationMasterRespo
 import org.apache.hadoop.yarn.api.records.ApplicationAttemptId;
 import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.apache.hadoop.yarn.api.records.FinalApplicationStatus;
+import org.apache.hadoop.yarn.api.records.NodeReport;
+import org.apache.hadoop.yarn.api.records.NodeState;
 import org.apache.hadoop.yarn.api.records.Priority;
 import org.apache.hadoop.yarn.api.records.Resource;
 import org.apache.hadoop.yarn.client.api.AMRMClient.ContainerRequest;
+import org.apache.hadoop.yarn.client.api.YarnClient;
 import org.apache.hadoop.yarn.client.api.async.AMRMClientAsync;
 import org.apache.hadoop.yarn.client.api.async.NMClientAsync;
 import org.apache.hadoop.yarn.client.api.async.impl.NMClientAsyncImpl;
@@ -91,9 +102,12 @@ import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.TaskInstance;
 import de.huberlin.wbi.hiway.common.WFAppMetrics;
 import de.huberlin.wbi.hiway.common.WorkflowStructureUnknownException;
+import de.huberlin.wbi.hiway.scheduler.NodeRequest;
 import de.huberlin.wbi.hiway.scheduler.Scheduler;
 import de.huberlin.wbi.hiway.scheduler.c3po.C3PO;
+import de.huberlin.wbi.hiway.scheduler.gq.CriticalPathQueue;
 import de.huberlin.wbi.hiway.scheduler.gq.GreedyQueue;
+import de.huberlin.wbi.hiway.scheduler.gq.LocalityAwareQueue;
 import de.huberlin.wbi.hiway.scheduler.heft.HEFT;
 import de.huberlin.wbi.hiway.scheduler.rr.RoundRobin;
 
@@ -194,7 +208,7 @@ public abstract class HiWay {
 		new HelpFormatter().printHelp("ApplicationMaster", opts);
 	}
 
-	private AMRMClientAsync.CallbackHandler allocListener;
+	private RMCallbackHandler allocListener;
 
 	// the yarn tokens to be passed to any launched containers
 	private ByteBuffer allTokens;
@@ -227,12 +241,20 @@ public abstract class HiWay {
 	// a handle to the hdfs
 	private FileSystem hdfs;
 	private Path hdfsApplicationDirectory;
-	// a list of threads, one for each container launch
-	private List<Thread> launchThreads = new ArrayList<>();
+	// the factory for the launch contexts of containers, which is set up once the AM has registered with the RM
+	private LaunchContextFactory launchContextFactory;
+	private ThreadPoolExecutor launchExecutor;
+	// the maximum memory and number of virtual cores of a container in this cluster
+	private int maxContainerCores;
+	private int maxContainerMemory;
 	// a structure that stores various metrics during workflow execution
 	private final WFAppMetrics metrics = WFAppMetrics.create();
 	// a handle to communicate with the YARN NodeManagers
 	private NMClientAsync nmClientAsync;
+	// the nodes of the cluster on which containers can be allocated
+	private NodeMembership nodeMembership;
+	// the node reports received from the RM, which are processed by the main loop
+	private final BlockingQueue<NodeReport> nodeUpdates = new LinkedBlockingQueue<>();
 	// a counter for allocated containers
 	private AtomicInteger numAllocatedContainers = new AtomicInteger();
 	// a counter for completed containers (complete denotes successful or failed
@@ -243,8 +265,16 @@ public abstract class HiWay {
 	private AtomicInteger numKilledContainers = new AtomicInteger();
 	// a counter for requested containers
 	private AtomicInteger numRequestedContainers = new AtomicInteger();
+	// the time span (in ms) for which node requests issued by the scheduler are collected before being sent to the ResourceManager as one batch
+	private int requestCoalesceMs;
+	// the container requests that have been sent to the ResourceManager and are still outstanding
+	private ContainerRequestLedger requestLedger;
 	// priority of the container request
 	private int requestPriority;
+	// whether Workers request further tasks once they have finished their current task (for container reuse or task fusion)
+	private boolean reuseContainers;
+	// the priorities of the container requests per requested resources, since the ResourceManager supports only one resource capability per priority
+	private Map<String, Integer> requestPriorities = new HashMap<>();
 	private UUID runId;
 	// the workflow scheduler, as defined at workflow launch time
 	private Scheduler scheduler;
@@ -252,9 +282,15 @@ public abstract class HiWay {
 	// environment variables to be passed to any launched containers
 	private Map<String, String> shellEnv = new HashMap<>();
 	private BufferedWriter statLog;
+	// a cache of the outputs of tasks executed in previous runs (null if memoization is disabled)
+	private TaskCache taskCache;
+	// the thread writing provenance entries to the statistics log and the provenance database
+	private StatLogWriter statLogWriter;
 	private volatile boolean success;
 	private Path summaryPath;
 	private Data workflowFile;
+	// the server on which Workers push their reports and request further tasks if containers are reused or tasks are fused (null if neither is enabled)
+	private WorkerServer workerServer;
 
 	private Path workflowPath;
 
@@ -269,52 +305,73 @@ public abstract class HiWay {
 		runId = UUID.randomUUID();
 	}
 
-	@SuppressWarnings("static-method")
-	public void evaluateReport(TaskInstance task, ContainerId containerId) {
-		try {
-			Data reportFile = new Data(Invocation.REPORT_FILENAME, containerId.toString());
-			reportFile.stageIn();
-			Data stdoutFile = new Data(Invocation.STDOUT_FILENAME, containerId.toString());
-			stdoutFile.stageIn();
-			Data stderrFile = new Data(Invocation.STDERR_FILENAME, containerId.toString());
-			stderrFile.stageIn();
+	/**
+	 * Reads the given lines and escapes backslashes in a single pass, such that they can be stored as the value of a report entry. Double quotes are kept as
+	 * they are.
+	 * 
+	 * @param reader
+	 *            The reader of the lines to be escaped.
+	 * @return The escaped lines, each terminated by a newline.
+	 */
+	public static String escapeLines(BufferedReader reader) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (c == '\\') {
+					sb.append('\\');
+				}
+				sb.append(c);
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
 
-			// (a) evaluate report
+	public void evaluateReport(TaskInstance task, String containerId) {
+		try {
 			Set<JsonReportEntry> report = task.getReport();
-			try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.REPORT_FILENAME))) {
-				String line;
-				while ((line = reader.readLine()) != null) {
-					line = line.trim();
-					if (line.isEmpty())
-						continue;
-					report.add(new JsonReportEntry(line));
+			String stdout;
+			String stderr;
+			WorkerServer.PushedReport pushedReport = workerServer != null ? workerServer.takeReport(containerId) : null;
+			if (pushedReport != null) {
+				report.addAll(pushedReport.entries);
+				stdout = pushedReport.stdout;
+				stderr = pushedReport.stderr;
+			} else {
+				// the Worker has not pushed its report to the AM, so it has to be retrieved from HDFS
+				Data reportFile = new Data(Invocation.REPORT_FILENAME, containerId);
+				reportFile.stageIn();
+				Data stdoutFile = new Data(Invocation.STDOUT_FILENAME, containerId);
+				stdoutFile.stageIn();
+				Data stderrFile = new Data(Invocation.STDERR_FILENAME, containerId);
+				stderrFile.stageIn();
+
+				try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.REPORT_FILENAME))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						line = line.trim();
+						if (line.isEmpty())
+							continue;
+						report.add(new JsonReportEntry(line));
+					}
 				}
-			}
-			try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.STDOUT_FILENAME))) {
-				String line;
-				StringBuffer sb = new StringBuffer();
-				while ((line = reader.readLine()) != null) {
-					sb.append(line.replaceAll("\\\\", "\\\\\\\\").replaceAll("\"", "\\\"")).append('\n');
+				try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.STDOUT_FILENAME))) {
+					stdout = escapeLines(reader);
 				}
-				String s = sb.toString();
-				if (s.length() > 0) {
-					JsonReportEntry re = new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), task.getId(),
-							null, JsonReportEntry.KEY_INVOC_STDOUT, sb.toString());
-					report.add(re);
+				try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.STDERR_FILENAME))) {
+					stderr = escapeLines(reader);
 				}
 			}
-			try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.STDERR_FILENAME))) {
-				String line;
-				StringBuffer sb = new StringBuffer();
-				while ((line = reader.readLine()) != null) {
-					sb.append(line.replaceAll("\\\\", "\\\\\\\\").replaceAll("\"", "\\\"")).append('\n');
-				}
-				String s = sb.toString();
-				if (s.length() > 0) {
-					JsonReportEntry re = new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), task.getId(),
-							null, JsonReportEntry.KEY_INVOC_STDERR, sb.toString());
-					report.add(re);
-				}
+
+			if (stdout.length() > 0) {
+				report.add(new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), task.getId(), null,
+						JsonReportEntry.KEY_INVOC_STDOUT, stdout));
+			}
+			if (stderr.length() > 0) {
+				report.add(new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), task.getId(), null,
+						JsonReportEntry.KEY_INVOC_STDERR, stderr));
 			}
 
 		} catch (Exception e) {
@@ -323,7 +380,7 @@ public abstract class HiWay {
 			System.exit(-1);
 		}
 	}
-	
+
 	private void finish() {
 		writeEntryToLog(new JsonReportEntry(getRunId(), null, null, null, null, null, HiwayDBI.KEY_WF_TIME, Long.toString(System.currentTimeMillis()
 				- amRMClient.getStartTime())));
@@ -332,15 +389,27 @@ public abstract class HiWay {
 			String outputs = getOutputFiles().toString();
 			writeEntryToLog(new JsonReportEntry(getRunId(), null, null, null, null, null, HiwayDBI.KEY_WF_OUTPUT, outputs.substring(1, outputs.length() - 1)));
 		}
-		// Join all launched threads needed for when we time out and we need to release containers
-		for (Thread launchThread : launchThreads) {
-			try {
-				launchThread.join(10000);
-			} catch (InterruptedException e) {
-				System.err.println("Exception thrown in thread join: " + e.getMessage());
-				e.printStackTrace();
-				System.exit(-1);
+		// Wait for pending container launches needed for when we time out and we need to release containers
+		launchExecutor.shutdown();
+		try {
+			if (!launchExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+				System.err.println("Container launches did not terminate in time. Pending launches: " + launchExecutor.getQueue().size());
+				launchExecutor.shutdownNow();
 			}
+		} catch (InterruptedException e) {
+			System.err.println("Exception thrown while awaiting termination of container launches: " + e.getMessage());
+			e.printStackTrace();
+			System.exit(-1);
+		}
+
+		if (workerServer != null) {
+			workerServer.close();
+		}
+		if (taskCache != null) {
+			taskCache.close();
+		}
+		if (scheduler != null) {
+			scheduler.close();
 		}
 
 		// When the application completes, it should stop all running containers
@@ -360,6 +429,9 @@ public abstract class HiWay {
 		int numTotalContainers = scheduler.getNumberOfTotalTasks();
 
 		System.out.println("Total Scheduled Containers: " + numTotalContainers);
+		if (scheduler.getDelayScheduling() != null && scheduler.getDelayScheduling().isEnabled()) {
+			System.out.println("Locality of Assigned Tasks: " + scheduler.getDelayScheduling());
+		}
 
 		if (numFailedContainers.get() == 0 && numCompletedContainers.get() == numTotalContainers) {
 			appStatus = FinalApplicationStatus.SUCCEEDED;
@@ -371,8 +443,26 @@ public abstract class HiWay {
 		}
 
 		try {
+			amRMClient.unregisterApplicationMaster(appStatus, appMessage, null);
+		} catch (YarnException | IOException e) {
+			System.err.println("Failed to unregister application");
+			e.printStackTrace();
+			System.exit(-1);
+		}
+
+		// the callbacks of the RM (and thus the entries they write to the statistics log) only cease once the client has been stopped
+		amRMClient.stop();
+
+		try {
+			statLogWriter.close();
 			statLog.close();
 			federatedReport.stageOut();
+			// the logs mirrored for recovery are superseded by the federated log
+			if (conf.getBoolean(HiWayConfiguration.HIWAY_AM_RECOVERY, HiWayConfiguration.HIWAY_AM_RECOVERY_DEFAULT)) {
+				for (int attemptId = 1; attemptId <= appAttemptID.getAttemptId(); attemptId++) {
+					hdfs.delete(getHdfsLogPath(attemptId), false);
+				}
+			}
 			if (summaryPath != null) {
 				String stdout = hdfsApplicationDirectory + "/AppMaster.stdout";
 				String stderr = hdfsApplicationDirectory + "/AppMaster.stderr";
@@ -400,16 +490,21 @@ public abstract class HiWay {
 			e.printStackTrace();
 			System.exit(-1);
 		}
+	}
 
+	private List<NodeReport> getClusterNodeReports() throws YarnException, IOException {
+		YarnClient yarnClient = YarnClient.createYarnClient();
+		yarnClient.init(conf);
+		yarnClient.start();
 		try {
-			amRMClient.unregisterApplicationMaster(appStatus, appMessage, null);
-		} catch (YarnException | IOException e) {
-			System.err.println("Failed to unregister application");
-			e.printStackTrace();
-			System.exit(-1);
+			return yarnClient.getNodeReports(NodeState.RUNNING);
+		} finally {
+			yarnClient.stop();
 		}
+	}
 
-		amRMClient.stop();
+	private Path getHdfsLogPath(int attemptId) {
+		return new Path(hdfsApplicationDirectory, appId + ".log." + attemptId);
 	}
 
 	public ByteBuffer getAllTokens() {
@@ -425,6 +520,10 @@ public abstract class HiWay {
 		return appId;
 	}
 
+	public String getAppMasterHostname() {
+		return appMasterHostname;
+	}
+
 	public HiWayConfiguration getConf() {
 		return conf;
 	}
@@ -433,10 +532,6 @@ public abstract class HiWay {
 		return containerListener;
 	}
 
-	public int getContainerMemory() {
-		return containerMemory;
-	}
-
 	public Map<String, Data> getFiles() {
 		return files;
 	}
@@ -445,8 +540,12 @@ public abstract class HiWay {
 		return hdfs;
 	}
 
-	public List<Thread> getLaunchThreads() {
-		return launchThreads;
+	public LaunchContextFactory getLaunchContextFactory() {
+		return launchContextFactory;
+	}
+
+	public ExecutorService getLaunchExecutor() {
+		return launchExecutor;
 	}
 
 	public WFAppMetrics getMetrics() {
@@ -457,6 +556,14 @@ public abstract class HiWay {
 		return nmClientAsync;
 	}
 
+	public ContainerRequestLedger getRequestLedger() {
+		return requestLedger;
+	}
+
+	public NodeMembership getNodeMembership() {
+		return nodeMembership;
+	}
+
 	public AtomicInteger getNumAllocatedContainers() {
 		return numAllocatedContainers;
 	}
@@ -505,6 +612,14 @@ public abstract class HiWay {
 		return shellEnv;
 	}
 
+	public TaskCache getTaskCache() {
+		return taskCache;
+	}
+
+	public WorkerServer getWorkerServer() {
+		return workerServer;
+	}
+
 	public Data getWorkflowFile() {
 		return workflowFile;
 	}
@@ -633,15 +748,41 @@ public abstract class HiWay {
 		containerMemory = conf.getInt(HiWayConfiguration.HIWAY_WORKER_MEMORY, HiWayConfiguration.HIWAY_WORKER_MEMORY_DEFAULT);
 		containerCores = conf.getInt(HiWayConfiguration.HIWAY_WORKER_VCORES, HiWayConfiguration.HIWAY_WORKER_VCORES_DEFAULT);
 		requestPriority = conf.getInt(HiWayConfiguration.HIWAY_WORKER_PRIORITY, HiWayConfiguration.HIWAY_WORKER_PRIORITY_DEFAULT);
+		int launchThreads = Math.max(1, conf.getInt(HiWayConfiguration.HIWAY_AM_LAUNCH_THREADS, HiWayConfiguration.HIWAY_AM_LAUNCH_THREADS_DEFAULT));
+		launchExecutor = new ThreadPoolExecutor(launchThreads, launchThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+		launchExecutor.allowCoreThreadTimeOut(true);
+		requestCoalesceMs = conf.getInt(HiWayConfiguration.HIWAY_AM_REQUEST_COALESCE_MS, HiWayConfiguration.HIWAY_AM_REQUEST_COALESCE_MS_DEFAULT);
 		return true;
 	}
 
+	public boolean isDone() {
+		return done;
+	}
+
 	public boolean isDetermineFileSizes() {
 		return determineFileSizes;
 	}
 
+	public boolean isReuseContainers() {
+		return reuseContainers;
+	}
+
 	public abstract void parseWorkflow();
 
+	/**
+	 * Queues the reports of nodes whose state has changed. The changes are applied by the main loop rather than the thread handling the callbacks of the RM,
+	 * since a node joining or leaving the cluster might cause the scheduler to re-plan the workflow.
+	 * 
+	 * @param updatedNodes
+	 *            The reports of the nodes whose state has changed.
+	 */
+	public void queueNodeUpdates(List<NodeReport> updatedNodes) {
+		// node updates received before the nodes of the cluster have been registered at startup are already reflected in the registered nodes
+		if (nodeMembership != null) {
+			nodeUpdates.addAll(updatedNodes);
+		}
+	}
+
 	/**
 	 * Main run function for the application master
 	 * 
@@ -672,6 +813,7 @@ public abstract class HiWay {
 			amRMClient = AMRMClientAsync.createAMRMClientAsync(1000, allocListener);
 			amRMClient.init(conf);
 			amRMClient.start();
+			requestLedger = new ContainerRequestLedger(amRMClient);
 
 			containerListener = new NMCallbackHandler(this);
 			nmClientAsync = new NMClientAsyncImpl(containerListener);
@@ -681,9 +823,19 @@ public abstract class HiWay {
 			Data workflowData = new Data(workflowPath);
 			workflowData.stageIn();
 
+			reuseContainers = conf.getBoolean(HiWayConfiguration.HIWAY_WORKER_REUSE, HiWayConfiguration.HIWAY_WORKER_REUSE_DEFAULT)
+					|| conf.getInt(HiWayConfiguration.HIWAY_WORKER_FUSION_THRESHOLD, HiWayConfiguration.HIWAY_WORKER_FUSION_THRESHOLD_DEFAULT) > 0;
+			if (reuseContainers || conf.getBoolean(HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH, HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH_DEFAULT)) {
+				workerServer = new WorkerServer(this, allocListener, conf.getInt(HiWayConfiguration.HIWAY_AM_REPORT_THREADS,
+						HiWayConfiguration.HIWAY_AM_REPORT_THREADS_DEFAULT));
+				workerServer.start();
+				appMasterRpcPort = workerServer.getPort();
+			}
+
 			// Register self with ResourceManager. This will start heartbeating to the RM.
 			appMasterHostname = NetUtils.getHostname();
 			RegisterApplicationMasterResponse response = amRMClient.registerApplicationMaster(appMasterHostname, appMasterRpcPort, appMasterTrackingUrl);
+			launchContextFactory = new LaunchContextFactory(this);
 
 			switch (schedulerName) {
 			case staticRoundRobin:
@@ -694,6 +846,12 @@ public abstract class HiWay {
 			case greedyQueue:
 				scheduler = new GreedyQueue(getWorkflowName(), conf, hdfs);
 				break;
+			case criticalPathQueue:
+				scheduler = new CriticalPathQueue(getWorkflowName(), conf, hdfs);
+				break;
+			case localityAwareQueue:
+				scheduler = new LocalityAwareQueue(getWorkflowName(), conf, hdfs);
+				break;
 			default:
 				C3PO c3po = new C3PO(getWorkflowName(), hdfs, conf);
 				switch (schedulerName) {
@@ -730,38 +888,97 @@ public abstract class HiWay {
 				scheduler = c3po;
 			}
 
+			boolean memoization = conf.getBoolean(HiWayConfiguration.HIWAY_AM_MEMOIZATION, HiWayConfiguration.HIWAY_AM_MEMOIZATION_DEFAULT);
+			boolean recovery = conf.getBoolean(HiWayConfiguration.HIWAY_AM_RECOVERY, HiWayConfiguration.HIWAY_AM_RECOVERY_DEFAULT);
+			if (memoization || recovery) {
+				taskCache = new TaskCache(this, hdfs, new Path(hdfsApplicationDirectory.getParent(), HiWayConfiguration.HIWAY_AM_MEMOIZATION_DIRECTORY), appId,
+						memoization);
+				scheduler.setTaskCache(taskCache);
+			}
 			scheduler.initialize();
+			// the nodes of the cluster are determined before the workflow is parsed, such that static schedulers only assign tasks to nodes that exist
+			nodeMembership = new NodeMembership(scheduler);
+			scheduler.setNodeMembership(nodeMembership);
+			try {
+				nodeMembership.initialize(getClusterNodeReports());
+			} catch (Exception e) {
+				// tracking the nodes of the cluster is optional (e.g., the AM might not hold the credentials required to query the RM as a client)
+				System.err.println("Nodes of the cluster could not be determined. Containers are assumed to be available on any node: " + e.getMessage());
+			}
+			FSDataOutputStream hdfsLogStream = null;
+			if (recovery) {
+				hdfsLogStream = hdfs.create(getHdfsLogPath(appAttemptID.getAttemptId()), true);
+				recoverFromPreviousAttempt(hdfsLogStream);
+			}
+			statLogWriter = new StatLogWriter(statLog, hdfsLogStream, scheduler, conf.getInt(HiWayConfiguration.HIWAY_AM_PROVENANCE_QUEUE_CAPACITY,
+					HiWayConfiguration.HIWAY_AM_PROVENANCE_QUEUE_CAPACITY_DEFAULT), conf.getInt(HiWayConfiguration.HIWAY_AM_PROVENANCE_BATCH_SIZE,
+					HiWayConfiguration.HIWAY_AM_PROVENANCE_BATCH_SIZE_DEFAULT), conf.getInt(HiWayConfiguration.HIWAY_AM_PROVENANCE_BATCH_MS,
+					HiWayConfiguration.HIWAY_AM_PROVENANCE_BATCH_MS_DEFAULT));
+			statLogWriter.start();
 			writeEntryToLog(new JsonReportEntry(getRunId(), null, null, null, null, null, HiwayDBI.KEY_WF_NAME, getWorkflowName()));
 			parseWorkflow();
 			scheduler.updateRuntimeEstimates(getRunId().toString());
 			federatedReport = new Data(appId + ".log");
 
 			// Dump out information about cluster capability as seen by the resource manager
-			int maxMem = response.getMaximumResourceCapability().getMemory();
-			int maxCores = response.getMaximumResourceCapability().getVirtualCores();
-			System.out.println("Max mem capabililty of resources in this cluster " + maxMem);
+			maxContainerMemory = response.getMaximumResourceCapability().getMemory();
+			maxContainerCores = response.getMaximumResourceCapability().getVirtualCores();
+			System.out.println("Max mem capabililty of resources in this cluster " + maxContainerMemory);
 
 			// A resource ask cannot exceed the max.
-			if (containerMemory > maxMem) {
+			if (containerMemory > maxContainerMemory) {
 				System.out.println("Container memory specified above max threshold of cluster." + " Using max value." + ", specified=" + containerMemory
-						+ ", max=" + maxMem);
-				containerMemory = maxMem;
+						+ ", max=" + maxContainerMemory);
+				containerMemory = maxContainerMemory;
 			}
-			if (containerCores > maxCores) {
+			if (containerCores > maxContainerCores) {
 				System.out.println("Container vcores specified above max threshold of cluster." + " Using max value." + ", specified=" + containerCores
-						+ ", max=" + maxCores);
-				containerCores = maxCores;
+						+ ", max=" + maxContainerCores);
+				containerCores = maxContainerCores;
 			}
+			scheduler.setMaximumCapability(response.getMaximumResourceCapability());
 
+			long lastStatusUpdate = 0;
 			while (!done) {
 				try {
-					while (scheduler.hasNextNodeRequest()) {
-						ContainerRequest containerAsk = setupContainerAskForRM(scheduler.getNextNodeRequest());
-						amRMClient.addContainerRequest(containerAsk);
+					// block until the scheduler issues a node request (or check back regularly whether the workflow has finished)
+					NodeRequest nodeRequest = scheduler.pollNextNodeRequest(1000, TimeUnit.MILLISECONDS);
+					if (nodeRequest != null) {
+						List<NodeRequest> nodeRequests = new ArrayList<>();
+						nodeRequests.add(nodeRequest);
+						// collect further node requests for a short time span, such that bursts of ready tasks are sent to the RM as one batch
+						long deadline = System.currentTimeMillis() + requestCoalesceMs;
+						long remaining;
+						while ((remaining = deadline - System.currentTimeMillis()) > 0
+								&& (nodeRequest = scheduler.pollNextNodeRequest(remaining, TimeUnit.MILLISECONDS)) != null) {
+							nodeRequests.add(nodeRequest);
+						}
+						while (scheduler.hasNextNodeRequest()) {
+							nodeRequests.add(scheduler.getNextNodeRequest());
+						}
+						for (NodeRequest request : nodeRequests) {
+							requestLedger.add(setupContainerAskForRM(request));
+						}
+					}
+					// withdraw the requests for containers that the scheduler no longer needs (e.g., since it has moved their tasks to other nodes)
+					NodeRequest revokedRequest;
+					while ((revokedRequest = scheduler.pollRevokedNodeRequest()) != null) {
+						removeContainerAskFromRM(revokedRequest);
+					}
+					List<NodeReport> updatedNodes = new ArrayList<>();
+					nodeUpdates.drainTo(updatedNodes);
+					if (!updatedNodes.isEmpty()) {
+						// the scheduler must not be modified while the RM callbacks access it
+						synchronized (allocListener) {
+							nodeMembership.update(updatedNodes);
+						}
+					}
+					if (System.currentTimeMillis() - lastStatusUpdate >= 1000) {
+						lastStatusUpdate = System.currentTimeMillis();
+						System.out.println("Current application state: requested=" + numRequestedContainers + ", completed=" + numCompletedContainers
+								+ ", failed=" + numFailedContainers + ", killed=" + numKilledContainers + ", allocated=" + numAllocatedContainers
+								+ ", outstanding=" + requestLedger.size());
 					}
-					Thread.sleep(1000);
-					System.out.println("Current application state: requested=" + numRequestedContainers + ", completed=" + numCompletedContainers + ", failed="
-							+ numFailedContainers + ", killed=" + numKilledContainers + ", allocated=" + numAllocatedContainers);
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 					System.exit(-1);
@@ -775,6 +992,71 @@ public abstract class HiWay {
 		return success;
 	}
 
+	/**
+	 * Recovers the progress of the most recent previous attempt of this ApplicationMaster from the log it has mirrored to HDFS. The entries of this log are
+	 * copied to the logs of this attempt, and the tasks completed by the previous attempt are registered with the task cache, such that they are completed
+	 * with the outputs of their previous invocations instead of being executed again.
+	 * 
+	 * @param hdfsLogStream
+	 *            The stream of the log mirrored to HDFS by this attempt.
+	 * @throws IOException
+	 *             IOException
+	 */
+	private void recoverFromPreviousAttempt(FSDataOutputStream hdfsLogStream) throws IOException {
+		for (int attemptId = appAttemptID.getAttemptId() - 1; attemptId > 0; attemptId--) {
+			Path previousLog = getHdfsLogPath(attemptId);
+			if (!hdfs.exists(previousLog)) {
+				continue;
+			}
+			System.out.println("Recovering progress of attempt " + attemptId + " from " + previousLog);
+			int recoveredTasks = 0;
+			BufferedWriter hdfsLog = new BufferedWriter(new OutputStreamWriter(hdfsLogStream, StandardCharsets.UTF_8));
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(hdfs.open(previousLog), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					try {
+						JsonReportEntry entry = new JsonReportEntry(line);
+						if (entry.getKey().equals(HiwayDBI.KEY_HIWAY_EVENT)) {
+							JSONObject value = entry.getValueJsonObj();
+							if (value.getString("type").equals("task-completed")) {
+								taskCache.addRecoveredTask(value.getString("recovery-key"), value.getString("container-id"));
+								recoveredTasks++;
+							}
+						}
+					} catch (JSONException e) {
+						// the last line might have been written only partially before the previous attempt failed
+						System.err.println("Skipping malformed entry " + line);
+						continue;
+					}
+					statLog.write(line);
+					statLog.newLine();
+					hdfsLog.write(line);
+					hdfsLog.newLine();
+				}
+			}
+			statLog.flush();
+			hdfsLog.flush();
+			hdfsLogStream.hflush();
+			System.out.println("Recovered " + recoveredTasks + " completed tasks.");
+			return;
+		}
+	}
+
+	/**
+	 * Withdraw an outstanding container ask for the nodes of a node request that has been revoked by the scheduler. Since the resource requirements of tasks
+	 * might have been adjusted in the meantime, any ask for these nodes is withdrawn, regardless of its capability and priority.
+	 * 
+	 * @param nodeRequest
+	 *            The revoked node request.
+	 */
+	private void removeContainerAskFromRM(NodeRequest nodeRequest) {
+		ContainerRequest request = requestLedger.withdraw(nodeRequest.nodes);
+		if (request != null) {
+			metrics.endWaitingTask();
+			System.out.println("Removed container ask: " + request.toString() + " Nodes" + Arrays.toString(nodeRequest.nodes));
+		}
+	}
+
 	public void setDetermineFileSizes() {
 		determineFileSizes = true;
 	}
@@ -786,43 +1068,50 @@ public abstract class HiWay {
 	/**
 	 * Setup the request that will be sent to the RM for the container ask.
 	 * 
-	 * @param nodes
-	 *            The worker nodes on which this container is to be allocated. If left empty, the container will be launched on any worker node fulfilling the
-	 *            resource requirements.
+	 * @param nodeRequest
+	 *            The worker nodes on which this container is to be allocated (if left empty, the container will be launched on any worker node fulfilling the
+	 *            resource requirements) and the resources it is to provide.
 	 * @return the setup ResourceRequest to be sent to RM
 	 */
-	private ContainerRequest setupContainerAskForRM(String[] nodes) {
+	private ContainerRequest setupContainerAskForRM(NodeRequest nodeRequest) {
 		metrics.waitingTask();
+		String[] nodes = nodeRequest.nodes;
 
-		// set the priority for the request
-		Priority pri = Records.newRecord(Priority.class);
-		pri.setPriority(requestPriority);
-
-		// set up resource type requirements
+		// set up resource type requirements (a resource ask cannot exceed the max)
 		Resource capability = Records.newRecord(Resource.class);
-		capability.setMemory(containerMemory);
-		capability.setVirtualCores(containerCores);
+		capability.setMemory(Math.min(nodeRequest.memory, maxContainerMemory));
+		capability.setVirtualCores(Math.min(nodeRequest.vcores, maxContainerCores));
+
+		// set the priority for the request, which differs between requests for containers of different sizes
+		String resourceClass = capability.getMemory() + ":" + capability.getVirtualCores();
+		if (!requestPriorities.containsKey(resourceClass)) {
+			requestPriorities.put(resourceClass, requestPriority + requestPriorities.size());
+		}
+		Priority pri = Records.newRecord(Priority.class);
+		pri.setPriority(requestPriorities.get(resourceClass));
 
-		ContainerRequest request = new ContainerRequest(capability, nodes, null, pri, scheduler.relaxLocality());
+		String[] racks = nodeRequest.racks.length > 0 ? nodeRequest.racks : null;
+		ContainerRequest request = new ContainerRequest(capability, nodes, racks, pri, scheduler.relaxLocality());
 		JSONObject value = new JSONObject();
 		try {
 			value.put("type", "container-requested");
 			value.put("memory", capability.getMemory());
 			value.put("vcores", capability.getVirtualCores());
 			value.put("nodes", nodes);
+			value.put("racks", racks);
 			value.put("priority", pri);
 		} catch (JSONException e) {
 			e.printStackTrace();
 			System.exit(-1);
 		}
 
-		System.out.println("Requested container ask: " + request.toString() + " Nodes" + Arrays.toString(nodes));
+		System.out.println("Requested container ask: " + request.toString() + " Nodes" + Arrays.toString(nodes) + " Racks" + Arrays.toString(racks));
 		writeEntryToLog(new JsonReportEntry(getRunId(), null, null, null, null, null, HiwayDBI.KEY_HIWAY_EVENT, value));
 		return request;
 	}
 
 	@SuppressWarnings("static-method")
-	public void taskFailure(TaskInstance task, ContainerId containerId) {
+	public void taskFailure(TaskInstance task, String containerId) {
 		String line;
 
 		try {
@@ -833,7 +1122,7 @@ public abstract class HiWay {
 					System.err.println(String.format("%02d  %s", Integer.valueOf(++i), line));
 			}
 
-			Data stdoutFile = new Data(Invocation.STDOUT_FILENAME, containerId.toString());
+			Data stdoutFile = new Data(Invocation.STDOUT_FILENAME, containerId);
 			stdoutFile.stageIn();
 
 			System.err.println("[out]");
@@ -842,7 +1131,7 @@ public abstract class HiWay {
 					System.err.println(line);
 			}
 
-			Data stderrFile = new Data(Invocation.STDERR_FILENAME, containerId.toString());
+			Data stderrFile = new Data(Invocation.STDERR_FILENAME, containerId);
 			stderrFile.stageIn();
 
 			System.err.println("[err]");
@@ -856,9 +1145,19 @@ public abstract class HiWay {
 		}
 
 		System.err.println("[end]");
+
+		// the outputs of the failed attempt may have been partially written, such that their cached status and block locations are stale
+		for (Data data : task.getOutputData()) {
+			Data.invalidateFileLocations(new Data(data.getLocalPath(), containerId).getHdfsPath());
+		}
 	}
 
-	public void taskSuccess(TaskInstance task, ContainerId containerId) {
+	public void taskSuccess(TaskInstance task, String containerId) {
+		// the outputs have to be located before the children are queued, since the task cache determines the checksums of their inputs
+		for (Data data : task.getOutputData()) {
+			data.setContainerId(containerId);
+			Data.invalidateFileLocations(data.getHdfsPath());
+		}
 		try {
 			for (TaskInstance childTask : task.getChildTasks()) {
 				if (childTask.readyToExecute())
@@ -868,8 +1167,8 @@ public abstract class HiWay {
 			e.printStackTrace();
 			System.exit(-1);
 		}
-		for (Data data : task.getOutputData()) {
-			data.setContainerId(containerId.toString());
+		if (taskCache != null) {
+			taskCache.completeMemoizedTasks();
 		}
 		if (scheduler.getNumberOfReadyTasks() == 0 && scheduler.getNumberOfRunningTasks() == 0) {
 			done = true;
@@ -877,15 +1176,32 @@ public abstract class HiWay {
 	}
 
 	public void writeEntryToLog(JsonReportEntry entry) {
+		statLogWriter.write(entry);
+	}
+
+	/**
+	 * Records the completion of a task, such that a subsequent attempt of this ApplicationMaster does not have to execute it again.
+	 * 
+	 * @param task
+	 *            The completed task.
+	 * @param containerId
+	 *            The container id of the task's invocation.
+	 * @param memoized
+	 *            Whether the task has been completed with the outputs of a cached invocation.
+	 */
+	public void writeTaskCompletedEvent(TaskInstance task, String containerId, boolean memoized) {
+		JSONObject value = new JSONObject();
 		try {
-			statLog.write(entry.toString());
-			statLog.newLine();
-			statLog.flush();
-		} catch (IOException e) {
+			value.put("type", "task-completed");
+			value.put("task-id", task.getId());
+			value.put("recovery-key", TaskCache.getRecoveryKey(task));
+			value.put("container-id", containerId);
+			value.put("memoized", memoized);
+		} catch (JSONException e) {
 			e.printStackTrace();
 			System.exit(-1);
 		}
-		scheduler.addEntryToDB(entry);
+		writeEntryToLog(new JsonReportEntry(getRunId(), null, null, null, null, null, HiwayDBI.KEY_HIWAY_EVENT, value));
 	}
 
 }
@@ -28,11 +28,14 @@ package de.huberlin.wbi.hiway.am;
 import de.huberlin.wbi.hiway.common.TaskInstance;
 
 public class HiWayInvocation {
+	// the id under which the invocation's files are stored in HDFS (the container id, suffixed by the task id if the container is reused)
+	public final String containerId;
 	public final TaskInstance task;
 	public final long timestamp;
 
-	public HiWayInvocation(TaskInstance task) {
+	public HiWayInvocation(TaskInstance task, String containerId) {
 		this.task = task;
+		this.containerId = containerId;
 		timestamp = System.currentTimeMillis();
 	}
 }
@@ -25,22 +25,15 @@
  */
 package de.huberlin.wbi.hiway.am;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Vector;
 
 import org.apache.hadoop.yarn.api.ContainerManagementProtocol;
-import org.apache.hadoop.yarn.api.ApplicationConstants.Environment;
 import org.apache.hadoop.yarn.api.records.Container;
 import org.apache.hadoop.yarn.api.records.ContainerLaunchContext;
-import org.apache.hadoop.yarn.conf.YarnConfiguration;
-import org.apache.hadoop.yarn.util.Records;
 
-import de.huberlin.wbi.cuneiform.core.invoc.Invocation;
 import de.huberlin.wbi.hiway.am.NMCallbackHandler;
 import de.huberlin.wbi.hiway.common.Data;
-import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.TaskInstance;
 
 /**
@@ -48,9 +41,48 @@ import de.huberlin.wbi.hiway.common.TaskInstance;
  */
 public class LaunchContainerRunnable implements Runnable {
 
+	/**
+	 * Builds the command line arguments with which a Worker executes the given task.
+	 * 
+	 * @param am
+	 *            The Application Master
+	 * @param task
+	 *            The task to be executed
+	 * @param containerId
+	 *            The id under which the task's files are to be stored in HDFS
+	 * @return The arguments to be passed to the Worker, each option name followed by its value
+	 */
+	public static List<String> getWorkerArguments(HiWay am, TaskInstance task, String containerId) {
+		List<String> args = new ArrayList<>();
+		args.add("--appId " + am.getAppId().toString());
+		args.add("--containerId " + containerId);
+		args.add("--workflowId " + task.getWorkflowId());
+		args.add("--taskId " + task.getTaskId());
+		args.add("--taskName " + task.getTaskName());
+		args.add("--langLabel " + task.getLanguageLabel());
+		args.add("--id " + task.getId());
+		for (Data inputData : task.getInputData()) {
+			args.add("--input " + inputData.getLocalPath() + "," + inputData.isInput() + "," + inputData.getContainerId());
+		}
+		for (Data outputData : task.getOutputData()) {
+			args.add("--output " + outputData.getLocalPath());
+		}
+		if (am.isDetermineFileSizes()) {
+			args.add("--size");
+		}
+
+		String invocScript = task.getInvocScript();
+		if (invocScript.length() > 0) {
+			args.add("--invocScript " + invocScript);
+		}
+		return args;
+	}
+
 	private HiWay am;
 	private Container container;
 	private NMCallbackHandler containerListener;
+	// the time at which this launch has been queued for execution
+	private long queueTimestamp;
 	private TaskInstance task;
 
 	/**
@@ -68,6 +100,7 @@ public class LaunchContainerRunnable implements Runnable {
 		this.containerListener = containerListener;
 		this.task = task;
 		this.am = am;
+		queueTimestamp = System.currentTimeMillis();
 	}
 
 	/**
@@ -75,79 +108,12 @@ public class LaunchContainerRunnable implements Runnable {
 	 */
 	@Override
 	public void run() {
+		am.getMetrics().startedLaunch();
 		System.out.println("Setting up container launch container for containerid=" + container.getId());
-		ContainerLaunchContext ctx = Records.newRecord(ContainerLaunchContext.class);
-
-		// Set the environment
-		StringBuilder classPathEnv = new StringBuilder(Environment.CLASSPATH.$()).append(File.pathSeparatorChar).append("./*");
-		for (String c : am.getConf().getStrings(YarnConfiguration.YARN_APPLICATION_CLASSPATH, YarnConfiguration.DEFAULT_YARN_APPLICATION_CLASSPATH)) {
-			classPathEnv.append(':');
-			classPathEnv.append(File.pathSeparatorChar);
-			classPathEnv.append(c.trim());
-		}
-
-		if (am.getConf().getBoolean(YarnConfiguration.IS_MINI_YARN_CLUSTER, false)) {
-			classPathEnv.append(':');
-			classPathEnv.append(System.getProperty("java.class.path"));
-		}
-
-		am.getShellEnv().put("CLASSPATH", classPathEnv.toString());
-
-		// Set the environment
-		ctx.setEnvironment(am.getShellEnv());
-
-		ctx.setLocalResources(task.buildScriptsAndSetResources(container));
-
-		// Set the necessary command to execute on the allocated container
-		Vector<CharSequence> vargs = new Vector<>(5);
-
-		vargs.add(Environment.JAVA_HOME.$() + "/bin/java");
-		// Set Xmx based on am memory size
-		vargs.add("-Xmx" + am.getContainerMemory() + "m");
-		// Set class name
-		vargs.add(HiWayConfiguration.HIWAY_WORKER_CLASS);
-
-		vargs.add("--appId " + am.getAppId().toString());
-		vargs.add("--containerId " + container.getId().toString());
-		vargs.add("--workflowId " + task.getWorkflowId());
-		vargs.add("--taskId " + task.getTaskId());
-		vargs.add("--taskName " + task.getTaskName());
-		vargs.add("--langLabel " + task.getLanguageLabel());
-		vargs.add("--id " + task.getId());
-		for (Data inputData : task.getInputData()) {
-			vargs.add("--input " + inputData.getLocalPath() + "," + inputData.isInput() + "," + inputData.getContainerId());
-		}
-		for (Data outputData : task.getOutputData()) {
-			vargs.add("--output " + outputData.getLocalPath());
-		}
-		if (am.isDetermineFileSizes()) {
-			vargs.add("--size");
-		}
-
-		String invocScript = task.getInvocScript();
-		if (invocScript.length() > 0) {
-			vargs.add("--invocScript " + invocScript);
-		}
-		
-		vargs.add(">> " + Invocation.STDOUT_FILENAME);
-		vargs.add("2>> " + Invocation.STDERR_FILENAME);
-
-		// Get final commmand
-		StringBuilder command = new StringBuilder();
-		for (CharSequence str : vargs) {
-			command.append(str).append(" ");
-		}
-
-		List<String> commands = new ArrayList<>();
-		commands.add(command.toString());
-		ctx.setCommands(commands);
-
-		/* Set up tokens for the container. For normal shell commands, the container in distribute-shell doesn't need any tokens. We are populating them mainly
-		 * for NodeManagers to be able to download any files in the distributed file-system. The tokens are otherwise also useful in cases, for e.g., when one
-		 * is running a "hadoop dfs" command inside the distributed shell. */
-		ctx.setTokens(am.getAllTokens().duplicate());
+		ContainerLaunchContext ctx = am.getLaunchContextFactory().newLaunchContext(container, task);
 
 		containerListener.addContainer(container.getId(), container);
 		am.getNmClientAsync().startContainerAsync(container, ctx);
+		am.getMetrics().completedLaunch(System.currentTimeMillis() - queueTimestamp);
 	}
 }
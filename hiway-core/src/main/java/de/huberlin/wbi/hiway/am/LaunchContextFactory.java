@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.yarn.api.ApplicationConstants.Environment;
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerLaunchContext;
+import org.apache.hadoop.yarn.conf.YarnConfiguration;
+import org.apache.hadoop.yarn.util.Records;
+
+import de.huberlin.wbi.cuneiform.core.invoc.Invocation;
+import de.huberlin.wbi.hiway.common.HiWayConfiguration;
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.common.Worker;
+
+/**
+ * A factory for the launch contexts of the containers running Workers. The parts of the launch context that are the same for every container (the
+ * environment including the classpath, the tokens, and the fixed parts of the command) are determined once when the factory is created and are not modified
+ * afterwards, such that the factory can be used concurrently by the threads launching containers.
+ */
+public class LaunchContextFactory {
+
+	private final HiWay am;
+	// the arguments following the arguments of the task, i.e., the address of the worker server and the redirection of stdout and stderr
+	private final String commandSuffix;
+	private final Map<String, String> environment;
+	private final ByteBuffer tokens;
+
+	public LaunchContextFactory(HiWay am) {
+		this.am = am;
+
+		StringBuilder classPathEnv = new StringBuilder(Environment.CLASSPATH.$()).append(File.pathSeparatorChar).append("./*");
+		for (String c : am.getConf().getStrings(YarnConfiguration.YARN_APPLICATION_CLASSPATH, YarnConfiguration.DEFAULT_YARN_APPLICATION_CLASSPATH)) {
+			classPathEnv.append(':');
+			classPathEnv.append(File.pathSeparatorChar);
+			classPathEnv.append(c.trim());
+		}
+		if (am.getConf().getBoolean(YarnConfiguration.IS_MINI_YARN_CLUSTER, false)) {
+			classPathEnv.append(':');
+			classPathEnv.append(System.getProperty("java.class.path"));
+		}
+		Map<String, String> env = new HashMap<>(am.getShellEnv());
+		env.put("CLASSPATH", classPathEnv.toString());
+		environment = Collections.unmodifiableMap(env);
+
+		StringBuilder suffix = new StringBuilder();
+		if (am.getWorkerServer() != null) {
+			suffix.append(" --amHost ").append(am.getAppMasterHostname());
+			suffix.append(" --amPort ").append(am.getWorkerServer().getPort());
+			if (am.isReuseContainers()) {
+				suffix.append(" --reuse");
+			}
+		}
+		suffix.append(" >> ").append(Invocation.STDOUT_FILENAME);
+		suffix.append(" 2>> ").append(Invocation.STDERR_FILENAME);
+		commandSuffix = suffix.toString();
+
+		/* Set up tokens for the container. For normal shell commands, the container in distribute-shell doesn't need any tokens. We are populating them mainly
+		 * for NodeManagers to be able to download any files in the distributed file-system. The tokens are otherwise also useful in cases, for e.g., when one
+		 * is running a "hadoop dfs" command inside the distributed shell. */
+		tokens = am.getAllTokens().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Creates the launch context of a container that is to execute the given task.
+	 * 
+	 * @param container
+	 *            The allocated container.
+	 * @param task
+	 *            The task to be executed on the container.
+	 * @return The launch context.
+	 */
+	public ContainerLaunchContext newLaunchContext(Container container, TaskInstance task) {
+		String containerId = container.getId().toString();
+		ContainerLaunchContext ctx = Records.newRecord(ContainerLaunchContext.class);
+		if (am.getWorkerServer() != null) {
+			// the secret with which the Worker authenticates its requests to the AM
+			Map<String, String> env = new HashMap<>(environment);
+			env.put(Worker.ENV_SECRET, am.getWorkerServer().newSecret(containerId));
+			ctx.setEnvironment(env);
+		} else {
+			ctx.setEnvironment(environment);
+		}
+		ctx.setLocalResources(task.buildScriptsAndSetResources(containerId));
+
+		// Set Xmx based on the memory size of the container
+		StringBuilder command = new StringBuilder(Environment.JAVA_HOME.$()).append("/bin/java -Xmx").append(container.getResource().getMemory()).append("m ")
+				.append(HiWayConfiguration.HIWAY_WORKER_CLASS);
+		for (String arg : LaunchContainerRunnable.getWorkerArguments(am, task, containerId)) {
+			command.append(' ').append(arg);
+		}
+		command.append(commandSuffix);
+		ctx.setCommands(Collections.singletonList(command.toString()));
+
+		ctx.setTokens(tokens.duplicate());
+		return ctx;
+	}
+
+}
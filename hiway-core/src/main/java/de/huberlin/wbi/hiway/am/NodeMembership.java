@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.yarn.api.records.NodeReport;
+import org.apache.hadoop.yarn.api.records.NodeState;
+import org.apache.hadoop.yarn.api.records.Resource;
+
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
+
+/**
+ * Keeps track of the nodes of the cluster on which containers can be allocated, based on the node reports of the ResourceManager, and informs the scheduler
+ * whenever a node joins the cluster or leaves it (e.g., since it has become unhealthy or has been decommissioned). If the nodes of the cluster could not be
+ * determined at startup, the scheduler is not informed of any changes, since it is unaware of which nodes are available in the first place; the node reports
+ * received afterwards only serve for looking up the racks of nodes then.
+ */
+public class NodeMembership {
+
+	private static boolean isUsable(NodeReport report) {
+		return report.getNodeState() == NodeState.RUNNING;
+	}
+
+	private boolean initialized = false;
+	// the reports of the usable nodes, by host name
+	private final Map<String, NodeReport> nodes = new HashMap<>();
+	private final Scheduler scheduler;
+
+	public NodeMembership(Scheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * @param nodeId
+	 *            The host name of the node.
+	 * @return The resources of the node or null if the node is not usable.
+	 */
+	public synchronized Resource getCapability(String nodeId) {
+		NodeReport report = nodes.get(nodeId);
+		return report == null ? null : report.getCapability();
+	}
+
+	/**
+	 * @param nodeId
+	 *            The host name of the node.
+	 * @return The rack of the node or null if the node is not usable.
+	 */
+	public synchronized String getRack(String nodeId) {
+		NodeReport report = nodes.get(nodeId);
+		return report == null ? null : report.getRackName();
+	}
+
+	/**
+	 * Registers the nodes of the cluster at startup. Nodes that the scheduler knows from previous runs, but that are not among the usable nodes of the cluster,
+	 * are not considered by the scheduler.
+	 * 
+	 * @param reports
+	 *            The reports of all nodes in the cluster.
+	 */
+	public synchronized void initialize(Collection<NodeReport> reports) {
+		for (NodeReport report : reports) {
+			if (isUsable(report)) {
+				nodes.put(report.getNodeId().getHost(), report);
+			}
+		}
+		System.out.println("Cluster consists of " + nodes.size() + " usable nodes: " + nodes.keySet());
+		scheduler.setAvailableNodes(nodes.keySet());
+		initialized = true;
+	}
+
+	/**
+	 * Updates the nodes of the cluster with the reports of nodes whose state has changed.
+	 * 
+	 * @param reports
+	 *            The reports of the nodes whose state has changed.
+	 */
+	public synchronized void update(Collection<NodeReport> reports) {
+		for (NodeReport report : reports) {
+			String nodeId = report.getNodeId().getHost();
+			if (isUsable(report)) {
+				if (nodes.put(nodeId, report) == null && initialized) {
+					scheduler.nodeJoined(nodeId);
+				}
+			} else if (nodes.remove(nodeId) != null && initialized) {
+				System.out.println("Node " + nodeId + " is in state " + report.getNodeState() + ": " + report.getHealthReport());
+				scheduler.nodeLeft(nodeId);
+			}
+		}
+	}
+
+}
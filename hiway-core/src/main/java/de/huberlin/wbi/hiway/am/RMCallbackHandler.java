@@ -37,7 +37,6 @@ import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.apache.hadoop.yarn.api.records.ContainerState;
 import org.apache.hadoop.yarn.api.records.ContainerStatus;
 import org.apache.hadoop.yarn.api.records.NodeReport;
-import org.apache.hadoop.yarn.api.records.ResourceRequest;
 import org.apache.hadoop.yarn.client.api.AMRMClient.ContainerRequest;
 import org.apache.hadoop.yarn.client.api.async.AMRMClientAsync;
 import org.apache.hadoop.yarn.server.nodemanager.ContainerExecutor.ExitCode;
@@ -47,7 +46,9 @@ import org.json.JSONObject;
 
 import de.huberlin.hiwaydb.useDB.HiwayDBI;
 import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
 
 public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 
@@ -57,24 +58,58 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 
 	// a queue for allocated containers that have yet to be assigned a task
 	private Queue<Container> containerQueue = new LinkedList<>();
+	// the request fulfilled by each container that has yet to be assigned a task, which is issued anew if the scheduler declines the container
+	private Map<ContainerId, ContainerRequest> containerRequests = new HashMap<>();
+	// containers running a Worker that asks for further tasks (or tasks to be fused with) once it has finished its current task
+	private Map<String, Container> reusableContainers = new HashMap<>();
+
+	// the number of tasks executed in sequence on a container by means of task fusion
+	private Map<String, Integer> fusedTasksPerContainer = new HashMap<>();
+	// the maximum number of tasks fused into one container execution
+	private int fusionMax;
+	// the estimated runtime (in ms) below which tasks are fused with further tasks of the same signature (task fusion is disabled if zero)
+	private int fusionThreshold;
+	// whether containers are reused for further tasks of any signature
+	private boolean reuseContainers;
 
 	public RMCallbackHandler(HiWay am) {
 		super();
 		this.am = am;
+		reuseContainers = am.getConf().getBoolean(HiWayConfiguration.HIWAY_WORKER_REUSE, HiWayConfiguration.HIWAY_WORKER_REUSE_DEFAULT);
+		fusionThreshold = am.getConf().getInt(HiWayConfiguration.HIWAY_WORKER_FUSION_THRESHOLD, HiWayConfiguration.HIWAY_WORKER_FUSION_THRESHOLD_DEFAULT);
+		fusionMax = am.getConf().getInt(HiWayConfiguration.HIWAY_WORKER_FUSION_MAX, HiWayConfiguration.HIWAY_WORKER_FUSION_MAX_DEFAULT);
 	}
 
-	@SuppressWarnings("unchecked")
-	private ContainerRequest findFirstMatchingRequest(Container container) {
-		List<? extends Collection<ContainerRequest>> requestCollections = am.getScheduler().relaxLocality() ? am.getAmRMClient().getMatchingRequests(
-				container.getPriority(), ResourceRequest.ANY, container.getResource()) : am.getAmRMClient().getMatchingRequests(container.getPriority(),
-				container.getNodeId().getHost(), container.getResource());
-
-		for (Collection<ContainerRequest> requestCollection : requestCollections) {
-			for (ContainerRequest request : requestCollection) {
-				return request;
-			}
+	/**
+	 * Releases a container that the scheduler has declined (e.g., since the ready tasks wait for containers closer to their input data) and issues the request
+	 * it has fulfilled anew if the scheduler still has tasks for the container's node. Otherwise, the request has become obsolete (e.g., since the tasks of a
+	 * static scheduler have been moved to other nodes along with their requests) and issuing it anew would only result in further containers being declined.
+	 * 
+	 * @param container
+	 *            The declined container.
+	 * @param request
+	 *            The request fulfilled by the container.
+	 */
+	private void declineContainer(Container container, ContainerRequest request) {
+		System.out.println("Declining container " + container.getId() + " on node " + container.getNodeId().getHost());
+		releaseContainer(container.getId());
+		am.getNumAllocatedContainers().decrementAndGet();
+		am.getMetrics().declinedContainer();
+		if (request != null && !am.getScheduler().nothingToSchedule(container.getNodeId().getHost())) {
+			am.getRequestLedger().add(request);
 		}
-		return null;
+	}
+
+	/**
+	 * Determines (and removes) the outstanding request fulfilled by a container.
+	 * 
+	 * @param container
+	 *            The container.
+	 * @return The request or null if the container does not fulfill any outstanding request.
+	 */
+	private ContainerRequest fulfillRequest(Container container) {
+		NodeMembership nodeMembership = am.getNodeMembership();
+		return am.getRequestLedger().fulfill(container, nodeMembership != null ? nodeMembership.getRack(container.getNodeId().getHost()) : null);
 	}
 
 	@Override
@@ -87,19 +122,80 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 		return progress;
 	}
 
+	private void addSchedulingEntries(TaskInstance task, Container container, long tic, long toc) {
+		if (task.getTries() == 1) {
+			JSONObject obj = new JSONObject();
+			try {
+				obj.put(JsonReportEntry.LABEL_REALTIME, Long.toString(toc - tic));
+			} catch (JSONException e) {
+				onError(e);
+			}
+			task.getReport().add(
+					new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), Long.valueOf(task.getId()), null,
+							HiwayDBI.KEY_INVOC_TIME_SCHED, obj));
+			task.getReport().add(
+					new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), Long.valueOf(task.getId()), null,
+							HiwayDBI.KEY_INVOC_HOST, container.getNodeId().getHost()));
+		}
+	}
+
+	private TaskInstance getNextTask(Container container) {
+		long tic = System.currentTimeMillis();
+		TaskInstance task = am.getScheduler().getNextTask(container);
+		long toc = System.currentTimeMillis();
+		if (task != null) {
+			addSchedulingEntries(task, container, tic, toc);
+		}
+		return task;
+	}
+
+	private TaskInstance getNextFusableTask(TaskInstance previousTask, Container container) {
+		String containerId = container.getId().toString();
+		int fusedTasks = fusedTasksPerContainer.containsKey(containerId) ? fusedTasksPerContainer.get(containerId) : 1;
+		if (fusionThreshold <= 0 || fusedTasks >= fusionMax) {
+			return null;
+		}
+		long estimatedRuntime = am.getScheduler().getEstimatedRuntime(previousTask.getTaskId(), container.getNodeId().getHost());
+		if (estimatedRuntime < 0 || estimatedRuntime >= fusionThreshold) {
+			return null;
+		}
+
+		long tic = System.currentTimeMillis();
+		TaskInstance task = am.getScheduler().getNextFusableTask(previousTask, container);
+		long toc = System.currentTimeMillis();
+		if (task != null) {
+			addSchedulingEntries(task, container, tic, toc);
+			fusedTasksPerContainer.put(containerId, fusedTasks + 1);
+		}
+		return task;
+	}
+
+	/**
+	 * Determines whether the Worker running on the given container is to wait for further tasks.
+	 * 
+	 * @param containerId
+	 *            The id of the container on which the Worker is running.
+	 * @return True if the container has been set up for reuse and has not been released yet.
+	 */
+	public synchronized boolean isReusable(String containerId) {
+		return reuseContainers && reusableContainers.containsKey(containerId);
+	}
+
 	@SuppressWarnings("deprecation")
 	protected void launchTask(TaskInstance task, Container allocatedContainer) {
-		containerIdToInvocation.put(allocatedContainer.getId().getId(), new HiWayInvocation(task));
+		containerIdToInvocation.put(allocatedContainer.getId().getId(), new HiWayInvocation(task, allocatedContainer.getId().toString()));
+		if (am.isReuseContainers()) {
+			reusableContainers.put(allocatedContainer.getId().toString(), allocatedContainer);
+		}
 		System.out.println("Launching workflow task on a new container." + ", task=" + task + ", containerId=" + allocatedContainer.getId()
 				+ ", containerNode=" + allocatedContainer.getNodeId().getHost() + ":" + allocatedContainer.getNodeId().getPort() + ", containerNodeURI="
 				+ allocatedContainer.getNodeHttpAddress() + ", containerResourceMemory" + allocatedContainer.getResource().getMemory());
 
 		LaunchContainerRunnable runnableLaunchContainer = new LaunchContainerRunnable(allocatedContainer, am.getContainerListener(), task, am);
-		Thread launchThread = new Thread(runnableLaunchContainer);
 
-		/* launch and start the container on a separate thread to keep the main thread unblocked as all containers may not be allocated at one go. */
-		am.getLaunchThreads().add(launchThread);
-		launchThread.start();
+		/* launch and start the container on a pool of launcher threads to keep the main thread unblocked as all containers may not be allocated at one go. */
+		am.getMetrics().queuedLaunch();
+		am.getLaunchExecutor().execute(runnableLaunchContainer);
 		am.getMetrics().endWaitingTask();
 		am.getMetrics().runningTask();
 		am.getMetrics().launchedTask();
@@ -109,32 +205,18 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 	protected void launchTasks() {
 		while (!containerQueue.isEmpty() && !am.getScheduler().nothingToSchedule()) {
 			Container allocatedContainer = containerQueue.remove();
-
-			long tic = System.currentTimeMillis();
-			TaskInstance task = am.getScheduler().getNextTask(allocatedContainer);
-			long toc = System.currentTimeMillis();
-
-			if (task.getTries() == 1) {
-				JSONObject obj = new JSONObject();
-				try {
-					obj.put(JsonReportEntry.LABEL_REALTIME, Long.toString(toc - tic));
-				} catch (JSONException e) {
-					onError(e);
-				}
-				task.getReport().add(
-						new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), Long.valueOf(task.getId()),
-								null, HiwayDBI.KEY_INVOC_TIME_SCHED, obj));
-				task.getReport().add(
-						new JsonReportEntry(task.getWorkflowId(), task.getTaskId(), task.getTaskName(), task.getLanguageLabel(), Long.valueOf(task.getId()),
-								null, HiwayDBI.KEY_INVOC_HOST, allocatedContainer.getNodeId().getHost()));
+			ContainerRequest request = containerRequests.remove(allocatedContainer.getId());
+			TaskInstance task = getNextTask(allocatedContainer);
+			if (task != null) {
+				launchTask(task, allocatedContainer);
+			} else {
+				declineContainer(allocatedContainer, request);
 			}
-			launchTask(task, allocatedContainer);
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
-	public void onContainersAllocated(List<Container> allocatedContainers) {
+	public synchronized void onContainersAllocated(List<Container> allocatedContainers) {
 		System.out.println("Got response from RM for container ask, allocatedCnt=" + allocatedContainers.size());
 
 		for (Container container : allocatedContainers) {
@@ -152,23 +234,24 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 			}
 
 			am.writeEntryToLog(new JsonReportEntry(am.getRunId(), null, null, null, null, null, HiwayDBI.KEY_HIWAY_EVENT, value));
-			ContainerRequest request = findFirstMatchingRequest(container);
+			ContainerRequest request = fulfillRequest(container);
 
 			if (request != null) {
-				am.getAmRMClient().removeContainerRequest(request);
 				am.getNumAllocatedContainers().incrementAndGet();
 				containerQueue.add(container);
+				containerRequests.put(container.getId(), request);
 			} else {
-				am.getAmRMClient().releaseAssignedContainer(container.getId());
+				releaseContainer(container.getId());
 			}
 		}
 
 		launchTasks();
+		withdrawSurplusRequests();
 	}
 
 	@SuppressWarnings("deprecation")
 	@Override
-	public void onContainersCompleted(List<ContainerStatus> completedContainers) {
+	public synchronized void onContainersCompleted(List<ContainerStatus> completedContainers) {
 		System.out.println("Got response from RM for container ask, completedCnt=" + completedContainers.size());
 		for (ContainerStatus containerStatus : completedContainers) {
 
@@ -194,40 +277,21 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 			int exitStatus = containerStatus.getExitStatus();
 			String diagnostics = containerStatus.getDiagnostics();
 			ContainerId containerId = containerStatus.getContainerId();
+			reusableContainers.remove(containerId.toString());
+			fusedTasksPerContainer.remove(containerId.toString());
+			if (am.getWorkerServer() != null) {
+				am.getWorkerServer().forgetContainer(containerId.toString());
+			}
 
 			if (containerIdToInvocation.containsKey(containerId.getId())) {
 
-				HiWayInvocation invocation = containerIdToInvocation.get(containerStatus.getContainerId().getId());
+				HiWayInvocation invocation = containerIdToInvocation.remove(containerStatus.getContainerId().getId());
 				TaskInstance finishedTask = invocation.task;
 
 				if (exitStatus == 0) {
 
 					System.out.println("Container completed successfully." + ", containerId=" + containerStatus.getContainerId());
-
-					// this task might have been completed previously (e.g., via speculative replication)
-					if (!finishedTask.isCompleted()) {
-						finishedTask.setCompleted();
-
-						am.evaluateReport(finishedTask, containerId);
-
-						for (JsonReportEntry entry : finishedTask.getReport()) {
-							am.writeEntryToLog(entry);
-						}
-
-						Collection<ContainerId> toBeReleasedContainers = am.getScheduler().taskCompleted(finishedTask, containerStatus,
-								System.currentTimeMillis() - invocation.timestamp);
-						for (ContainerId toBeReleasedContainer : toBeReleasedContainers) {
-							System.out.println("Killing speculative copy of task " + finishedTask + " on container " + toBeReleasedContainer);
-							am.getAmRMClient().releaseAssignedContainer(toBeReleasedContainer);
-							am.getNumKilledContainers().incrementAndGet();
-						}
-
-						am.getNumCompletedContainers().incrementAndGet();
-						am.getMetrics().completedTask();
-						am.getMetrics().endRunningTask();
-
-						am.taskSuccess(finishedTask, containerId);
-					}
+					taskCompleted(invocation, containerStatus);
 				}
 
 				// The container was released by the framework (e.g., it was a speculative copy of a finished task)
@@ -242,7 +306,7 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 				// The container failed horribly.
 				else {
 
-					am.taskFailure(finishedTask, containerId);
+					am.taskFailure(finishedTask, invocation.containerId);
 					am.getNumFailedContainers().incrementAndGet();
 					am.getMetrics().failedTask();
 
@@ -254,7 +318,7 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 						Collection<ContainerId> toBeReleasedContainers = am.getScheduler().taskFailed(finishedTask, containerStatus);
 						for (ContainerId toBeReleasedContainer : toBeReleasedContainers) {
 							System.out.println("Killing speculative copy of task " + finishedTask + " on container " + toBeReleasedContainer);
-							am.getAmRMClient().releaseAssignedContainer(toBeReleasedContainer);
+							releaseContainer(toBeReleasedContainer);
 							am.getNumKilledContainers().incrementAndGet();
 
 						}
@@ -270,6 +334,7 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 		}
 
 		launchTasks();
+		withdrawSurplusRequests();
 	}
 
 	@Override
@@ -280,6 +345,7 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 
 	@Override
 	public void onNodesUpdated(List<NodeReport> updatedNodes) {
+		am.queueNodeUpdates(updatedNodes);
 	}
 
 	@Override
@@ -287,4 +353,119 @@ public class RMCallbackHandler implements AMRMClientAsync.CallbackHandler {
 		System.out.println("Shutdown Request.");
 		am.setDone();
 	}
+
+	/**
+	 * Handles the request of a Worker running on a reused container for a further task to execute.
+	 * 
+	 * @param containerId
+	 *            The id of the container on which the Worker is running.
+	 * @param finished
+	 *            Whether the Worker has just finished executing its current task successfully.
+	 * @return The invocation to be executed next by the Worker or null if there is currently no task to be executed on the container.
+	 */
+	@SuppressWarnings({ "deprecation", "unchecked" })
+	public synchronized HiWayInvocation onWorkerRequest(String containerId, boolean finished) {
+		Container container = reusableContainers.get(containerId);
+		if (container == null) {
+			return null;
+		}
+
+		TaskInstance task = null;
+		if (finished) {
+			HiWayInvocation invocation = containerIdToInvocation.remove(container.getId().getId());
+			if (invocation != null) {
+				System.out.println("Reused container completed task successfully." + ", containerId=" + containerId + ", task=" + invocation.task);
+				taskCompleted(invocation, ContainerStatus.newInstance(container.getId(), ContainerState.COMPLETE, "", 0));
+				// short tasks are fused with further ready tasks of the same signature
+				task = getNextFusableTask(invocation.task, container);
+			}
+		}
+
+		if (task == null) {
+			if (!reuseContainers || am.getScheduler().nothingToSchedule(container.getNodeId().getHost())) {
+				return null;
+			}
+			task = getNextTask(container);
+			fusedTasksPerContainer.remove(containerId);
+			// the scheduler might decline the container, in which case it is released and the Worker exits
+			if (task == null) {
+				System.out.println("Releasing declined reused container " + containerId);
+				releaseContainer(container.getId());
+				return null;
+			}
+		}
+		HiWayInvocation invocation = new HiWayInvocation(task, containerId + "_" + task.getId());
+		containerIdToInvocation.put(container.getId().getId(), invocation);
+		System.out.println("Launching workflow task on a reused container." + ", task=" + task + ", containerId=" + containerId);
+
+		// the task has been assigned to a container that was not requested for it, so one of the outstanding requests has become obsolete
+		fulfillRequest(container);
+		am.getMetrics().endWaitingTask();
+		am.getMetrics().runningTask();
+		am.getMetrics().launchedTask();
+		withdrawSurplusRequests();
+		return invocation;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void releaseContainer(ContainerId containerId) {
+		reusableContainers.remove(containerId.toString());
+		fusedTasksPerContainer.remove(containerId.toString());
+		am.getAmRMClient().releaseAssignedContainer(containerId);
+	}
+
+	private void taskCompleted(HiWayInvocation invocation, ContainerStatus containerStatus) {
+		TaskInstance finishedTask = invocation.task;
+
+		// this task might have been completed previously (e.g., via speculative replication)
+		if (!finishedTask.isCompleted()) {
+			finishedTask.setCompleted();
+
+			am.evaluateReport(finishedTask, invocation.containerId);
+
+			for (JsonReportEntry entry : finishedTask.getReport()) {
+				am.writeEntryToLog(entry);
+			}
+
+			Collection<ContainerId> toBeReleasedContainers = am.getScheduler().taskCompleted(finishedTask, containerStatus,
+					System.currentTimeMillis() - invocation.timestamp);
+			for (ContainerId toBeReleasedContainer : toBeReleasedContainers) {
+				System.out.println("Killing speculative copy of task " + finishedTask + " on container " + toBeReleasedContainer);
+				releaseContainer(toBeReleasedContainer);
+				am.getNumKilledContainers().incrementAndGet();
+			}
+
+			am.getNumCompletedContainers().incrementAndGet();
+			am.getMetrics().completedTask();
+			am.getMetrics().endRunningTask();
+
+			if (am.getTaskCache() != null) {
+				am.getTaskCache().record(finishedTask, invocation.containerId);
+			}
+			am.writeTaskCompletedEvent(finishedTask, invocation.containerId, false);
+			am.taskSuccess(finishedTask, invocation.containerId);
+		} else if (am.getWorkerServer() != null) {
+			am.getWorkerServer().discardReport(invocation.containerId);
+		}
+	}
+
+	/**
+	 * Withdraws the outstanding requests in excess of the containers the scheduler still has use for, such that the ResourceManager does not allocate surplus
+	 * containers that would have to be released. Requests that are yet to be issued and allocated containers that are yet to be assigned a task are accounted
+	 * for as well. Since the requests of static schedulers are bound to particular nodes, they are withdrawn only if the scheduler revokes them.
+	 */
+	private void withdrawSurplusRequests() {
+		Scheduler scheduler = am.getScheduler();
+		if (!scheduler.relaxLocality()) {
+			return;
+		}
+		int surplus = am.getRequestLedger().size() + scheduler.getNumberOfUnissuedNodeRequests() + containerQueue.size()
+				- scheduler.getNumberOfContainersNeeded();
+		if (surplus > 0) {
+			for (ContainerRequest request : am.getRequestLedger().trim(surplus)) {
+				am.getMetrics().endWaitingTask();
+				System.out.println("Removed surplus container ask: " + request.toString());
+			}
+		}
+	}
 }
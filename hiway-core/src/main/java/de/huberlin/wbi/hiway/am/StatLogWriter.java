@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.hadoop.fs.FSDataOutputStream;
+
+import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
+
+/**
+ * A thread that writes provenance entries to the statistics log and the provenance database. Entries are collected in a bounded queue and committed in
+ * batches, such that the threads handling the callbacks of the ResourceManager do not block on provenance I/O (unless the queue is full). Optionally, each
+ * batch is mirrored to a log in HDFS and flushed, such that a subsequent attempt of the ApplicationMaster can recover the progress made so far.
+ */
+public class StatLogWriter extends Thread {
+
+	private final int batchMs;
+	private final int batchSize;
+	private volatile boolean closed;
+	// entries are queued under the read lock and the writer is closed under the write lock, such that no entry is queued after the last batch was committed
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private final BufferedWriter hdfsLog;
+	private final FSDataOutputStream hdfsLogStream;
+	private final BlockingQueue<JsonReportEntry> queue;
+	private final Scheduler scheduler;
+	private final BufferedWriter statLog;
+
+	public StatLogWriter(BufferedWriter statLog, FSDataOutputStream hdfsLogStream, Scheduler scheduler, int capacity, int batchSize, int batchMs) {
+		super("StatLogWriter");
+		this.statLog = statLog;
+		this.hdfsLogStream = hdfsLogStream;
+		hdfsLog = hdfsLogStream == null ? null : new BufferedWriter(new OutputStreamWriter(hdfsLogStream, StandardCharsets.UTF_8));
+		this.scheduler = scheduler;
+		this.batchSize = Math.max(1, batchSize);
+		this.batchMs = Math.max(0, batchMs);
+		queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+		setDaemon(true);
+	}
+
+	/**
+	 * Stops accepting new entries and waits until all queued entries have been committed.
+	 */
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+		try {
+			join();
+			if (hdfsLog != null) {
+				hdfsLog.close();
+			}
+		} catch (InterruptedException | IOException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+	private void commit(List<JsonReportEntry> batch) {
+		try {
+			for (JsonReportEntry entry : batch) {
+				statLog.write(entry.toString());
+				statLog.newLine();
+			}
+			statLog.flush();
+			if (hdfsLog != null) {
+				for (JsonReportEntry entry : batch) {
+					hdfsLog.write(entry.toString());
+					hdfsLog.newLine();
+				}
+				hdfsLog.flush();
+				hdfsLogStream.hflush();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		for (JsonReportEntry entry : batch) {
+			scheduler.addEntryToDB(entry);
+		}
+	}
+
+	@Override
+	public void run() {
+		List<JsonReportEntry> batch = new ArrayList<>(batchSize);
+		try {
+			while (!closed || !queue.isEmpty()) {
+				JsonReportEntry entry = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (entry == null) {
+					continue;
+				}
+				batch.add(entry);
+				// wait for further entries until either the batch is full or its time span has elapsed
+				long deadline = System.currentTimeMillis() + batchMs;
+				long remaining;
+				while (batch.size() < batchSize && (remaining = deadline - System.currentTimeMillis()) > 0
+						&& (entry = queue.poll(remaining, TimeUnit.MILLISECONDS)) != null) {
+					batch.add(entry);
+				}
+				queue.drainTo(batch, batchSize - batch.size());
+				commit(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Queues an entry for being written to the statistics log and the provenance database. Blocks if the queue is full.
+	 *
+	 * @param entry
+	 *            The entry to be written.
+	 */
+	public void write(JsonReportEntry entry) {
+		closeLock.readLock().lock();
+		try {
+			if (closed) {
+				System.err.println("Attempt to write entry " + entry + " to closed statistics log.");
+				return;
+			}
+			queue.put(entry);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		} finally {
+			closeLock.readLock().unlock();
+		}
+	}
+
+}
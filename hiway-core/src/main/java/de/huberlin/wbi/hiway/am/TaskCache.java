@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import de.huberlin.wbi.cuneiform.core.invoc.Invocation;
+import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.common.Data;
+import de.huberlin.wbi.hiway.common.TaskInstance;
+
+/**
+ * A cache of the outputs of tasks executed in previous runs, stored in HDFS next to the application directories. Tasks are identified by a hash of their
+ * command, their language label, and the checksums of their input files. If a ready task is found in the cache, it is not executed; instead, it is completed
+ * with the report and output files of the cached invocation. Tasks completed by a previous attempt of this ApplicationMaster are treated the same way.
+ */
+public class TaskCache {
+
+	// the number of threads on which the checksums of input files are determined
+	private static final int CHECKSUM_THREADS = 8;
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static byte[] digest(String s) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Determines the key by which a task completed by a previous attempt of this ApplicationMaster is recognized. Since the ids of task instances are not
+	 * guaranteed to be stable across attempts (e.g., for Cuneiform workflows), tasks are identified by their signature and a hash of their command and the
+	 * paths of their input files (since tasks with identical commands might process different inputs).
+	 * 
+	 * @param task
+	 *            The task.
+	 * @return The key of the task.
+	 */
+	public static String getRecoveryKey(TaskInstance task) {
+		StringBuilder sb = new StringBuilder(String.valueOf(task.getCommand()));
+		for (Data input : new TreeSet<>(task.getInputData())) {
+			sb.append('\0').append(input.getHdfsPath());
+		}
+		return task.getTaskId() + ":" + toHex(digest(sb.toString()));
+	}
+
+	// the checksum of a file (which is cached alongside its block locations) or, for file systems without checksums (e.g., the local file system), an
+	// approximation by file length and modification time
+	private static byte[] getFingerprint(Path hdfsPath) throws IOException {
+		FileChecksum checksum = Data.getFileChecksum(hdfsPath);
+		if (checksum != null) {
+			return checksum.getBytes();
+		}
+		FileStatus status = Data.getFileLocations(hdfsPath).getFileStatus();
+		return (status.getLen() + ":" + status.getModificationTime()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+		}
+		return sb.toString();
+	}
+
+	private final HiWay am;
+	private final String appId;
+	private final Path cacheDirectory;
+	private final ExecutorService checksumExecutor;
+	private final FileSystem hdfs;
+	// the keys of the tasks looked up in the cache, such that their input checksums do not have to be determined twice
+	private final Map<TaskInstance, String> keys = new HashMap<>();
+	// the tasks found in the cache that have yet to be completed, along with the container id (relative to the application directory) of their invocation
+	private final Map<TaskInstance, String> memoizedTasks = new LinkedHashMap<>();
+	// whether tasks are looked up in the cache (otherwise, only tasks completed by a previous attempt are recognized)
+	private final boolean memoize;
+	// the container ids of the invocations of tasks completed by a previous attempt, indexed by the recovery key of the tasks
+	private final Map<String, String> recoveredTasks = new HashMap<>();
+
+	public TaskCache(HiWay am, FileSystem hdfs, Path cacheDirectory, String appId, boolean memoize) {
+		this.am = am;
+		this.hdfs = hdfs;
+		this.cacheDirectory = cacheDirectory;
+		this.appId = appId;
+		this.memoize = memoize;
+		checksumExecutor = Executors.newFixedThreadPool(CHECKSUM_THREADS, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "TaskCacheChecksums");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Registers a task completed by a previous attempt of this ApplicationMaster, such that it is completed right away instead of being executed again.
+	 * 
+	 * @param recoveryKey
+	 *            The recovery key of the task.
+	 * @param containerId
+	 *            The container id of the task's invocation.
+	 */
+	public synchronized void addRecoveredTask(String recoveryKey, String containerId) {
+		recoveredTasks.put(recoveryKey, containerId);
+	}
+
+	public void close() {
+		checksumExecutor.shutdownNow();
+	}
+
+	/**
+	 * Completes the tasks found in the cache. Their children are queued (or completed in turn, if they are found in the cache as well).
+	 */
+	public synchronized void completeMemoizedTasks() {
+		while (!memoizedTasks.isEmpty()) {
+			TaskInstance task = memoizedTasks.keySet().iterator().next();
+			String containerId = memoizedTasks.remove(task);
+
+			System.out.println("Completing task " + task + " with the outputs of cached invocation " + containerId);
+			task.setCompleted();
+			am.evaluateReport(task, containerId);
+			// the report of the cached invocation is replayed, such that the provenance of the task (and its runtime) is not lost
+			for (JsonReportEntry entry : task.getReport()) {
+				am.writeEntryToLog(entry);
+			}
+			am.writeTaskCompletedEvent(task, containerId, true);
+			am.taskSuccess(task, containerId);
+		}
+	}
+
+	private String getKey(TaskInstance task) throws IOException {
+		List<Data> inputs = new ArrayList<>(new TreeSet<>(task.getInputData()));
+		// the fingerprints of the input files are determined concurrently, such that looking up a task does not take one round-trip to HDFS per input file
+		List<Future<byte[]>> fingerprints = new ArrayList<>();
+		for (final Data input : inputs) {
+			fingerprints.add(checksumExecutor.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws IOException {
+					return getFingerprint(input.getHdfsPath());
+				}
+			}));
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(task.getCommand().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(String.valueOf(task.getLanguageLabel()).getBytes(StandardCharsets.UTF_8));
+			for (int i = 0; i < inputs.size(); i++) {
+				digest.update((byte) 0);
+				digest.update(inputs.get(i).getLocalPath().toString().getBytes(StandardCharsets.UTF_8));
+				digest.update(fingerprints.get(i).get());
+			}
+			return toHex(digest.digest());
+		} catch (NoSuchAlgorithmException | InterruptedException e) {
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Looks up a ready task in the cache. If it is found, it is to be completed by a subsequent call of {@link #completeMemoizedTasks()}.
+	 * 
+	 * @param task
+	 *            The task that is ready to execute.
+	 * @return True if the task has been found in the cache and is not to be executed.
+	 */
+	public synchronized boolean lookup(TaskInstance task) {
+		if (task.getCommand() == null) {
+			return false;
+		}
+		String recoveredContainerId = recoveredTasks.remove(getRecoveryKey(task));
+		if (recoveredContainerId != null) {
+			memoizedTasks.put(task, recoveredContainerId);
+			return true;
+		}
+		if (!memoize) {
+			return false;
+		}
+		try {
+			String key = keys.get(task);
+			if (key == null) {
+				key = getKey(task);
+				keys.put(task, key);
+			}
+			Path entry = new Path(cacheDirectory, key);
+			if (!hdfs.exists(entry)) {
+				return false;
+			}
+			String cachedContainerId;
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(hdfs.open(entry), StandardCharsets.UTF_8))) {
+				cachedContainerId = reader.readLine();
+			}
+			if (cachedContainerId == null) {
+				return false;
+			}
+
+			// the outputs of the cached invocation might have been deleted in the meantime
+			String containerId = new Path("..", cachedContainerId).toString();
+			if (!hdfs.exists(new Data(Invocation.REPORT_FILENAME, containerId).getHdfsPath())) {
+				return false;
+			}
+			for (Data output : task.getOutputData()) {
+				if (!hdfs.exists(new Data(output.getLocalPath(), containerId).getHdfsPath())) {
+					return false;
+				}
+			}
+
+			keys.remove(task);
+			memoizedTasks.put(task, containerId);
+			return true;
+		} catch (IOException e) {
+			System.err.println("Error when attempting to look up task " + task + " in the cache. Executing task.");
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Stores the outputs of a successfully executed task in the cache (if memoization is enabled).
+	 * 
+	 * @param task
+	 *            The task that has been executed.
+	 * @param containerId
+	 *            The id of the container (relative to the application directory) in which the task's outputs have been stored.
+	 */
+	public synchronized void record(TaskInstance task, String containerId) {
+		String key = keys.remove(task);
+		if (key == null) {
+			return;
+		}
+		Path entry = new Path(cacheDirectory, key);
+		Path tmpEntry = new Path(cacheDirectory, key + "." + appId + ".tmp");
+		try {
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(hdfs.create(tmpEntry, true), StandardCharsets.UTF_8))) {
+				writer.write(appId + "/" + containerId);
+				writer.newLine();
+			}
+			hdfs.delete(entry, false);
+			hdfs.rename(tmpEntry, entry);
+		} catch (IOException e) {
+			System.err.println("Error when attempting to store task " + task + " in the cache.");
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.yarn.api.records.LocalResource;
+import org.apache.hadoop.yarn.util.ConverterUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.common.Worker;
+
+/**
+ * A server on which Workers push the reports of their tasks to the Application Master and on which Workers running on reused containers request further tasks
+ * (or short tasks fused with their previous task). Each request is a single line holding a JSON object and is answered by a single line holding a JSON object.
+ * Since the server is reachable from anywhere in the cluster, each request has to carry the secret the AM generated for the container it claims to originate
+ * from and passed to the container in its environment. Requests with a missing or wrong secret are rejected.
+ */
+public class WorkerServer extends Thread {
+
+	/**
+	 * The report of a task as pushed by its Worker, with the lines of stdout and stderr already escaped.
+	 */
+	public static class PushedReport {
+		public final List<JsonReportEntry> entries = new ArrayList<>();
+		public String stderr;
+		public String stdout;
+	}
+
+	private final RMCallbackHandler allocListener;
+	private final HiWay am;
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+	// the thread pool on which pushed reports are parsed, such that neither the handlers nor the callback threads of the AM are occupied with parsing
+	private final ExecutorService parsers;
+	// the reports pushed by Workers that have not yet been evaluated, by the (HDFS namespace) id of the container they were produced on
+	private final ConcurrentMap<String, Future<PushedReport>> reports = new ConcurrentHashMap<>();
+	private final SecureRandom random = new SecureRandom();
+	// the secrets of the containers by (YARN) container id and by the (HDFS namespace) ids of the tasks handed over to reused containers
+	private final ConcurrentMap<String, String> secrets = new ConcurrentHashMap<>();
+	private final ServerSocket serverSocket;
+
+	public WorkerServer(HiWay am, RMCallbackHandler allocListener, int reportThreads) throws IOException {
+		super("WorkerServer");
+		this.am = am;
+		this.allocListener = allocListener;
+		parsers = Executors.newFixedThreadPool(Math.max(1, reportThreads));
+		serverSocket = new ServerSocket(0);
+		setDaemon(true);
+	}
+
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		handlers.shutdownNow();
+		parsers.shutdownNow();
+		reports.clear();
+		secrets.clear();
+	}
+
+	/**
+	 * Discards the report pushed for the task executed in the given container (e.g., since the task has been completed by a speculative copy).
+	 * 
+	 * @param containerId
+	 *            The (HDFS namespace) id of the container.
+	 */
+	public void discardReport(String containerId) {
+		reports.remove(containerId);
+	}
+
+	/**
+	 * Revokes the secret of a completed container, such that no further requests are accepted on its behalf.
+	 * 
+	 * @param yarnContainerId
+	 *            The (YARN) id of the container.
+	 */
+	public void forgetContainer(String yarnContainerId) {
+		String secret = secrets.remove(yarnContainerId);
+		if (secret != null) {
+			secrets.values().removeAll(Collections.singleton(secret));
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	private void handle(Socket socket) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+			JSONObject request = new JSONObject(reader.readLine());
+			if (!isAuthentic(request)) {
+				System.err.println("Rejected request of Worker claiming to run in container " + request.optString(Worker.REUSE_KEY_CONTAINER)
+						+ " from " + socket.getRemoteSocketAddress() + ", since it did not provide the secret of the container.");
+				return;
+			}
+			if (Worker.REPORT_TYPE_REPORT.equals(request.optString(Worker.REUSE_KEY_TYPE))) {
+				handleReport(request);
+				writer.write(new JSONObject().put(Worker.REUSE_KEY_TYPE, Worker.REPORT_TYPE_ACK).toString());
+				writer.newLine();
+				writer.flush();
+				return;
+			}
+			String containerId = request.getString(Worker.REUSE_KEY_CONTAINER);
+			HiWayInvocation invocation = allocListener.onWorkerRequest(containerId, request.getBoolean(Worker.REUSE_KEY_FINISHED));
+
+			JSONObject response = new JSONObject();
+			if (invocation != null) {
+				// the report of the handed over task is pushed under its own (HDFS namespace) id, which is thus bound to the secret of the container
+				secrets.put(invocation.containerId, secrets.get(containerId));
+				response.put(Worker.REUSE_KEY_TYPE, Worker.REUSE_TYPE_TASK);
+				response.put(Worker.REUSE_KEY_CONTAINER, invocation.containerId);
+				response.put(Worker.REUSE_KEY_ARGS, new JSONArray(LaunchContainerRunnable.getWorkerArguments(am, invocation.task, invocation.containerId)));
+				// the resources of the task are not localized by the NodeManager, so the Worker has to retrieve them from their location in HDFS
+				JSONObject resources = new JSONObject();
+				for (Map.Entry<String, LocalResource> resource : invocation.task.buildScriptsAndSetResources(invocation.containerId).entrySet()) {
+					resources.put(resource.getKey(), ConverterUtils.getPathFromYarnURL(resource.getValue().getResource()).toString());
+				}
+				response.put(Worker.REUSE_KEY_RESOURCES, resources);
+			} else if (am.isDone() || !allocListener.isReusable(containerId)) {
+				response.put(Worker.REUSE_KEY_TYPE, Worker.REUSE_TYPE_EXIT);
+			} else {
+				response.put(Worker.REUSE_KEY_TYPE, Worker.REUSE_TYPE_IDLE);
+			}
+			writer.write(response.toString());
+			writer.newLine();
+			writer.flush();
+		} catch (IOException | JSONException | URISyntaxException e) {
+			System.err.println("Error when attempting to handle request of Worker.");
+			e.printStackTrace();
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void handleReport(final JSONObject request) throws JSONException {
+		String containerId = request.getString(Worker.REUSE_KEY_CONTAINER);
+		// the report is registered before the Worker is acknowledged (and exits), so it is available once the AM learns of the completed container
+		reports.put(containerId, parsers.submit(new Callable<PushedReport>() {
+			@Override
+			public PushedReport call() throws IOException, JSONException {
+				PushedReport report = new PushedReport();
+				JSONArray lines = request.getJSONArray(Worker.REPORT_KEY_LINES);
+				for (int i = 0; i < lines.length(); i++) {
+					String line = lines.getString(i).trim();
+					if (!line.isEmpty()) {
+						report.entries.add(new JsonReportEntry(line));
+					}
+				}
+				try (BufferedReader stdout = new BufferedReader(new StringReader(request.getString(Worker.REPORT_KEY_STDOUT)));
+						BufferedReader stderr = new BufferedReader(new StringReader(request.getString(Worker.REPORT_KEY_STDERR)))) {
+					report.stdout = HiWay.escapeLines(stdout);
+					report.stderr = HiWay.escapeLines(stderr);
+				}
+				return report;
+			}
+		}));
+	}
+
+	private boolean isAuthentic(JSONObject request) {
+		String secret = secrets.get(request.optString(Worker.REUSE_KEY_CONTAINER));
+		String claimed = request.optString(Worker.REUSE_KEY_SECRET, null);
+		// compare in constant time, so the secret cannot be guessed from the response times
+		return secret != null && claimed != null
+				&& MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), claimed.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Generates the secret with which a Worker running in the given container authenticates its requests.
+	 * 
+	 * @param yarnContainerId
+	 *            The (YARN) id of the container.
+	 * @return The secret, which is to be passed to the container in its environment.
+	 */
+	public String newSecret(String yarnContainerId) {
+		byte[] bytes = new byte[32];
+		random.nextBytes(bytes);
+		StringBuilder secret = new StringBuilder();
+		for (byte b : bytes) {
+			secret.append(String.format("%02x", b));
+		}
+		secrets.put(yarnContainerId, secret.toString());
+		return secret.toString();
+	}
+
+	@Override
+	public void run() {
+		while (!serverSocket.isClosed()) {
+			try {
+				final Socket socket = serverSocket.accept();
+				handlers.execute(new Runnable() {
+					@Override
+					public void run() {
+						handle(socket);
+					}
+				});
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves (and removes) the report pushed for the task executed in the given container, waiting for it to be parsed if necessary.
+	 * 
+	 * @param containerId
+	 *            The (HDFS namespace) id of the container.
+	 * @return The report or null if no report has been pushed (or it could not be parsed), in which case the report has to be staged in from HDFS.
+	 */
+	public PushedReport takeReport(String containerId) {
+		Future<PushedReport> report = reports.remove(containerId);
+		if (report == null) {
+			return null;
+		}
+		try {
+			return report.get();
+		} catch (InterruptedException | ExecutionException e) {
+			System.err.println("Error when attempting to parse report pushed from container " + containerId + ". Falling back to HDFS.");
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+}
@@ -42,7 +42,6 @@ import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.json.JSONException;
 
 import de.huberlin.wbi.cuneiform.core.cre.BaseCreActor;
@@ -126,7 +125,7 @@ public class CuneiformApplicationMaster extends HiWay {
 	}
 
 	@Override
-	public void taskFailure(TaskInstance task, ContainerId containerId) {
+	public void taskFailure(TaskInstance task, String containerId) {
 		super.taskFailure(task, containerId);
 
 		String line;
@@ -155,7 +154,7 @@ public class CuneiformApplicationMaster extends HiWay {
 	}
 
 	@Override
-	public void taskSuccess(TaskInstance task, ContainerId containerId) {
+	public void taskSuccess(TaskInstance task, String containerId) {
 		try {
 			Invocation invocation = ((CuneiformTaskInstance) task).getInvocation();
 			invocation.evalReport(task.getReport());
@@ -169,7 +168,7 @@ public class CuneiformApplicationMaster extends HiWay {
 					getFiles().put(outputName, output);
 				}
 				Data output = getFiles().get(outputName);
-				output.setContainerId(containerId.toString());
+				output.setContainerId(containerId);
 
 				task.addOutputData(output);
 			}
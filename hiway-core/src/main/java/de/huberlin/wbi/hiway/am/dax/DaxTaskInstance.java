@@ -73,6 +73,13 @@ public class DaxTaskInstance extends TaskInstance {
 		return super.getCommand();
 	}
 
+	@Override
+	public long getExpectedFileSize(Data data) {
+		Long fileSize = fileSizes.get(data);
+		// files without a size attribute are registered with a size of zero
+		return (fileSize != null && fileSize > 0) ? fileSize : -1;
+	}
+
 	@Override
 	public Set<Data> getInputData() {
 		if (runtime > 0) {
@@ -32,8 +32,6 @@
  ******************************************************************************/
 package de.huberlin.wbi.hiway.am.galaxy;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
@@ -43,7 +41,6 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.yarn.api.records.Container;
 import org.apache.hadoop.yarn.api.records.LocalResource;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -236,41 +233,16 @@ public class GalaxyTaskInstance extends TaskInstance {
 	}
 
 	@Override
-	public Map<String, LocalResource> buildScriptsAndSetResources(Container container) {
-		Map<String, LocalResource> localResources = super.buildScriptsAndSetResources(container);
-		String containerId = container.getId().toString();
+	public Map<String, LocalResource> buildScriptsAndSetResources(String containerId) {
+		Map<String, LocalResource> localResources = super.buildScriptsAndSetResources(containerId);
 
 		// The task isntance's bash script is built by appending the pre script, the template compiled by Cheetah using the parameters set in the params Python
 		// script, and the post script
-		Data preSriptData = new Data("pre.sh", containerId);
-		Data paramScriptData = new Data("params.py", containerId);
-		Data templateData = new Data("template.tmpl", containerId);
-		Data postSriptData = new Data("post.sh", containerId);
-
-		try (BufferedWriter preScriptWriter = new BufferedWriter(new FileWriter(preSriptData.getLocalPath().toString()));
-				BufferedWriter paramScriptWriter = new BufferedWriter(new FileWriter(paramScriptData.getLocalPath().toString()));
-				BufferedWriter templateWriter = new BufferedWriter(new FileWriter(templateData.getLocalPath().toString()));
-				BufferedWriter postScriptWriter = new BufferedWriter(new FileWriter(postSriptData.getLocalPath().toString()))) {
-			preScriptWriter.write(galaxyTool.getEnv());
-			preScriptWriter.write("GALAXY_SLOTS=$(nproc)\n");
-			paramScriptWriter.write(paramScript.toString());
-			templateWriter.write(galaxyTool.getTemplate());
-			postScriptWriter.write(getPostScript());
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(-1);
-		}
-
 		try {
-			preSriptData.stageOut();
-			paramScriptData.stageOut();
-			templateData.stageOut();
-			postSriptData.stageOut();
-
-			preSriptData.addToLocalResourceMap(localResources);
-			paramScriptData.addToLocalResourceMap(localResources);
-			templateData.addToLocalResourceMap(localResources);
-			postSriptData.addToLocalResourceMap(localResources);
+			Data.addContentToLocalResourceMap("pre.sh", galaxyTool.getEnv() + "GALAXY_SLOTS=$(nproc)\n", localResources);
+			Data.addContentToLocalResourceMap("params.py", paramScript.toString(), localResources);
+			Data.addContentToLocalResourceMap("template.tmpl", galaxyTool.getTemplate(), localResources);
+			Data.addContentToLocalResourceMap("post.sh", getPostScript(), localResources);
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(-1);
@@ -34,9 +34,21 @@ package de.huberlin.wbi.hiway.common;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-
-import org.apache.hadoop.fs.BlockLocation;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileChecksum;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
@@ -56,13 +68,153 @@ import org.apache.hadoop.yarn.util.Records;
  * @author Marc Bux
  */
 public class Data implements Comparable<Data> {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	// the local resources of files stored in HDFS by the hash of their content, such that files with identical content (e.g., the scripts of tasks with the
+	// same command) are written to and looked up in HDFS only once
+	private static final ConcurrentMap<String, FutureTask<LocalResource>> contentResources = new ConcurrentHashMap<>();
+	// the maximum number of files whose status and block locations are cached
+	private static final int FILE_LOCATIONS_CACHE_SIZE = 10000;
+	// the status and block locations of files in HDFS by their path, such that placement-aware scheduling does not have to query the NameNode each time it
+	// assesses the locality of a file; entries are invalidated when the task producing the file completes or fails, and the least recently used entries are
+	// evicted once the cache is full
+	@SuppressWarnings("serial")
+	private static final Map<Path, FileLocations> fileLocations = Collections.synchronizedMap(new LinkedHashMap<Path, FileLocations>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, FileLocations> eldest) {
+			return size() > FILE_LOCATIONS_CACHE_SIZE;
+		}
+	});
 	private static FileSystem hdfs;
 	private static Path hdfsApplicationDirectory;
 
 	private static Path hdfsBaseDirectory;
+	// the HDFS directories known to exist, such that staging out a file does not query the NameNode for each of its parent directories
+	private static final Set<Path> hdfsDirectories = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
 
 	private static FileSystem localFs = new LocalFileSystem();
 
+	/**
+	 * Registers a file with the given content as a local resource under the given name. The file is stored in the application directory in HDFS under the
+	 * hash of its content, such that it does not have to be written to a local file and staged out for each container.
+	 * 
+	 * @param name
+	 *            The name under which the file is to be localized in the container.
+	 * @param content
+	 *            The content of the file.
+	 * @param localResources
+	 *            The local resources of the container.
+	 */
+	public static void addContentToLocalResourceMap(String name, String content, Map<String, LocalResource> localResources) throws IOException {
+		final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		String hash;
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+				sb.append(HEX_DIGITS[(b >> 4) & 0xf]).append(HEX_DIGITS[b & 0xf]);
+			}
+			hash = sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		final Path dest = new Path(new Path(hdfsApplicationDirectory, HiWayConfiguration.HIWAY_AM_SCRIPT_DIRECTORY), hash);
+		FutureTask<LocalResource> resource = new FutureTask<>(new Callable<LocalResource>() {
+			@Override
+			public LocalResource call() throws IOException {
+				mkHdfsDir(dest.getParent());
+				try (FSDataOutputStream out = hdfs.create(dest, true)) {
+					out.write(bytes);
+				}
+				return newLocalResource(dest);
+			}
+		});
+		// the first thread to register the content writes it to HDFS, whereas all other threads wait for it to finish
+		FutureTask<LocalResource> registeredResource = contentResources.putIfAbsent(hash, resource);
+		if (registeredResource == null) {
+			resource.run();
+		} else {
+			resource = registeredResource;
+		}
+
+		try {
+			localResources.put(name, resource.get());
+		} catch (InterruptedException | ExecutionException e) {
+			contentResources.remove(hash, resource);
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Retrieves the checksum of a file in HDFS, which is cached alongside the status and block locations of the file.
+	 * 
+	 * @param hdfsPath
+	 *            The path of the file in HDFS.
+	 * @return The checksum of the file or null if the file system does not provide checksums.
+	 */
+	public static FileChecksum getFileChecksum(Path hdfsPath) throws IOException {
+		return getFileLocations(hdfsPath).getChecksum(hdfs);
+	}
+
+	/**
+	 * Retrieves the status and block locations of a file in HDFS, querying the NameNode only if the file has not been looked up before (or has been
+	 * invalidated since).
+	 * 
+	 * @param hdfsPath
+	 *            The path of the file in HDFS.
+	 * @return The status and block locations of the file.
+	 */
+	public static FileLocations getFileLocations(Path hdfsPath) throws IOException {
+		FileLocations locations = fileLocations.get(hdfsPath);
+		if (locations == null) {
+			// the NameNode is queried outside of the lock, such that lookups of other files are not blocked
+			FileStatus fileStatus = hdfs.getFileStatus(hdfsPath);
+			locations = new FileLocations(fileStatus, hdfs.getFileBlockLocations(fileStatus, 0, fileStatus.getLen()));
+			synchronized (fileLocations) {
+				FileLocations cachedLocations = fileLocations.get(hdfsPath);
+				if (cachedLocations != null) {
+					return cachedLocations;
+				}
+				fileLocations.put(hdfsPath, locations);
+			}
+		}
+		return locations;
+	}
+
+	/**
+	 * Removes the status and block locations of a file in HDFS from the cache, e.g., since the file has been re-written.
+	 * 
+	 * @param hdfsPath
+	 *            The path of the file in HDFS.
+	 */
+	public static void invalidateFileLocations(Path hdfsPath) {
+		fileLocations.remove(hdfsPath);
+	}
+
+	private static void mkHdfsDir(Path dir) throws IOException {
+		if (dir == null || hdfsDirectories.contains(dir))
+			return;
+		if (!hdfs.isDirectory(dir)) {
+			mkHdfsDir(dir.getParent());
+			System.out.println("Creating directoy: " + dir);
+			hdfs.mkdirs(dir);
+			hdfs.setPermission(dir, new FsPermission(FsAction.ALL, FsAction.ALL, FsAction.ALL));
+		}
+		hdfsDirectories.add(dir);
+	}
+
+	private static LocalResource newLocalResource(Path dest) throws IOException {
+		LocalResource rsrc = Records.newRecord(LocalResource.class);
+		rsrc.setType(LocalResourceType.FILE);
+		rsrc.setVisibility(LocalResourceVisibility.APPLICATION);
+		rsrc.setResource(ConverterUtils.getYarnUrlFromPath(dest));
+
+		FileStatus status = hdfs.getFileStatus(dest);
+		rsrc.setTimestamp(status.getModificationTime());
+		rsrc.setSize(status.getLen());
+		return rsrc;
+	}
+
 	public static void setHdfs(FileSystem hdfs) {
 		Data.hdfs = hdfs;
 	}
@@ -109,18 +261,7 @@ public class Data implements Comparable<Data> {
 	}
 
 	public void addToLocalResourceMap(Map<String, LocalResource> localResources) throws IOException {
-		Path dest = getHdfsPath();
-
-		LocalResource rsrc = Records.newRecord(LocalResource.class);
-		rsrc.setType(LocalResourceType.FILE);
-		rsrc.setVisibility(LocalResourceVisibility.APPLICATION);
-		rsrc.setResource(ConverterUtils.getYarnUrlFromPath(dest));
-
-		FileStatus status = hdfs.getFileStatus(dest);
-		rsrc.setTimestamp(status.getModificationTime());
-		rsrc.setSize(status.getLen());
-
-		localResources.put(getLocalPath().toString(), rsrc);
+		localResources.put(getLocalPath().toString(), newLocalResource(getHdfsPath()));
 	}
 
 	@Override
@@ -129,30 +270,11 @@ public class Data implements Comparable<Data> {
 	}
 
 	public long countAvailableLocalData(Container container) throws IOException {
-		BlockLocation[] blockLocations = null;
-
-		Path hdfsLocation = getHdfsPath();
-		while (blockLocations == null) {
-			FileStatus fileStatus = hdfs.getFileStatus(hdfsLocation);
-			blockLocations = hdfs.getFileBlockLocations(hdfsLocation, 0, fileStatus.getLen());
-		}
-
-		long sum = 0;
-		for (BlockLocation blockLocation : blockLocations) {
-			for (String host : blockLocation.getHosts()) {
-				if (container.getNodeId().getHost().equals(host)) {
-					sum += blockLocation.getLength();
-					break;
-				}
-			}
-		}
-		return sum;
+		return getFileLocations(getHdfsPath()).getBytesOnHost(container.getNodeId().getHost());
 	}
 
 	public long countAvailableTotalData() throws IOException {
-		Path hdfsLocation = getHdfsPath();
-		FileStatus fileStatus = hdfs.getFileStatus(hdfsLocation);
-		return fileStatus.getLen();
+		return getFileLocations(getHdfsPath()).getLength();
 	}
 
 	@Override
@@ -200,15 +322,6 @@ public class Data implements Comparable<Data> {
 		return output;
 	}
 
-	private void mkHdfsDir(Path dir) throws IOException {
-		if (dir == null || hdfs.isDirectory(dir))
-			return;
-		mkHdfsDir(dir.getParent());
-		System.out.println("Creating directoy: " + dir);
-		hdfs.mkdirs(dir);
-		hdfs.setPermission(dir, new FsPermission(FsAction.ALL, FsAction.ALL, FsAction.ALL));
-	}
-
 	public void setContainerId(String containerId) {
 		this.containerId = containerId;
 	}
@@ -244,6 +357,7 @@ public class Data implements Comparable<Data> {
 			mkHdfsDir(hdfsDirectory);
 		}
 		System.out.print("Attempting to stage out: " + localPath + " -> " + hdfsPath);
+		invalidateFileLocations(hdfsPath);
 		try {
 			hdfs.copyFromLocalFile(false, true, localPath, hdfsPath);
 			System.out.println(" (succeeded)");
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.common;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+
+/**
+ * The status and block locations of a file in HDFS, along with the number of bytes of the file stored on each host. Since files in HDFS are not modified once
+ * written, these can be determined once and looked up whenever the locality of a file is to be assessed.
+ */
+public class FileLocations {
+
+	private final BlockLocation[] blockLocations;
+	private final Map<String, Long> bytesPerHost;
+	// the checksum of the file, which is determined only once it is needed (null if the file system does not provide checksums)
+	private FileChecksum checksum;
+	private boolean checksumDetermined = false;
+	private final FileStatus fileStatus;
+
+	public FileLocations(FileStatus fileStatus, BlockLocation[] blockLocations) throws IOException {
+		this.fileStatus = fileStatus;
+		this.blockLocations = blockLocations;
+		Map<String, Long> bytes = new HashMap<>();
+		for (BlockLocation blockLocation : blockLocations) {
+			// a block is counted only once per host, even if it is stored on several of the host's disks
+			Set<String> hosts = new HashSet<>();
+			Collections.addAll(hosts, blockLocation.getHosts());
+			for (String host : hosts) {
+				Long sum = bytes.get(host);
+				bytes.put(host, (sum == null ? 0L : sum) + blockLocation.getLength());
+			}
+		}
+		bytesPerHost = Collections.unmodifiableMap(bytes);
+	}
+
+	public BlockLocation[] getBlockLocations() {
+		return blockLocations;
+	}
+
+	/**
+	 * @param host
+	 *            The name of the host.
+	 * @return The number of bytes of the file stored on the given host.
+	 */
+	public long getBytesOnHost(String host) {
+		Long bytes = bytesPerHost.get(host);
+		return bytes == null ? 0L : bytes;
+	}
+
+	public Map<String, Long> getBytesPerHost() {
+		return bytesPerHost;
+	}
+
+	/**
+	 * Determines the checksum of the file, querying the file system only when the checksum is needed for the first time.
+	 * 
+	 * @param fs
+	 *            The file system storing the file.
+	 * @return The checksum of the file or null if the file system does not provide checksums.
+	 */
+	public synchronized FileChecksum getChecksum(FileSystem fs) throws IOException {
+		if (!checksumDetermined) {
+			checksum = fs.getFileChecksum(fileStatus.getPath());
+			checksumDetermined = true;
+		}
+		return checksum;
+	}
+
+	public FileStatus getFileStatus() {
+		return fileStatus;
+	}
+
+	public long getLength() {
+		return fileStatus.getLen();
+	}
+
+}
@@ -41,8 +41,12 @@ public class HiWayConfiguration extends YarnConfiguration {
 		local, NoSQL, SQL
 	}
 
+	public static enum HIWAY_SCHEDULER_ESTIMATOR_OPTS {
+		ewma, mean, quantile, regression
+	}
+
 	public static enum HIWAY_SCHEDULER_OPTS {
-		c3po, cloning, conservative, greedyQueue, heft, outlooking, placementAware, staticRoundRobin
+		c3po, cloning, conservative, criticalPathQueue, greedyQueue, heft, localityAwareQueue, outlooking, placementAware, staticRoundRobin
 	}
 
 	public static enum HIWAY_WORKFLOW_LANGUAGE_OPTS {
@@ -55,12 +59,32 @@ public class HiWayConfiguration extends YarnConfiguration {
 	public static final String HIWAY_AM_DIRECTORY_BASE_DEFAULT = "/";
 	public static final String HIWAY_AM_DIRECTORY_CACHE = "hiway.am.directory.cache";
 	public static final String HIWAY_AM_DIRECTORY_CACHE_DEFAULT = "hiway";
+	public static final String HIWAY_AM_ESTIMATES_REFRESH_INTERVAL = "hiway.am.estimates.refresh.interval";
+	public static final int HIWAY_AM_ESTIMATES_REFRESH_INTERVAL_DEFAULT = 0;
+	public static final String HIWAY_AM_LAUNCH_THREADS = "hiway.am.launch.threads";
+	public static final int HIWAY_AM_LAUNCH_THREADS_DEFAULT = 16;
+	public static final String HIWAY_AM_MEMOIZATION = "hiway.am.memoization";
+	public static final boolean HIWAY_AM_MEMOIZATION_DEFAULT = false;
+	public static final String HIWAY_AM_MEMOIZATION_DIRECTORY = "memo";
 	public static final String HIWAY_AM_MEMORY = "hiway.am.memory";
 	public static final int HIWAY_AM_MEMORY_DEFAULT = 1024;
 	public static final String HIWAY_AM_PRIORITY = "hiway.am.priority";
 	public static final int HIWAY_AM_PRIORITY_DEFAULT = 0;
+	public static final String HIWAY_AM_PROVENANCE_BATCH_MS = "hiway.am.provenance.batch.ms";
+	public static final int HIWAY_AM_PROVENANCE_BATCH_MS_DEFAULT = 100;
+	public static final String HIWAY_AM_PROVENANCE_BATCH_SIZE = "hiway.am.provenance.batch.size";
+	public static final int HIWAY_AM_PROVENANCE_BATCH_SIZE_DEFAULT = 1000;
+	public static final String HIWAY_AM_PROVENANCE_QUEUE_CAPACITY = "hiway.am.provenance.queue.capacity";
+	public static final int HIWAY_AM_PROVENANCE_QUEUE_CAPACITY_DEFAULT = 100000;
 	public static final String HIWAY_AM_QUEUE = "hiway.am.queue";
 	public static final String HIWAY_AM_QUEUE_DEFAULT = "default";
+	public static final String HIWAY_AM_RECOVERY = "hiway.am.recovery";
+	public static final boolean HIWAY_AM_RECOVERY_DEFAULT = false;
+	public static final String HIWAY_AM_REPORT_THREADS = "hiway.am.report.threads";
+	public static final int HIWAY_AM_REPORT_THREADS_DEFAULT = 2;
+	public static final String HIWAY_AM_SCRIPT_DIRECTORY = "scripts";
+	public static final String HIWAY_AM_REQUEST_COALESCE_MS = "hiway.am.request.coalesce.ms";
+	public static final int HIWAY_AM_REQUEST_COALESCE_MS_DEFAULT = 20;
 	public static final String HIWAY_AM_TASK_RETRIES = "hiway.am.task.retries";
 	public static final int HIWAY_AM_TASK_RETRIES_DEFAULT = 1;
 	public static final String HIWAY_AM_TIMEOUT = "hiway.am.timeout";
@@ -81,16 +105,62 @@ public class HiWayConfiguration extends YarnConfiguration {
 
 	public static final String HIWAY_SCHEDULER = "hiway.scheduler";
 	public static final HIWAY_SCHEDULER_OPTS HIWAY_SCHEDULER_DEFAULT = HIWAY_SCHEDULER_OPTS.c3po;
+	public static final String HIWAY_SCHEDULER_DEBUG = "hiway.scheduler.debug";
+	public static final boolean HIWAY_SCHEDULER_DEBUG_DEFAULT = false;
+	public static final String HIWAY_SCHEDULER_DELAY_MAX_DELAY = "hiway.scheduler.delay.max.delay";
+	public static final int HIWAY_SCHEDULER_DELAY_MAX_DELAY_DEFAULT = 5000;
+	public static final String HIWAY_SCHEDULER_DELAY_MAX_SKIPS = "hiway.scheduler.delay.max.skips";
+	public static final int HIWAY_SCHEDULER_DELAY_MAX_SKIPS_DEFAULT = 0;
+	public static final String HIWAY_SCHEDULER_ESTIMATOR = "hiway.scheduler.estimator";
+	public static final HIWAY_SCHEDULER_ESTIMATOR_OPTS HIWAY_SCHEDULER_ESTIMATOR_DEFAULT = HIWAY_SCHEDULER_ESTIMATOR_OPTS.mean;
+	public static final String HIWAY_SCHEDULER_ESTIMATOR_EWMA_ALPHA = "hiway.scheduler.estimator.ewma.alpha";
+	public static final float HIWAY_SCHEDULER_ESTIMATOR_EWMA_ALPHA_DEFAULT = 0.3f;
+	public static final String HIWAY_SCHEDULER_ESTIMATOR_QUANTILE = "hiway.scheduler.estimator.quantile";
+	public static final float HIWAY_SCHEDULER_ESTIMATOR_QUANTILE_DEFAULT = 0.5f;
+	public static final String HIWAY_SCHEDULER_LOCALITY_HINTS = "hiway.scheduler.locality.hints";
+	public static final int HIWAY_SCHEDULER_LOCALITY_HINTS_DEFAULT = 0;
+	public static final String HIWAY_SCHEDULER_REPLAN = "hiway.scheduler.replan";
+	public static final boolean HIWAY_SCHEDULER_REPLAN_DEFAULT = false;
+	public static final String HIWAY_SCHEDULER_REPLAN_DEVIATION = "hiway.scheduler.replan.deviation";
+	public static final float HIWAY_SCHEDULER_REPLAN_DEVIATION_DEFAULT = 0.5f;
 
 	public static final String HIWAY_SITE_XML = "hiway-site.xml";
 
 	public static final String HIWAY_WORKER_CLASS = "de.huberlin.wbi.hiway.common.Worker";
+	public static final String HIWAY_WORKER_FUSION_MAX = "hiway.worker.fusion.max";
+	public static final int HIWAY_WORKER_FUSION_MAX_DEFAULT = 10;
+	public static final String HIWAY_WORKER_FUSION_THRESHOLD = "hiway.worker.fusion.threshold";
+	public static final int HIWAY_WORKER_FUSION_THRESHOLD_DEFAULT = 0;
 	public static final String HIWAY_WORKER_MEMORY = "hiway.worker.memory";
 	public static final int HIWAY_WORKER_MEMORY_DEFAULT = 1024;
+	public static final String HIWAY_WORKER_MONITOR_INTERVAL = "hiway.worker.monitor.interval";
+	public static final int HIWAY_WORKER_MONITOR_INTERVAL_DEFAULT = 1000;
 	public static final String HIWAY_WORKER_PRIORITY = "hiway.worker.priority";
 	public static final int HIWAY_WORKER_PRIORITY_DEFAULT = 0;
+	public static final String HIWAY_WORKER_REPORT_PUSH = "hiway.worker.report.push";
+	public static final boolean HIWAY_WORKER_REPORT_PUSH_DEFAULT = false;
+	public static final String HIWAY_WORKER_REPORT_PUSH_MAX_BYTES = "hiway.worker.report.push.max.bytes";
+	public static final int HIWAY_WORKER_REPORT_PUSH_MAX_BYTES_DEFAULT = 1048576;
+	public static final String HIWAY_WORKER_REUSE = "hiway.worker.reuse";
+	public static final boolean HIWAY_WORKER_REUSE_DEFAULT = false;
+	public static final String HIWAY_WORKER_REUSE_IDLE_TIMEOUT = "hiway.worker.reuse.idle.timeout";
+	public static final int HIWAY_WORKER_REUSE_IDLE_TIMEOUT_DEFAULT = 10000;
+	public static final String HIWAY_WORKER_REUSE_POLL_INTERVAL = "hiway.worker.reuse.poll.interval";
+	public static final int HIWAY_WORKER_REUSE_POLL_INTERVAL_DEFAULT = 500;
 	public static final String HIWAY_WORKER_SHELL_ENV = "hiway.worker.shell.env";
 	public static final String HIWAY_WORKER_SHELL_ENV_DEFAULT = "";
+	public static final String HIWAY_WORKER_SIZING = "hiway.worker.sizing";
+	public static final boolean HIWAY_WORKER_SIZING_DEFAULT = false;
+	public static final String HIWAY_WORKER_SIZING_INCREMENT = "hiway.worker.sizing.increment";
+	public static final int HIWAY_WORKER_SIZING_INCREMENT_DEFAULT = 256;
+	public static final String HIWAY_WORKER_SIZING_MIN_SAMPLES = "hiway.worker.sizing.min.samples";
+	public static final int HIWAY_WORKER_SIZING_MIN_SAMPLES_DEFAULT = 3;
+	public static final String HIWAY_WORKER_SIZING_PERCENTILE = "hiway.worker.sizing.percentile";
+	public static final int HIWAY_WORKER_SIZING_PERCENTILE_DEFAULT = 95;
+	public static final String HIWAY_WORKER_SIZING_SAFETY_FACTOR = "hiway.worker.sizing.safety.factor";
+	public static final float HIWAY_WORKER_SIZING_SAFETY_FACTOR_DEFAULT = 1.5f;
+	public static final String HIWAY_WORKER_SIZING_WINDOW = "hiway.worker.sizing.window";
+	public static final int HIWAY_WORKER_SIZING_WINDOW_DEFAULT = 1000;
 	public static final String HIWAY_WORKER_VCORES = "hiway.worker.vcores";
 	public static final int HIWAY_WORKER_VCORES_DEFAULT = 1;
 
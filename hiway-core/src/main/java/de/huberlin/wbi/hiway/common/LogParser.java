@@ -45,6 +45,7 @@ import org.json.JSONException;
 import de.huberlin.hiwaydb.useDB.FileStat;
 import de.huberlin.hiwaydb.useDB.HiwayDBI;
 import de.huberlin.hiwaydb.useDB.InvocStat;
+import de.huberlin.hiwaydb.useDB.InvocStatHandler;
 import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
 
 public class LogParser implements HiwayDBI {
@@ -65,7 +66,7 @@ public class LogParser implements HiwayDBI {
 	}
 
 	@Override
-	public Set<String> getHostNames() {
+	public synchronized Set<String> getHostNames() {
 		return new HashSet<>(hostNames);
 	}
 
@@ -93,7 +94,7 @@ public class LogParser implements HiwayDBI {
 	}
 
 	@Override
-	public Collection<InvocStat> getLogEntriesForTasks(Set<Long> taskIds) {
+	public synchronized Collection<InvocStat> getLogEntriesForTasks(Set<Long> taskIds) {
 		Collection<InvocStat> stats = new LinkedList<>();
 		for (long taskId : taskIds) {
 			stats.addAll(getLogEntriesForTask(taskId));
@@ -102,15 +103,39 @@ public class LogParser implements HiwayDBI {
 	}
 
 	@Override
-	public Set<Long> getTaskIdsForWorkflow(String workflowName) {
+	public synchronized void getLogEntriesForWorkflowSince(String workflowName, long timestamp, InvocStatHandler handler) {
+		for (Map.Entry<UUID, Map<Long, InvocStat>> run : runToInvocStats.entrySet()) {
+			if (workflowName.equals(runToWorkflowName.get(run.getKey()))) {
+				for (InvocStat stat : run.getValue().values()) {
+					if (stat.getHostName() != null && stat.getRealTime() != null && stat.getTimestamp() > timestamp) {
+						handler.handle(stat);
+					}
+				}
+			}
+		}
+	}
+
+	@Override
+	public synchronized Set<Long> getTaskIdsForWorkflow(String workflowName) {
 		return workflowNameToTaskIds.containsKey(workflowName) ? new HashSet<>(workflowNameToTaskIds.get(workflowName)) : new HashSet<Long>();
 	}
 
 	@Override
-	public String getTaskName(long taskId) {
+	public synchronized String getTaskName(long taskId) {
 		return taskIdToTaskName.get(taskId);
 	}
 
+	@Override
+	public synchronized Map<Long, String> getTaskNames(Collection<Long> taskIds) {
+		Map<Long, String> taskNames = new HashMap<>();
+		for (long taskId : taskIds) {
+			if (taskIdToTaskName.containsKey(taskId)) {
+				taskNames.put(taskId, taskIdToTaskName.get(taskId));
+			}
+		}
+		return taskNames;
+	}
+
 	@Override
 	public synchronized void logToDB(JsonReportEntry entry) {
 		Long invocId = entry.getInvocId();
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.common;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A thread that samples the resource usage of the Worker and the processes spawned by it from the /proc file system. It determines the peak resident set size
+ * of the Worker and all of its descendant processes (i.e., the memory accounted to its container) as well as the CPU time consumed by the descendant processes.
+ * On systems without a /proc file system, no usage is recorded.
+ */
+public class ResourceMonitor extends Thread {
+
+	// the clock ticks per second and the size of a page in bytes, which are determined once per Worker (and are 100 and 4096 on most Linux systems)
+	private static final long CLOCK_TICKS_PER_SECOND = getconf("CLK_TCK", 100);
+	private static final long PAGE_SIZE = getconf("PAGESIZE", 4096);
+	private static final File PROC = new File("/proc");
+
+	// queries a system configuration variable, falling back to the given default if it cannot be determined
+	private static long getconf(String name, long defaultValue) {
+		try {
+			Process process = new ProcessBuilder("getconf", name).redirectErrorStream(true).start();
+			String line;
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				line = reader.readLine();
+			}
+			if (process.waitFor() == 0 && line != null) {
+				long value = Long.parseLong(line.trim());
+				if (value > 0) {
+					return value;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			// getconf is not available or does not know the variable
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.err.println("Unable to determine " + name + " via getconf. Assuming " + defaultValue + ".");
+		return defaultValue;
+	}
+
+	private static String[] readStat(File statFile) {
+		try (BufferedReader reader = new BufferedReader(new FileReader(statFile))) {
+			String line = reader.readLine();
+			if (line == null) {
+				return null;
+			}
+			// the process name is enclosed in parentheses and may contain spaces
+			return line.substring(line.lastIndexOf(')') + 2).split(" ");
+		} catch (IOException e) {
+			// the process has terminated in the meantime
+			return null;
+		}
+	}
+
+	private static long readChildrenCpuTicks() {
+		String[] stat = readStat(new File(PROC, "self/stat"));
+		// fields cutime and cstime, which comprise the CPU time of all terminated and waited-for descendants
+		return stat == null ? 0 : Long.parseLong(stat[13]) + Long.parseLong(stat[14]);
+	}
+
+	private volatile boolean closed;
+	private long cpuTicks;
+	private final int interval;
+	private long peakRss;
+	private String pid;
+
+	public ResourceMonitor(int interval) {
+		super("ResourceMonitor");
+		this.interval = Math.max(1, interval);
+		setDaemon(true);
+		try {
+			pid = new File(PROC, "self").getCanonicalFile().getName();
+		} catch (IOException e) {
+			pid = null;
+		}
+	}
+
+	/**
+	 * Stops sampling. Has to be called after the monitored processes have been waited for.
+	 */
+	public void close() {
+		closed = true;
+		interrupt();
+		try {
+			join();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		cpuTicks = readChildrenCpuTicks() - cpuTicks;
+	}
+
+	/**
+	 * @return The CPU time (in ms) consumed by the monitored processes.
+	 */
+	public long getCpuTime() {
+		return cpuTicks * 1000 / CLOCK_TICKS_PER_SECOND;
+	}
+
+	/**
+	 * @return The peak resident set size (in bytes) of the Worker and the monitored processes.
+	 */
+	public long getPeakRss() {
+		return peakRss * PAGE_SIZE;
+	}
+
+	public boolean isSupported() {
+		return pid != null && PROC.isDirectory();
+	}
+
+	@Override
+	public void run() {
+		while (!closed) {
+			sample();
+			try {
+				Thread.sleep(interval);
+			} catch (InterruptedException e) {
+				// the monitor has been closed
+			}
+		}
+	}
+
+	private void sample() {
+		File[] processes = PROC.listFiles();
+		if (processes == null) {
+			return;
+		}
+		Map<String, List<String>> children = new HashMap<>();
+		Map<String, Long> rss = new HashMap<>();
+		for (File process : processes) {
+			String name = process.getName();
+			if (!Character.isDigit(name.charAt(0))) {
+				continue;
+			}
+			String[] stat = readStat(new File(process, "stat"));
+			if (stat == null) {
+				continue;
+			}
+			String ppid = stat[1];
+			if (!children.containsKey(ppid)) {
+				children.put(ppid, new ArrayList<String>());
+			}
+			children.get(ppid).add(name);
+			rss.put(name, Long.parseLong(stat[21]));
+		}
+
+		long totalRss = 0;
+		List<String> descendants = new ArrayList<>();
+		descendants.add(pid);
+		for (int i = 0; i < descendants.size(); i++) {
+			String descendant = descendants.get(i);
+			if (rss.containsKey(descendant)) {
+				totalRss += rss.get(descendant);
+			}
+			if (children.containsKey(descendant)) {
+				descendants.addAll(children.get(descendant));
+			}
+		}
+		peakRss = Math.max(peakRss, totalRss);
+	}
+
+	@Override
+	public synchronized void start() {
+		cpuTicks = readChildrenCpuTicks();
+		super.start();
+	}
+
+}
@@ -32,9 +32,6 @@
  ******************************************************************************/
 package de.huberlin.wbi.hiway.common;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -150,25 +147,11 @@ public class TaskInstance implements Comparable<TaskInstance> {
 		this.setDepth(parentTask.getDepth() + 1);
 	}
 
-	public Map<String, LocalResource> buildScriptsAndSetResources(Container container) {
+	public Map<String, LocalResource> buildScriptsAndSetResources(String containerId) {
 		Map<String, LocalResource> localResources = new HashMap<>();
 		try {
-			String containerId = container.getId().toString();
-			File script = new File(containerId);
-			try (BufferedWriter scriptWriter = new BufferedWriter(new FileWriter(script))) {
-				scriptWriter.write(getCommand());
-			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(-1);
-			}
-			Data scriptData = new Data(script.getPath(), containerId);
-			try {
-				scriptData.stageOut();
-			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(-1);
-			}
-			scriptData.addToLocalResourceMap(localResources);
+			// the script is stored in HDFS once per distinct command and localized under the name of the container, from where the Worker executes it
+			Data.addContentToLocalResourceMap(containerId, getCommand(), localResources);
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(-1);
@@ -189,6 +172,24 @@ public class TaskInstance implements Comparable<TaskInstance> {
 		return sum;
 	}
 
+	/**
+	 * Determines the number of bytes of this task's input data stored on each host.
+	 * 
+	 * @return The number of bytes of input data per host, for all hosts storing at least one block of input data.
+	 * @throws IOException
+	 *             If the block locations of an input file cannot be determined (e.g., since it has not been produced yet).
+	 */
+	public Map<String, Long> countAvailableLocalDataPerHost() throws IOException {
+		Map<String, Long> bytesPerHost = new HashMap<>();
+		for (Data input : getInputData()) {
+			for (Map.Entry<String, Long> bytesOnHost : Data.getFileLocations(input.getHdfsPath()).getBytesPerHost().entrySet()) {
+				Long bytes = bytesPerHost.get(bytesOnHost.getKey());
+				bytesPerHost.put(bytesOnHost.getKey(), (bytes == null ? 0 : bytes) + bytesOnHost.getValue());
+			}
+		}
+		return bytesPerHost;
+	}
+
 	public long countAvailableTotalData() throws IOException {
 		long sum = 0;
 		for (Data input : getInputData()) {
@@ -209,6 +210,17 @@ public class TaskInstance implements Comparable<TaskInstance> {
 		return depth;
 	}
 
+	/**
+	 * Determines the size of an input or output file of this task, as it is known prior to the execution of the workflow (e.g., from the workflow description).
+	 * 
+	 * @param data
+	 *            The file.
+	 * @return The size of the file or -1 if unknown.
+	 */
+	public long getExpectedFileSize(Data data) {
+		return -1;
+	}
+
 	public long getId() {
 		return id;
 	}
@@ -38,6 +38,7 @@ import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.MutableCounterInt;
 import org.apache.hadoop.metrics2.lib.MutableGaugeInt;
+import org.apache.hadoop.metrics2.lib.MutableRate;
 import org.apache.hadoop.metrics2.source.JvmMetrics;
 
 @Metrics(about = "Workflow Application Master Metrics", context = "hiway")
@@ -52,6 +53,12 @@ public class WFAppMetrics {
 		return ms.register(new WFAppMetrics());
 	}
 
+	@Metric
+	private MutableCounterInt containersDeclined;
+	@Metric
+	private MutableRate launchLatency;
+	@Metric
+	private MutableGaugeInt launchesQueued;
 	@Metric
 	private MutableCounterInt tasksCompleted;
 	@Metric
@@ -65,6 +72,22 @@ public class WFAppMetrics {
 	@Metric
 	private MutableGaugeInt tasksWaiting;
 
+	public void queuedLaunch() {
+		launchesQueued.incr();
+	}
+
+	public void startedLaunch() {
+		launchesQueued.decr();
+	}
+
+	public void completedLaunch(long latencyInMs) {
+		launchLatency.add(latencyInMs);
+	}
+
+	public void declinedContainer() {
+		containersDeclined.incr();
+	}
+
 	public void completedTask() {
 		tasksCompleted.incr();
 	}
@@ -38,7 +38,16 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -48,6 +57,8 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.api.ApplicationConstants.Environment;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -57,11 +68,36 @@ import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
 
 public class Worker {
 
+	// the environment variable holding the secret with which the Worker authenticates its requests to the Application Master
+	public static final String ENV_SECRET = "HIWAY_WORKER_SECRET";
+	// the keys and values of the messages with which Workers push their reports to the Application Master
+	public static final String REPORT_KEY_LINES = "lines";
+	public static final String REPORT_KEY_STDERR = "stderr";
+	public static final String REPORT_KEY_STDOUT = "stdout";
+	public static final String REPORT_TYPE_ACK = "ack";
+	public static final String REPORT_TYPE_REPORT = "report";
+	// the keys and values of the messages exchanged with the Application Master when containers are reused
+	public static final String REUSE_KEY_ARGS = "args";
+	public static final String REUSE_KEY_CONTAINER = "container";
+	public static final String REUSE_KEY_FINISHED = "finished";
+	public static final String REUSE_KEY_RESOURCES = "resources";
+	public static final String REUSE_KEY_SECRET = "secret";
+	public static final String REUSE_KEY_TYPE = "type";
+	public static final String REUSE_TYPE_EXIT = "exit";
+	public static final String REUSE_TYPE_IDLE = "idle";
+	public static final String REUSE_TYPE_TASK = "task";
+
 	public static void main(String[] args) {
-		Worker worker = new Worker();
 		try {
+			Worker worker = new Worker();
 			worker.init(args);
 			worker.run();
+			// if the container is reused, keep on executing the tasks handed over by the Application Master
+			while (worker.reuse && (args = worker.requestNextTask()) != null) {
+				worker = new Worker();
+				worker.init(args);
+				worker.run();
+			}
 		} catch (ParseException | IOException | JSONException e) {
 			e.printStackTrace();
 			System.exit(-1);
@@ -75,6 +111,8 @@ public class Worker {
 		}
 	}
 
+	private String amHost;
+	private int amPort;
 	private String appId;
 	protected HiWayConfiguration conf;
 	private String containerId;
@@ -86,6 +124,7 @@ public class Worker {
 	private String invocScript = "";
 	private String langLabel;
 	private Set<Data> outputFiles;
+	private boolean reuse = false;
 	private long taskId;
 	private String taskName;
 	private UUID workflowId;
@@ -95,7 +134,7 @@ public class Worker {
 		outputFiles = new HashSet<>();
 	}
 
-	private int exec() {
+	private int exec(ResourceMonitor monitor) {
 		File script = new File("./" + containerId);
 		script.setExecutable(true);
 		ProcessBuilder processBuilder = new ProcessBuilder(script.getPath());
@@ -110,8 +149,10 @@ public class Worker {
 //			processBuilder.redirectOutput(stdOutFile);
 //			processBuilder.redirectError(stdErrFile);
 			processBuilder.inheritIO();
+			monitor.start();
 			process = processBuilder.start();
 			exitValue = process.waitFor();
+			monitor.close();
 		} catch (IOException | InterruptedException e) {
 			e.printStackTrace();
 			System.exit(-1);
@@ -141,6 +182,9 @@ public class Worker {
 		opts.addOption("output", true, "");
 		opts.addOption("size", false, "");
 		opts.addOption("invocScript", true, "if set, this parameter provides the Worker with the path to the script that is to be stored in invoc-script");
+		opts.addOption("amHost", true, "if set, the Worker pushes its report to (and possibly requests further tasks from) the Application Master running on this host");
+		opts.addOption("amPort", true, "the port on which the Application Master accepts reports and requests for further tasks");
+		opts.addOption("reuse", false, "if set, the Worker requests further tasks from the Application Master once it has finished its current task");
 
 		CommandLine cliParser = new GnuParser().parse(opts, args);
 		containerId = cliParser.getOptionValue("containerId");
@@ -179,6 +223,126 @@ public class Worker {
 		if (cliParser.hasOption("invocScript")) {
 			invocScript = cliParser.getOptionValue("invocScript");
 		}
+		if (cliParser.hasOption("amHost")) {
+			amHost = cliParser.getOptionValue("amHost");
+			amPort = Integer.parseInt(cliParser.getOptionValue("amPort"));
+			reuse = cliParser.hasOption("reuse");
+		}
+	}
+
+	/**
+	 * Pushes the report as well as stdout and stderr of the current task to the Application Master, which thereby does not have to stage them in from HDFS.
+	 * The files staged out to HDFS remain in place as a fallback, e.g., if the Application Master is unreachable or if stdout and stderr exceed the configured
+	 * maximum size (in which case no report is pushed at all instead of truncating the output).
+	 */
+	private void pushReport() throws IOException, JSONException {
+		File stdout = new File(Invocation.STDOUT_FILENAME);
+		File stderr = new File(Invocation.STDERR_FILENAME);
+		if (stdout.length() + stderr.length() > conf.getLong(HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH_MAX_BYTES,
+				HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH_MAX_BYTES_DEFAULT)) {
+			return;
+		}
+
+		JSONObject request = new JSONObject();
+		request.put(REUSE_KEY_TYPE, REPORT_TYPE_REPORT);
+		request.put(REUSE_KEY_CONTAINER, containerId);
+		request.put(REUSE_KEY_SECRET, System.getenv(ENV_SECRET));
+		JSONArray lines = new JSONArray();
+		try (BufferedReader reader = new BufferedReader(new FileReader(Invocation.REPORT_FILENAME))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.put(line);
+			}
+		}
+		request.put(REPORT_KEY_LINES, lines);
+		request.put(REPORT_KEY_STDOUT, new String(Files.readAllBytes(stdout.toPath()), StandardCharsets.UTF_8));
+		request.put(REPORT_KEY_STDERR, new String(Files.readAllBytes(stderr.toPath()), StandardCharsets.UTF_8));
+
+		try (Socket socket = new Socket(amHost, amPort);
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+			writer.write(request.toString());
+			writer.newLine();
+			writer.flush();
+			// wait for the acknowledgment, since the Application Master has to have registered the report before the container completes
+			reader.readLine();
+		} catch (IOException e) {
+			System.err.println("Unable to push report to Application Master. Falling back to HDFS.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reports the successful execution of the current task to the Application Master and waits for it to hand over a further task.
+	 * 
+	 * @return The command line arguments for the next task or null if the Worker is to exit.
+	 */
+	private String[] requestNextTask() throws IOException, JSONException {
+		String yarnContainerId = System.getenv(Environment.CONTAINER_ID.name());
+		int idleTimeout = conf.getInt(HiWayConfiguration.HIWAY_WORKER_REUSE_IDLE_TIMEOUT, HiWayConfiguration.HIWAY_WORKER_REUSE_IDLE_TIMEOUT_DEFAULT);
+		int pollInterval = conf.getInt(HiWayConfiguration.HIWAY_WORKER_REUSE_POLL_INTERVAL, HiWayConfiguration.HIWAY_WORKER_REUSE_POLL_INTERVAL_DEFAULT);
+		boolean finished = true;
+		long idleSince = System.currentTimeMillis();
+
+		do {
+			JSONObject request = new JSONObject();
+			request.put(REUSE_KEY_CONTAINER, yarnContainerId);
+			request.put(REUSE_KEY_FINISHED, finished);
+			request.put(REUSE_KEY_SECRET, System.getenv(ENV_SECRET));
+			JSONObject response;
+			try (Socket socket = new Socket(amHost, amPort);
+					BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+					BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+				writer.write(request.toString());
+				writer.newLine();
+				writer.flush();
+				response = new JSONObject(reader.readLine());
+			} catch (IOException e) {
+				System.err.println("Unable to request further tasks from Application Master. Exiting.");
+				e.printStackTrace();
+				return null;
+			}
+			finished = false;
+
+			switch (response.getString(REUSE_KEY_TYPE)) {
+			case REUSE_TYPE_TASK:
+				// clear the files of the previous task and stage in the resources of the next task (which are not localized by the NodeManager)
+				new File(Invocation.REPORT_FILENAME).delete();
+				new FileWriter(Invocation.STDOUT_FILENAME).close();
+				new FileWriter(Invocation.STDERR_FILENAME).close();
+				JSONObject resources = response.getJSONObject(REUSE_KEY_RESOURCES);
+				Iterator<?> names = resources.keys();
+				while (names.hasNext()) {
+					String name = (String) names.next();
+					new File(name).delete();
+					hdfs.copyToLocalFile(false, new Path(resources.getString(name)), new Path(name));
+				}
+
+				List<String> nextArgs = new ArrayList<>();
+				JSONArray args = response.getJSONArray(REUSE_KEY_ARGS);
+				for (int i = 0; i < args.length(); i++) {
+					nextArgs.addAll(Arrays.asList(args.getString(i).split(" ", 2)));
+				}
+				nextArgs.add("--amHost");
+				nextArgs.add(amHost);
+				nextArgs.add("--amPort");
+				nextArgs.add(Integer.toString(amPort));
+				nextArgs.add("--reuse");
+				return nextArgs.toArray(new String[nextArgs.size()]);
+			case REUSE_TYPE_EXIT:
+				return null;
+			default:
+				try {
+					Thread.sleep(pollInterval);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+					System.exit(-1);
+				}
+			}
+		} while (System.currentTimeMillis() - idleSince < idleTimeout);
+
+		System.out.println("No further tasks received from Application Master within " + idleTimeout + " ms. Exiting.");
+		return null;
 	}
 
 	public void run() throws IOException, JSONException {
@@ -189,8 +353,10 @@ public class Worker {
 		obj.put(JsonReportEntry.LABEL_REALTIME, Long.toString(toc - tic));
 		writeEntryToLog(new JsonReportEntry(tic, workflowId, taskId, taskName, langLabel, id, null, HiwayDBI.KEY_INVOC_TIME_STAGEIN, obj));
 
+		ResourceMonitor monitor = new ResourceMonitor(conf.getInt(HiWayConfiguration.HIWAY_WORKER_MONITOR_INTERVAL,
+				HiWayConfiguration.HIWAY_WORKER_MONITOR_INTERVAL_DEFAULT));
 		tic = System.currentTimeMillis();
-		int exitValue = exec();
+		int exitValue = exec(monitor);
 		toc = System.currentTimeMillis();
 
 		if (invocScript.length() > 0) {
@@ -211,6 +377,14 @@ public class Worker {
 		obj.put(JsonReportEntry.LABEL_REALTIME, Long.toString(toc - tic));
 		writeEntryToLog(new JsonReportEntry(tic, workflowId, taskId, taskName, langLabel, id, null, JsonReportEntry.KEY_INVOC_TIME, obj));
 
+		if (monitor.isSupported()) {
+			obj = new JSONObject();
+			obj.put(JsonReportEntry.LABEL_REALTIME, Long.toString(toc - tic));
+			obj.put(HiwayDBI.LABEL_CPUTIME, Long.toString(monitor.getCpuTime()));
+			obj.put(HiwayDBI.LABEL_PEAKRSS, Long.toString(monitor.getPeakRss()));
+			writeEntryToLog(new JsonReportEntry(tic, workflowId, taskId, taskName, langLabel, id, null, HiwayDBI.KEY_INVOC_RESOURCES, obj));
+		}
+
 		tic = System.currentTimeMillis();
 		new Data(Invocation.STDOUT_FILENAME, containerId).stageOut();
 		new Data(Invocation.STDERR_FILENAME, containerId).stageOut();
@@ -224,6 +398,9 @@ public class Worker {
 		writeEntryToLog(new JsonReportEntry(tic, workflowId, taskId, taskName, langLabel, id, null, HiwayDBI.KEY_INVOC_TIME_STAGEOUT, obj));
 
 		new Data(Invocation.REPORT_FILENAME, containerId).stageOut();
+		if (amHost != null && conf.getBoolean(HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH, HiWayConfiguration.HIWAY_WORKER_REPORT_PUSH_DEFAULT)) {
+			pushReport();
+		}
 	}
 
 	public void stageIn() throws IOException, JSONException {
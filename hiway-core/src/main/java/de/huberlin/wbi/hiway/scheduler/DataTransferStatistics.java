@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.huberlin.hiwaydb.useDB.FileStat;
+import de.huberlin.hiwaydb.useDB.InvocStat;
+
+/**
+ * Statistics on the data transferred by invocations, from which the time required to transfer data between tasks is estimated. The bandwidth of each node is
+ * learned from the size and stage-in time of the input files of invocations on that node, whereas the size of the data produced by tasks of a signature is
+ * learned from the size of their output files.
+ */
+public class DataTransferStatistics {
+
+	private static class Transfers {
+		private long bytes;
+		private int count;
+		private long timeInMs;
+	}
+
+	// the output data per task signature (where count is the number of invocations)
+	private final Map<Long, Transfers> outputsPerTask = new HashMap<>();
+	// the stage-ins per node and across all nodes (where count is the number of files)
+	private final Map<String, Transfers> stageInsPerNode = new HashMap<>();
+	private final Transfers stageIns = new Transfers();
+
+	/**
+	 * Accounts for the files staged in and out by an invocation.
+	 * 
+	 * @param stat
+	 *            The invocation.
+	 */
+	public void addInvocation(InvocStat stat) {
+		Transfers nodeStageIns = stageInsPerNode.get(stat.getHostName());
+		if (nodeStageIns == null) {
+			nodeStageIns = new Transfers();
+			stageInsPerNode.put(stat.getHostName(), nodeStageIns);
+		}
+		for (FileStat input : stat.getInputFiles()) {
+			if (input.getSize() != null && input.getRealTime() != null && input.getRealTime() > 0) {
+				for (Transfers transfers : new Transfers[] { nodeStageIns, stageIns }) {
+					transfers.bytes += input.getSize();
+					transfers.timeInMs += input.getRealTime();
+					transfers.count++;
+				}
+			}
+		}
+
+		if (stat.getOutputFiles().isEmpty()) {
+			return;
+		}
+		long outputBytes = 0;
+		for (FileStat output : stat.getOutputFiles()) {
+			if (output.getSize() == null) {
+				return;
+			}
+			outputBytes += output.getSize();
+		}
+		Transfers outputs = outputsPerTask.get(stat.getTaskId());
+		if (outputs == null) {
+			outputs = new Transfers();
+			outputsPerTask.put(stat.getTaskId(), outputs);
+		}
+		outputs.bytes += outputBytes;
+		outputs.count++;
+	}
+
+	/**
+	 * @return The average total size of the output data of tasks of the given signature or -1 if unknown.
+	 */
+	public double getAverageOutputBytes(long taskId) {
+		Transfers outputs = outputsPerTask.get(taskId);
+		return (outputs != null && outputs.count > 0) ? (double) outputs.bytes / outputs.count : -1d;
+	}
+
+	/**
+	 * @return The bandwidth (in bytes per ms) at which files have been staged in across all nodes or 0 if unknown.
+	 */
+	public double getBandwidth() {
+		return stageIns.timeInMs > 0 ? (double) stageIns.bytes / stageIns.timeInMs : 0d;
+	}
+
+	/**
+	 * @return The bandwidth (in bytes per ms) at which files have been staged in on the given node or, if no files have been staged in on this node yet, across
+	 *         all nodes (0 if unknown).
+	 */
+	public double getBandwidth(String nodeId) {
+		Transfers nodeStageIns = stageInsPerNode.get(nodeId);
+		return (nodeStageIns != null && nodeStageIns.timeInMs > 0) ? (double) nodeStageIns.bytes / nodeStageIns.timeInMs : getBandwidth();
+	}
+
+	/**
+	 * @return The expected time (in ms) to transfer the given amount of data at the average bandwidth across all nodes or 0 if the bandwidth is unknown.
+	 */
+	public double getTransferTime(long bytes) {
+		double bandwidth = getBandwidth();
+		return bandwidth > 0d ? bytes / bandwidth : 0d;
+	}
+
+	/**
+	 * @return The expected time (in ms) to transfer the given amount of data to the given node or 0 if the bandwidth is unknown.
+	 */
+	public double getTransferTime(long bytes, String nodeId) {
+		double bandwidth = getBandwidth(nodeId);
+		return bandwidth > 0d ? bytes / bandwidth : 0d;
+	}
+
+}
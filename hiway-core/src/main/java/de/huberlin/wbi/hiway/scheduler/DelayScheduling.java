@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.huberlin.wbi.hiway.common.TaskInstance;
+
+/**
+ * A delay-scheduling policy shared by the dynamic schedulers. If a container is allocated on a node that stores none of the input data of the task it would
+ * be assigned, the task may skip the container in the hope of being offered a container on a node (or at least on a rack) storing some of its input data
+ * soon. A task skips at most a configured number of container offers and stops skipping once a configured time has passed since it skipped its first offer,
+ * such that it is not starved. Alongside the number of offers skipped by each waiting task, the policy keeps track of the locality of all assigned tasks
+ * (only while it is enabled, since determining the locality of a task requires looking up the block locations of its input files).
+ */
+public class DelayScheduling {
+
+	/**
+	 * The proximity of a node to the input data of a task. Tasks without input data in HDFS are considered node-local.
+	 */
+	public static enum Locality {
+		NODE_LOCAL, RACK_LOCAL, OFF_SWITCH
+	}
+
+	// the number of tasks assigned per locality
+	private final int[] assignments = new int[Locality.values().length];
+	// the time (in ms) since its first skipped offer after which a task accepts any container
+	private final long maxDelay;
+	private final int maxSkips;
+	// the number of container offers skipped by each waiting task and the time at which it skipped its first offer
+	private final Map<TaskInstance, Integer> skipsPerTask = new HashMap<>();
+	private final Map<TaskInstance, Long> firstSkipPerTask = new HashMap<>();
+	private int totalSkips = 0;
+
+	public DelayScheduling(int maxSkips, long maxDelay) {
+		this.maxSkips = maxSkips;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * @param locality
+	 *            A locality.
+	 * @return The number of tasks that have been assigned a container of this locality.
+	 */
+	public int getAssignments(Locality locality) {
+		return assignments[locality.ordinal()];
+	}
+
+	/**
+	 * @return The fraction of assigned tasks that have been assigned a node-local or rack-local container (or 0 if no task has been assigned yet).
+	 */
+	public double getLocalityHitRate() {
+		int total = 0;
+		for (int count : assignments) {
+			total += count;
+		}
+		return total > 0 ? (double) (total - getAssignments(Locality.OFF_SWITCH)) / total : 0d;
+	}
+
+	/**
+	 * @param task
+	 *            A task waiting for a container.
+	 * @return The number of container offers the task has skipped so far.
+	 */
+	public int getSkips(TaskInstance task) {
+		Integer skips = skipsPerTask.get(task);
+		return skips == null ? 0 : skips;
+	}
+
+	/**
+	 * @return The number of container offers skipped by all tasks so far.
+	 */
+	public int getTotalSkips() {
+		return totalSkips;
+	}
+
+	/**
+	 * @return True if tasks are allowed to skip container offers at all.
+	 */
+	public boolean isEnabled() {
+		return maxSkips > 0 && maxDelay > 0;
+	}
+
+	/**
+	 * Decides whether a task skips the offer of an off-switch container, i.e., a container on a node that neither stores any of its input data nor shares a
+	 * rack with such a node.
+	 * 
+	 * @param task
+	 *            The task.
+	 * @return True if the task skips the container, or false if it has exhausted its skips and has to accept the container.
+	 */
+	public boolean skip(TaskInstance task) {
+		if (!isEnabled()) {
+			return false;
+		}
+		int skips = getSkips(task);
+		long now = System.currentTimeMillis();
+		Long firstSkip = firstSkipPerTask.get(task);
+		if (skips >= maxSkips || (firstSkip != null && now - firstSkip >= maxDelay)) {
+			return false;
+		}
+		if (firstSkip == null) {
+			firstSkipPerTask.put(task, now);
+		}
+		skipsPerTask.put(task, skips + 1);
+		totalSkips++;
+		return true;
+	}
+
+	/**
+	 * Accounts for the assignment of a task to a container, after which the task no longer skips offers.
+	 * 
+	 * @param task
+	 *            The task.
+	 * @param locality
+	 *            The locality of the container the task has been assigned.
+	 */
+	public void taskAssigned(TaskInstance task, Locality locality) {
+		assignments[locality.ordinal()]++;
+		int skips = getSkips(task);
+		if (skips > 0) {
+			System.out.println("Task " + task + " has been assigned a " + locality + " container after skipping " + skips + " offers.");
+		}
+		skipsPerTask.remove(task);
+		firstSkipPerTask.remove(task);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Locality locality : Locality.values()) {
+			sb.append(locality).append("=").append(getAssignments(locality)).append(", ");
+		}
+		return sb.append("skips=").append(totalSkips).append(", hit rate=").append(getLocalityHitRate()).toString();
+	}
+
+}
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+/**
+ * A request for a container, issued by the scheduler whenever a task has become ready to execute.
+ */
+public class NodeRequest {
+	// the amount of memory (in MB) to request
+	public final int memory;
+	// the nodes on which the container is to be allocated; if empty, the container can be allocated on any node
+	public final String[] nodes;
+	// the racks on which the container is to be allocated if none of the nodes has capacity (only applicable if locality is relaxed)
+	public final String[] racks;
+	// the number of virtual cores to request
+	public final int vcores;
+
+	public NodeRequest(String[] nodes, int memory, int vcores) {
+		this(nodes, new String[0], memory, vcores);
+	}
+
+	public NodeRequest(String[] nodes, String[] racks, int memory, int vcores) {
+		this.nodes = nodes;
+		this.racks = racks;
+		this.memory = memory;
+		this.vcores = vcores;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The resources used by the most recently executed tasks of a signature, from which the resource requirements of further tasks of this signature are derived.
+ */
+public class ResourceProfile {
+
+	private static class Samples<T extends Comparable<T>> {
+		private final Queue<T> observed = new LinkedList<>();
+		private final List<T> sorted = new ArrayList<>();
+
+		public void add(T sample, int window) {
+			observed.add(sample);
+			int index = Collections.binarySearch(sorted, sample);
+			sorted.add(index < 0 ? -index - 1 : index, sample);
+			if (observed.size() > window) {
+				sorted.remove(Collections.binarySearch(sorted, observed.remove()));
+			}
+		}
+
+		public T getPercentile(int percentile) {
+			int index = (int) Math.ceil(percentile / 100d * sorted.size()) - 1;
+			return sorted.get(Math.min(sorted.size() - 1, Math.max(0, index)));
+		}
+	}
+
+	private final Samples<Double> cores = new Samples<>();
+	private final Samples<Long> memory = new Samples<>();
+	private final int window;
+
+	public ResourceProfile(int window) {
+		this.window = Math.max(1, window);
+	}
+
+	/**
+	 * @param observedMemory
+	 *            The peak memory (in MB) used by a task of this signature.
+	 * @param observedCores
+	 *            The average number of cores used by a task of this signature (i.e., its CPU time divided by its runtime).
+	 */
+	public void add(long observedMemory, double observedCores) {
+		memory.add(observedMemory, window);
+		cores.add(observedCores, window);
+	}
+
+	public double getCores(int percentile) {
+		return cores.getPercentile(percentile);
+	}
+
+	public long getMemory(int percentile) {
+		return memory.getPercentile(percentile);
+	}
+
+	public int size() {
+		return memory.observed.size();
+	}
+
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.huberlin.wbi.hiway.scheduler.estimators.RuntimeEstimator;
+
+/**
+ * The runtime estimates of each task signature on each node. Nodes and task signatures are interned to dense indices in the order in which they are
+ * registered, and the statistics of each combination are kept in contiguous arrays (one row per node) which grow by doubling. Hence, looking up an estimate
+ * by index requires no hashing, and registering a node or task signature does not allocate objects for each combination. The estimator of a combination is
+ * only created once a task of that signature has finished on that node.
+ */
+public class RuntimeEstimateMatrix {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] estimates;
+	private RuntimeEstimator[] estimators;
+	private int[] finishedTasks;
+	private int nodeCapacity = INITIAL_CAPACITY;
+	private final List<String> nodeIds = new ArrayList<>();
+	private final Map<String, Integer> nodeIndices = new HashMap<>();
+	private final Set<String> nodeIdsView = Collections.unmodifiableSet(nodeIndices.keySet());
+	private int taskCapacity = INITIAL_CAPACITY;
+	private final List<Long> taskIds = new ArrayList<>();
+	private final Map<Long, Integer> taskIndices = new HashMap<>();
+	private final Set<Long> taskIdsView = Collections.unmodifiableSet(taskIndices.keySet());
+	private long[] timeSpent;
+
+	public RuntimeEstimateMatrix() {
+		estimates = new long[nodeCapacity * taskCapacity];
+		estimators = new RuntimeEstimator[nodeCapacity * taskCapacity];
+		finishedTasks = new int[nodeCapacity * taskCapacity];
+		timeSpent = new long[nodeCapacity * taskCapacity];
+	}
+
+	/**
+	 * Registers a node, unless it has been registered before.
+	 * 
+	 * @param nodeId
+	 *            The name of the node.
+	 * @return The index of the node.
+	 */
+	public int addNode(String nodeId) {
+		Integer node = nodeIndices.get(nodeId);
+		if (node != null) {
+			return node;
+		}
+		if (nodeIds.size() == nodeCapacity) {
+			grow(2 * nodeCapacity, taskCapacity);
+		}
+		nodeIds.add(nodeId);
+		nodeIndices.put(nodeId, nodeIds.size() - 1);
+		return nodeIds.size() - 1;
+	}
+
+	/**
+	 * Accounts for a task of the given signature that has finished on the given node. The estimator of this combination has to be set beforehand.
+	 * 
+	 * @param node
+	 *            The index of the node.
+	 * @param task
+	 *            The index of the task signature.
+	 * @param runtimeInMs
+	 *            The runtime of the task.
+	 * @param inputBytes
+	 *            The total size of the task's input data or -1 if unknown.
+	 */
+	public void addObservation(int node, int task, long runtimeInMs, long inputBytes) {
+		int cell = cell(node, task);
+		finishedTasks[cell]++;
+		timeSpent[cell] += runtimeInMs;
+		estimators[cell].addObservation(runtimeInMs, inputBytes);
+		estimates[cell] = estimators[cell].getEstimate();
+	}
+
+	/**
+	 * Registers a task signature, unless it has been registered before.
+	 * 
+	 * @param taskId
+	 *            The signature of the task.
+	 * @return The index of the task signature.
+	 */
+	public int addTask(long taskId) {
+		Integer task = taskIndices.get(taskId);
+		if (task != null) {
+			return task;
+		}
+		if (taskIds.size() == taskCapacity) {
+			grow(nodeCapacity, 2 * taskCapacity);
+		}
+		taskIds.add(taskId);
+		taskIndices.put(taskId, taskIds.size() - 1);
+		return taskIds.size() - 1;
+	}
+
+	private int cell(int node, int task) {
+		return node * taskCapacity + task;
+	}
+
+	public boolean containsNode(String nodeId) {
+		return nodeIndices.containsKey(nodeId);
+	}
+
+	public boolean containsTask(long taskId) {
+		return taskIndices.containsKey(taskId);
+	}
+
+	/**
+	 * @return The current estimate of the runtime of tasks of the given signature on the given node or 0 if no such task has finished yet.
+	 */
+	public long getEstimate(int node, int task) {
+		return estimates[cell(node, task)];
+	}
+
+	/**
+	 * @return The estimator of the given combination of node and task signature or null if no task of this signature has finished on this node yet.
+	 */
+	public RuntimeEstimator getEstimator(int node, int task) {
+		return estimators[cell(node, task)];
+	}
+
+	public int getFinishedTasks(int node, int task) {
+		return finishedTasks[cell(node, task)];
+	}
+
+	public String getNodeId(int node) {
+		return nodeIds.get(node);
+	}
+
+	/**
+	 * @return A read-only view of the names of the registered nodes.
+	 */
+	public Set<String> getNodeIds() {
+		return nodeIdsView;
+	}
+
+	/**
+	 * @return The index of the node or -1 if it has not been registered.
+	 */
+	public int getNodeIndex(String nodeId) {
+		Integer node = nodeIndices.get(nodeId);
+		return node == null ? -1 : node;
+	}
+
+	public int getNumberOfNodes() {
+		return nodeIds.size();
+	}
+
+	public int getNumberOfTasks() {
+		return taskIds.size();
+	}
+
+	public long getTaskId(int task) {
+		return taskIds.get(task);
+	}
+
+	/**
+	 * @return A read-only view of the registered task signatures.
+	 */
+	public Set<Long> getTaskIds() {
+		return taskIdsView;
+	}
+
+	/**
+	 * @return The index of the task signature or -1 if it has not been registered.
+	 */
+	public int getTaskIndex(long taskId) {
+		Integer task = taskIndices.get(taskId);
+		return task == null ? -1 : task;
+	}
+
+	public long getTimeSpent(int node, int task) {
+		return timeSpent[cell(node, task)];
+	}
+
+	private void grow(int newNodeCapacity, int newTaskCapacity) {
+		if (newTaskCapacity == taskCapacity) {
+			estimates = Arrays.copyOf(estimates, newNodeCapacity * newTaskCapacity);
+			estimators = Arrays.copyOf(estimators, newNodeCapacity * newTaskCapacity);
+			finishedTasks = Arrays.copyOf(finishedTasks, newNodeCapacity * newTaskCapacity);
+			timeSpent = Arrays.copyOf(timeSpent, newNodeCapacity * newTaskCapacity);
+		} else {
+			// the rows have to be laid out anew, since each of them becomes longer
+			long[] newEstimates = new long[newNodeCapacity * newTaskCapacity];
+			RuntimeEstimator[] newEstimators = new RuntimeEstimator[newNodeCapacity * newTaskCapacity];
+			int[] newFinishedTasks = new int[newNodeCapacity * newTaskCapacity];
+			long[] newTimeSpent = new long[newNodeCapacity * newTaskCapacity];
+			for (int node = 0; node < nodeIds.size(); node++) {
+				System.arraycopy(estimates, node * taskCapacity, newEstimates, node * newTaskCapacity, taskIds.size());
+				System.arraycopy(estimators, node * taskCapacity, newEstimators, node * newTaskCapacity, taskIds.size());
+				System.arraycopy(finishedTasks, node * taskCapacity, newFinishedTasks, node * newTaskCapacity, taskIds.size());
+				System.arraycopy(timeSpent, node * taskCapacity, newTimeSpent, node * newTaskCapacity, taskIds.size());
+			}
+			estimates = newEstimates;
+			estimators = newEstimators;
+			finishedTasks = newFinishedTasks;
+			timeSpent = newTimeSpent;
+		}
+		nodeCapacity = newNodeCapacity;
+		taskCapacity = newTaskCapacity;
+	}
+
+	public void setEstimator(int node, int task, RuntimeEstimator estimator) {
+		estimators[cell(node, task)] = estimator;
+	}
+
+}
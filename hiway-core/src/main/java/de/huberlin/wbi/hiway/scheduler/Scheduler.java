@@ -38,14 +38,20 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -53,16 +59,27 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.yarn.api.records.Container;
 import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.apache.hadoop.yarn.api.records.ContainerStatus;
+import org.apache.hadoop.yarn.api.records.Resource;
 import org.json.JSONException;
+import org.json.JSONObject;
 
+import de.huberlin.hiwaydb.useDB.FileStat;
 import de.huberlin.hiwaydb.useDB.HiwayDB;
 import de.huberlin.hiwaydb.useDB.HiwayDBI;
 import de.huberlin.hiwaydb.useDB.HiwayDBNoSQL;
 import de.huberlin.hiwaydb.useDB.InvocStat;
+import de.huberlin.hiwaydb.useDB.InvocStatHandler;
 import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.am.NodeMembership;
+import de.huberlin.wbi.hiway.am.TaskCache;
 import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.LogParser;
 import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.estimators.EwmaEstimator;
+import de.huberlin.wbi.hiway.scheduler.estimators.InputSizeRegressionEstimator;
+import de.huberlin.wbi.hiway.scheduler.estimators.MeanEstimator;
+import de.huberlin.wbi.hiway.scheduler.estimators.QuantileEstimator;
+import de.huberlin.wbi.hiway.scheduler.estimators.RuntimeEstimator;
 
 /**
  * An abstract implementation of a workflow scheduler.
@@ -72,20 +89,63 @@ import de.huberlin.wbi.hiway.common.TaskInstance;
  */
 public abstract class Scheduler {
 
+	private static FileStat getInputFile(InvocStat stat, String fileName) {
+		if (!stat.containsInputFile(fileName)) {
+			stat.addInputFile(new FileStat(fileName));
+		}
+		return stat.getInputFile(fileName);
+	}
+
+	// the nodes on which containers can currently be allocated, as reported by the ResourceManager, or null if they are not known
+	protected Set<String> availableNodes;
 	protected HiWayConfiguration conf;
+	// the resources to request for tasks whose resource requirements are unknown (or if containers are not sized per task)
+	protected int containerCores;
+	protected int containerMemory;
 	protected HiwayDBI dbInterface;
+	// the policy by which ready tasks skip containers on nodes far from their input data (null until the scheduler has been initialized)
+	protected DelayScheduling delayScheduling;
+	// the interval (in ms) in which runtime estimates are refreshed from the provenance database while the workflow is running (never if zero)
+	protected int estimatesRefreshInterval;
+	// the kind of estimator of the runtime of tasks per signature and node, along with its parameters
+	protected HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_OPTS estimator = HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_DEFAULT;
+	protected float estimatorAlpha = HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_EWMA_ALPHA_DEFAULT;
+	protected float estimatorQuantile = HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_QUANTILE_DEFAULT;
 	protected final FileSystem hdfs;
+	// the maximum resources of a container in the cluster, which a request must not exceed (unlimited until the application master has registered)
+	protected int maxCores = Integer.MAX_VALUE;
+	protected int maxMemory = Integer.MAX_VALUE;
 	protected int maxRetries = 0;
-	protected Map<String, Long> maxTimestampPerHost;
+	protected long lastEstimatesRefresh;
+	// the number of nodes storing most of the input data of a ready task that are passed to the ResourceManager as a hint where to allocate its container
+	protected int localityHints = 0;
+	// the timestamp of the latest invocation retrieved from the provenance database
+	protected long maxTimestamp;
+	// the nodes of the cluster and their racks (null if not known)
+	protected NodeMembership nodeMembership;
 	protected int numberOfFinishedTasks = 0;
 	protected int numberOfPreviousRunTasks = 0;
 	protected int numberOfRemainingTasks = 0;
 	protected int numberOfRunningTasks = 0;
 	protected boolean relaxLocality = true;
-	protected Map<String, Map<Long, RuntimeEstimate>> runtimeEstimatesPerNode;
-	protected Set<Long> taskIds;
-	// a queue of nodes on which containers are to be requested
-	protected Queue<String[]> unissuedNodeRequests;
+	// the resources used by the most recently executed tasks per signature; accessed by the thread writing to the provenance database as well
+	protected Map<Long, ResourceProfile> resourceProfiles;
+	// the nodes on which containers have been requested for tasks that have since been assigned to other nodes; the application master withdraws these requests
+	protected BlockingQueue<NodeRequest> revokedNodeRequests;
+	protected final RuntimeEstimateMatrix runtimeEstimates;
+	// whether containers are sized per task based on the resources used by previous tasks of the same signature
+	protected boolean sizeContainers;
+	protected int sizingIncrement;
+	protected int sizingMinSamples;
+	protected int sizingPercentile;
+	protected float sizingSafetyFactor;
+	protected int sizingWindow = 1;
+	// a cache of the outputs of tasks executed in previous runs (null if memoization is disabled)
+	protected TaskCache taskCache;
+	// statistics on the bandwidth of nodes and the size of the data produced by tasks, from which data transfer times are estimated
+	protected final DataTransferStatistics transferStatistics;
+	// a queue of nodes on which containers are to be requested; the application master blocks on this queue until new requests arrive
+	protected BlockingQueue<NodeRequest> unissuedNodeRequests;
 	protected String workflowName;
 
 	public Scheduler(String workflowName, HiWayConfiguration conf, FileSystem hdfs) {
@@ -93,17 +153,83 @@ public abstract class Scheduler {
 
 		this.conf = conf;
 		this.hdfs = hdfs;
-		unissuedNodeRequests = new LinkedList<>();
+		unissuedNodeRequests = new LinkedBlockingQueue<>();
+		revokedNodeRequests = new LinkedBlockingQueue<>();
 
-		taskIds = new HashSet<>();
-		runtimeEstimatesPerNode = new HashMap<>();
-		maxTimestampPerHost = new HashMap<>();
+		runtimeEstimates = new RuntimeEstimateMatrix();
+		transferStatistics = new DataTransferStatistics();
+		resourceProfiles = new HashMap<>();
 	}
 
 	public void addEntryToDB(JsonReportEntry entry) {
 		System.out.println("HiwayDB: Adding entry " + entry + " to database.");
 		dbInterface.logToDB(entry);
 		System.out.println("HiwayDB: Added entry to database.");
+		if (entry.getKey().equals(HiwayDBI.KEY_INVOC_RESOURCES)) {
+			updateResourceProfile(entry);
+		}
+	}
+
+	/**
+	 * Issues a request for a container on which the given task can be executed.
+	 * 
+	 * @param nodes
+	 *            The nodes on which the container is to be allocated. If empty, the container can be allocated on any node.
+	 * @param task
+	 *            The task for which the container is requested or null if the container is not requested for a particular task.
+	 */
+	protected void addNodeRequest(String[] nodes, TaskInstance task) {
+		if (task == null) {
+			unissuedNodeRequests.add(new NodeRequest(nodes, containerMemory, containerCores));
+		} else {
+			unissuedNodeRequests.add(new NodeRequest(nodes, getMemory(task.getTaskId()), getVirtualCores(task.getTaskId())));
+		}
+	}
+
+	/**
+	 * Issues a request for a container on which the given ready task can be executed, along with a hint to the ResourceManager where to allocate it. The hint
+	 * comprises the nodes storing most of the task's input data and, as a fallback, their racks. Since locality is relaxed, the container can still be
+	 * allocated on any other node.
+	 * 
+	 * @param task
+	 *            The task for which the container is requested.
+	 */
+	protected void addLocalityHintedNodeRequest(TaskInstance task) {
+		String[] nodes = new String[0];
+		String[] racks = new String[0];
+		if (localityHints > 0 && relaxLocality) {
+			try {
+				List<Map.Entry<String, Long>> bytesPerHost = new ArrayList<>(task.countAvailableLocalDataPerHost().entrySet());
+				Collections.sort(bytesPerHost, new Comparator<Map.Entry<String, Long>>() {
+					@Override
+					public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+						return Long.compare(o2.getValue(), o1.getValue());
+					}
+				});
+				List<String> hintedNodes = new ArrayList<>();
+				Set<String> hintedRacks = new LinkedHashSet<>();
+				for (Map.Entry<String, Long> bytesOnHost : bytesPerHost) {
+					if (hintedNodes.size() >= localityHints) {
+						break;
+					}
+					String nodeId = bytesOnHost.getKey();
+					// nodes storing data without running a NodeManager cannot host containers
+					if (isAvailable(nodeId)) {
+						hintedNodes.add(nodeId);
+						String rack = nodeMembership != null ? nodeMembership.getRack(nodeId) : null;
+						if (rack != null) {
+							hintedRacks.add(rack);
+						}
+					}
+				}
+				nodes = hintedNodes.toArray(nodes);
+				racks = hintedRacks.toArray(racks);
+			} catch (IOException e) {
+				System.err.println("Error during hdfs block location determination.");
+				e.printStackTrace();
+			}
+		}
+		unissuedNodeRequests.add(new NodeRequest(nodes, racks, getMemory(task.getTaskId()), getVirtualCores(task.getTaskId())));
 	}
 
 	protected abstract void addTask(TaskInstance task);
@@ -112,18 +238,339 @@ public abstract class Scheduler {
 		for (TaskInstance task : tasks) {
 			addTask(task);
 		}
+		// tasks found in the cache are completed only after all tasks have been added, such that none of their children is queued twice
+		if (taskCache != null) {
+			taskCache.completeMemoizedTasks();
+		}
+	}
+
+	/**
+	 * Queues a task that is ready to execute, unless its outputs are found in the task cache.
+	 * 
+	 * @param task
+	 *            The task that is ready to execute.
+	 */
+	public void addTaskToQueue(TaskInstance task) {
+		if (taskCache != null && taskCache.lookup(task)) {
+			System.out.println("Found task " + task + " in cache");
+			taskMemoized(task);
+			return;
+		}
+		enqueueTask(task);
 	}
 
-	public abstract void addTaskToQueue(TaskInstance task);
+	/**
+	 * Applies delay scheduling to the assignment of a task to a container. If the container is off-switch for the task, the first of the candidate tasks that
+	 * fits into the container and for which the container is node-local or rack-local is assigned instead. If there is no such task, the container is declined,
+	 * unless the task has exhausted the container offers it may skip.
+	 * 
+	 * @param task
+	 *            The task that would be assigned to the container without delay scheduling.
+	 * @param candidates
+	 *            The ready tasks, in the order in which the scheduler would prefer them.
+	 * @param container
+	 *            The allocated container.
+	 * @return The task to be assigned to the container (which is still to be removed from the ready tasks) or null if the container is declined.
+	 */
+	protected TaskInstance applyDelayScheduling(TaskInstance task, Iterable<TaskInstance> candidates, Container container) {
+		// the locality of tasks is only determined if delay scheduling is enabled, since it requires looking up the block locations of their input files
+		if (delayScheduling == null || !delayScheduling.isEnabled()) {
+			return task;
+		}
+		String nodeId = container.getNodeId().getHost();
+		DelayScheduling.Locality locality = getLocality(task, nodeId);
+		if (locality == DelayScheduling.Locality.OFF_SWITCH) {
+			for (TaskInstance candidate : candidates) {
+				if (candidate != task && fits(candidate.getTaskId(), container)) {
+					DelayScheduling.Locality candidateLocality = getLocality(candidate, nodeId);
+					if (candidateLocality != DelayScheduling.Locality.OFF_SWITCH) {
+						task = candidate;
+						locality = candidateLocality;
+						break;
+					}
+				}
+			}
+			if (locality == DelayScheduling.Locality.OFF_SWITCH && delayScheduling.skip(task)) {
+				System.out.println("Task " + task + " skips container on node " + nodeId + " (" + delayScheduling.getSkips(task) + " skips so far)");
+				return null;
+			}
+		}
+		delayScheduling.taskAssigned(task, locality);
+		return task;
+	}
 
-	public String[] getNextNodeRequest() {
+	/**
+	 * Releases the resources held by the scheduler (e.g., threads) once the workflow has finished.
+	 */
+	public void close() {
+		// no resources are held by default
+	}
+
+	protected abstract void enqueueTask(TaskInstance task);
+
+	/**
+	 * @param taskId
+	 *            The signature of a task.
+	 * @param container
+	 *            A container.
+	 * @return True if the resources requested for tasks of the given signature fit into the container.
+	 */
+	protected boolean fits(long taskId, Container container) {
+		Resource resource = container.getResource();
+		return resource == null || (getMemory(taskId) <= resource.getMemory() && getVirtualCores(taskId) <= resource.getVirtualCores());
+	}
+
+	/**
+	 * Determines the size of a task's input data if the runtime estimator models the dependency of runtimes on the size of input data. Since this requires
+	 * looking up the input data in HDFS, it should be determined once per task rather than once per candidate node.
+	 * 
+	 * @param task
+	 *            The task.
+	 * @return The size of the input data in bytes or -1 if it is not taken into account or not all of the input data is available in HDFS yet.
+	 */
+	public long getInputBytes(TaskInstance task) {
+		if (estimator == HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_OPTS.regression) {
+			try {
+				return task.countAvailableTotalData();
+			} catch (IOException e) {
+				// some of the input data has not been produced yet
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Determines the amount of memory to request for a task of the given signature. If containers are sized per task and a sufficient number of tasks of this
+	 * signature has been executed, a high percentile of the observed peak memory usage multiplied by a safety factor is requested (rounded up to the next
+	 * increment). Otherwise, the configured container memory is requested. In either case, no more than the maximum memory of a container in the cluster is
+	 * requested.
+	 * 
+	 * @param taskId
+	 *            The signature of the task.
+	 * @return The amount of memory (in MB) to request.
+	 */
+	public int getMemory(long taskId) {
+		synchronized (resourceProfiles) {
+			ResourceProfile profile = resourceProfiles.get(taskId);
+			if (!sizeContainers || profile == null || profile.size() < sizingMinSamples) {
+				return Math.min(containerMemory, maxMemory);
+			}
+			int memory = (int) Math.ceil(profile.getMemory(sizingPercentile) * sizingSafetyFactor);
+			return Math.min(Math.max(1, (memory + sizingIncrement - 1) / sizingIncrement) * sizingIncrement, maxMemory);
+		}
+	}
+
+	/**
+	 * @return The delay-scheduling policy, which keeps track of the skipped container offers and the locality of assigned tasks (null until the scheduler has
+	 *         been initialized).
+	 */
+	public DelayScheduling getDelayScheduling() {
+		return delayScheduling;
+	}
+
+	/**
+	 * Determines the first task from the given collection whose resource requirements are met by the given container. If there is no such task, the first task
+	 * is returned.
+	 * 
+	 * @param tasks
+	 *            A non-empty collection of tasks.
+	 * @param container
+	 *            The container on which the task is to be executed.
+	 * @return The task.
+	 */
+	protected TaskInstance getFittingTask(Collection<TaskInstance> tasks, Container container) {
+		for (TaskInstance task : tasks) {
+			if (fits(task.getTaskId(), container)) {
+				return task;
+			}
+		}
+		return tasks.iterator().next();
+	}
+
+	/**
+	 * Determines the proximity of a node to the input data of a task, based on the block locations of its input files and the racks of the nodes storing them.
+	 * 
+	 * @param task
+	 *            The task.
+	 * @param nodeId
+	 *            The host name of the node.
+	 * @return The locality of a container on the node for the task.
+	 */
+	protected DelayScheduling.Locality getLocality(TaskInstance task, String nodeId) {
+		Map<String, Long> bytesPerHost;
+		try {
+			bytesPerHost = task.countAvailableLocalDataPerHost();
+		} catch (IOException e) {
+			System.err.println("Error during hdfs block location determination.");
+			e.printStackTrace();
+			return DelayScheduling.Locality.OFF_SWITCH;
+		}
+		if (bytesPerHost.isEmpty() || bytesPerHost.containsKey(nodeId)) {
+			return DelayScheduling.Locality.NODE_LOCAL;
+		}
+		String rack = nodeMembership != null ? nodeMembership.getRack(nodeId) : null;
+		if (rack != null) {
+			for (String host : bytesPerHost.keySet()) {
+				if (rack.equals(nodeMembership.getRack(host))) {
+					return DelayScheduling.Locality.RACK_LOCAL;
+				}
+			}
+		}
+		return DelayScheduling.Locality.OFF_SWITCH;
+	}
+
+	public NodeRequest getNextNodeRequest() {
 		return unissuedNodeRequests.remove();
 	}
 
+	/**
+	 * Assigns a ready task to an allocated container.
+	 * 
+	 * @param container
+	 *            The container.
+	 * @return The task to be executed on the container or null if the container is declined (e.g., since the ready tasks wait for containers closer to their
+	 *         input data).
+	 */
 	public abstract TaskInstance getNextTask(Container container);
 
+	/**
+	 * Waits for the next node request to be issued by the scheduler.
+	 * 
+	 * @param timeout
+	 *            The maximum time to wait.
+	 * @param unit
+	 *            The time unit of the timeout argument.
+	 * @return The next node request or null if the specified waiting time elapses before a request is available.
+	 * @throws InterruptedException
+	 *             InterruptedException
+	 */
+	public NodeRequest pollNextNodeRequest(long timeout, TimeUnit unit) throws InterruptedException {
+		return unissuedNodeRequests.poll(timeout, unit);
+	}
+
+	/**
+	 * Retrieves (and removes) the next node request that has been revoked after having been issued to the application master.
+	 * 
+	 * @return The revoked node request or null if there is none.
+	 */
+	public NodeRequest pollRevokedNodeRequest() {
+		return revokedNodeRequests.poll();
+	}
+
+	/**
+	 * Determines the expected runtime of a task on a node, based on the runtimes of tasks of the same signature observed so far.
+	 * 
+	 * @param taskId
+	 *            The signature of the task.
+	 * @param nodeId
+	 *            The node on which the task is to be executed.
+	 * @return The expected runtime in ms or -1 if no tasks of this signature have finished yet.
+	 */
+	public long getEstimatedRuntime(long taskId, String nodeId) {
+		return getEstimatedRuntime(taskId, nodeId, -1);
+	}
+
+	/**
+	 * Determines the expected runtime of a task on a node for the given size of its input data.
+	 * 
+	 * @param taskId
+	 *            The signature of the task.
+	 * @param nodeId
+	 *            The node on which the task is to be executed.
+	 * @param inputBytes
+	 *            The size of the task's input data, as determined by {@link #getInputBytes(TaskInstance)}, or -1 if it is not taken into account.
+	 * @return The expected runtime in ms or -1 if no tasks of this signature have finished yet.
+	 */
+	protected long getEstimatedRuntime(long taskId, String nodeId, long inputBytes) {
+		int task = runtimeEstimates.getTaskIndex(taskId);
+		if (task < 0) {
+			return -1;
+		}
+		int node = runtimeEstimates.getNodeIndex(nodeId);
+		if (node >= 0 && runtimeEstimates.getFinishedTasks(node, task) > 0) {
+			return inputBytes < 0 ? runtimeEstimates.getEstimate(node, task) : runtimeEstimates.getEstimator(node, task).getEstimate(inputBytes);
+		}
+		// weigh the estimates of all other nodes by the number of tasks they are based on
+		double weightedEstimates = 0;
+		int finishedTasks = 0;
+		for (int i = 0; i < runtimeEstimates.getNumberOfNodes(); i++) {
+			int finished = runtimeEstimates.getFinishedTasks(i, task);
+			if (finished > 0) {
+				weightedEstimates += (double) finished
+						* (inputBytes < 0 ? runtimeEstimates.getEstimate(i, task) : runtimeEstimates.getEstimator(i, task).getEstimate(inputBytes));
+				finishedTasks += finished;
+			}
+		}
+		return finishedTasks > 0 ? Math.round(weightedEstimates / finishedTasks) : -1;
+	}
+
+	/**
+	 * Determines the expected runtime of a task on a node, taking into account the size of its input data if all of its input data is available in HDFS
+	 * (which matters only if the runtime estimator models the dependency of runtimes on the size of input data).
+	 * 
+	 * @param task
+	 *            The task.
+	 * @param nodeId
+	 *            The node on which the task is to be executed.
+	 * @return The expected runtime in ms or -1 if no tasks of this signature have finished yet.
+	 */
+	public long getEstimatedRuntime(TaskInstance task, String nodeId) {
+		return getEstimatedRuntime(task.getTaskId(), nodeId, getInputBytes(task));
+	}
+
+	/**
+	 * Removes a ready task of the same signature as the given task from the queue, such that it can be fused with the given task (i.e., executed right
+	 * afterwards on the same container).
+	 * 
+	 * @param task
+	 *            The task which has been executed on the container.
+	 * @param container
+	 *            The container on which the task has been executed.
+	 * @return The task to be executed next on the container or null if there is no such task (or this scheduler does not support task fusion).
+	 */
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		return null;
+	}
+
+	/**
+	 * Removes the first task of the same signature as the given task from the given ready tasks and assigns it to the container for fusion.
+	 * 
+	 * @param task
+	 *            The task which has been executed on the container.
+	 * @param tasks
+	 *            The ready tasks, in the order in which they are to be considered.
+	 * @param container
+	 *            The container on which the task has been executed.
+	 * @return The task to be executed next on the container or null if there is no ready task of the same signature.
+	 */
+	@SuppressWarnings("deprecation")
+	protected TaskInstance getNextFusableTask(TaskInstance task, Collection<TaskInstance> tasks, Container container) {
+		for (TaskInstance fusableTask : tasks) {
+			if (fusableTask.getTaskId() == task.getTaskId()) {
+				tasks.remove(fusableTask);
+				numberOfRemainingTasks--;
+				numberOfRunningTasks++;
+				System.out.println("Assigned task " + fusableTask + " to container " + container.getId().getId() + " for fusion with task " + task);
+				fusableTask.incTries();
+				return fusableTask;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return A read-only view of the nodes for which runtime estimates are kept.
+	 */
 	protected Set<String> getNodeIds() {
-		return new HashSet<>(runtimeEstimatesPerNode.keySet());
+		return runtimeEstimates.getNodeIds();
+	}
+
+	/**
+	 * @return The number of containers the scheduler currently has use for (by default, one per ready task). The application master withdraws outstanding
+	 *         container requests in excess of this number.
+	 */
+	public int getNumberOfContainersNeeded() {
+		return getNumberOfReadyTasks();
 	}
 
 	public int getNumberOfFinishedTasks() {
@@ -136,6 +583,10 @@ public abstract class Scheduler {
 		return numberOfRunningTasks;
 	}
 
+	public int getNumberOfUnissuedNodeRequests() {
+		return unissuedNodeRequests.size();
+	}
+
 	public int getNumberOfTotalTasks() {
 		int fin = getNumberOfFinishedTasks();
 		int run = getNumberOfRunningTasks();
@@ -148,8 +599,31 @@ public abstract class Scheduler {
 		return fin + run + rem;
 	}
 
+	/**
+	 * @return A read-only view of the task signatures for which runtime estimates are kept.
+	 */
 	protected Set<Long> getTaskIds() {
-		return new HashSet<>(taskIds);
+		return runtimeEstimates.getTaskIds();
+	}
+
+	/**
+	 * Determines the number of virtual cores to request for a task of the given signature. If containers are sized per task and a sufficient number of tasks
+	 * of this signature has been executed, a high percentile of the observed average number of cores used is requested (rounded to the nearest integer, since
+	 * CPU time is a compressible resource). Otherwise, the configured number of virtual cores is requested. In either case, no more than the maximum number
+	 * of virtual cores of a container in the cluster is requested.
+	 * 
+	 * @param taskId
+	 *            The signature of the task.
+	 * @return The number of virtual cores to request.
+	 */
+	public int getVirtualCores(long taskId) {
+		synchronized (resourceProfiles) {
+			ResourceProfile profile = resourceProfiles.get(taskId);
+			if (!sizeContainers || profile == null || profile.size() < sizingMinSamples) {
+				return Math.min(containerCores, maxCores);
+			}
+			return Math.min(Math.max(1, (int) Math.round(profile.getCores(sizingPercentile))), maxCores);
+		}
 	}
 
 	public boolean hasNextNodeRequest() {
@@ -158,6 +632,25 @@ public abstract class Scheduler {
 
 	public void initialize() {
 		maxRetries = conf.getInt(HiWayConfiguration.HIWAY_AM_TASK_RETRIES, HiWayConfiguration.HIWAY_AM_TASK_RETRIES_DEFAULT);
+		estimatesRefreshInterval = conf.getInt(HiWayConfiguration.HIWAY_AM_ESTIMATES_REFRESH_INTERVAL,
+				HiWayConfiguration.HIWAY_AM_ESTIMATES_REFRESH_INTERVAL_DEFAULT);
+		estimator = HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_OPTS.valueOf(conf.get(HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR,
+				HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_DEFAULT.toString()));
+		estimatorAlpha = conf.getFloat(HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_EWMA_ALPHA, HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_EWMA_ALPHA_DEFAULT);
+		estimatorQuantile = conf.getFloat(HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_QUANTILE, HiWayConfiguration.HIWAY_SCHEDULER_ESTIMATOR_QUANTILE_DEFAULT);
+
+		containerMemory = conf.getInt(HiWayConfiguration.HIWAY_WORKER_MEMORY, HiWayConfiguration.HIWAY_WORKER_MEMORY_DEFAULT);
+		containerCores = conf.getInt(HiWayConfiguration.HIWAY_WORKER_VCORES, HiWayConfiguration.HIWAY_WORKER_VCORES_DEFAULT);
+		sizeContainers = conf.getBoolean(HiWayConfiguration.HIWAY_WORKER_SIZING, HiWayConfiguration.HIWAY_WORKER_SIZING_DEFAULT);
+		sizingIncrement = Math.max(1, conf.getInt(HiWayConfiguration.HIWAY_WORKER_SIZING_INCREMENT, HiWayConfiguration.HIWAY_WORKER_SIZING_INCREMENT_DEFAULT));
+		sizingMinSamples = conf.getInt(HiWayConfiguration.HIWAY_WORKER_SIZING_MIN_SAMPLES, HiWayConfiguration.HIWAY_WORKER_SIZING_MIN_SAMPLES_DEFAULT);
+		sizingPercentile = conf.getInt(HiWayConfiguration.HIWAY_WORKER_SIZING_PERCENTILE, HiWayConfiguration.HIWAY_WORKER_SIZING_PERCENTILE_DEFAULT);
+		sizingSafetyFactor = conf.getFloat(HiWayConfiguration.HIWAY_WORKER_SIZING_SAFETY_FACTOR, HiWayConfiguration.HIWAY_WORKER_SIZING_SAFETY_FACTOR_DEFAULT);
+		sizingWindow = conf.getInt(HiWayConfiguration.HIWAY_WORKER_SIZING_WINDOW, HiWayConfiguration.HIWAY_WORKER_SIZING_WINDOW_DEFAULT);
+		localityHints = conf.getInt(HiWayConfiguration.HIWAY_SCHEDULER_LOCALITY_HINTS, HiWayConfiguration.HIWAY_SCHEDULER_LOCALITY_HINTS_DEFAULT);
+		delayScheduling = new DelayScheduling(conf.getInt(HiWayConfiguration.HIWAY_SCHEDULER_DELAY_MAX_SKIPS,
+				HiWayConfiguration.HIWAY_SCHEDULER_DELAY_MAX_SKIPS_DEFAULT), conf.getInt(HiWayConfiguration.HIWAY_SCHEDULER_DELAY_MAX_DELAY,
+				HiWayConfiguration.HIWAY_SCHEDULER_DELAY_MAX_DELAY_DEFAULT));
 
 		HiWayConfiguration.HIWAY_DB_TYPE_OPTS dbType = HiWayConfiguration.HIWAY_DB_TYPE_OPTS.valueOf(conf.get(HiWayConfiguration.HIWAY_DB_TYPE,
 				HiWayConfiguration.HIWAY_DB_TYPE_DEFAULT.toString()));
@@ -224,26 +717,79 @@ public abstract class Scheduler {
 		}
 	}
 
+	/**
+	 * @param nodeId
+	 *            The host name of the node.
+	 * @return True if containers can be allocated on the node (or if the nodes of the cluster are not known).
+	 */
+	protected boolean isAvailable(String nodeId) {
+		return availableNodes == null || availableNodes.contains(nodeId);
+	}
+
+	/**
+	 * Informs the scheduler that containers can be allocated on a node from now on.
+	 * 
+	 * @param nodeId
+	 *            The host name of the node.
+	 */
+	public void nodeJoined(String nodeId) {
+		if (availableNodes == null) {
+			availableNodes = new HashSet<>();
+		}
+		if (availableNodes.add(nodeId)) {
+			System.out.println("Node " + nodeId + " has joined the cluster.");
+		}
+		if (!runtimeEstimates.containsNode(nodeId)) {
+			newHost(nodeId);
+		}
+	}
+
+	/**
+	 * Informs the scheduler that containers can no longer be allocated on a node (e.g., since it has become unhealthy or has been decommissioned).
+	 * 
+	 * @param nodeId
+	 *            The host name of the node.
+	 */
+	public void nodeLeft(String nodeId) {
+		if (availableNodes != null && availableNodes.remove(nodeId)) {
+			System.out.println("Node " + nodeId + " has left the cluster.");
+		}
+	}
+
 	protected void newHost(String nodeId) {
-		Map<Long, RuntimeEstimate> runtimeEstimates = new HashMap<>();
-		for (long taskId : getTaskIds()) {
-			runtimeEstimates.put(taskId, new RuntimeEstimate());
+		runtimeEstimates.addNode(nodeId);
+	}
+
+	protected RuntimeEstimator newRuntimeEstimator() {
+		switch (estimator) {
+		case ewma:
+			return new EwmaEstimator(estimatorAlpha);
+		case quantile:
+			return new QuantileEstimator(estimatorQuantile);
+		case regression:
+			return new InputSizeRegressionEstimator();
+		default:
+			return new MeanEstimator();
 		}
-		runtimeEstimatesPerNode.put(nodeId, runtimeEstimates);
-		maxTimestampPerHost.put(nodeId, 0l);
 	}
 
 	protected void newTask(long taskId) {
-		taskIds.add(taskId);
-		for (Map<Long, RuntimeEstimate> runtimeEstimates : runtimeEstimatesPerNode.values()) {
-			runtimeEstimates.put(taskId, new RuntimeEstimate());
-		}
+		runtimeEstimates.addTask(taskId);
 	}
 
 	public boolean nothingToSchedule() {
 		return getNumberOfReadyTasks() == 0;
 	}
 
+	/**
+	 * @param nodeId
+	 *            The host name of a node.
+	 * @return True if there is no ready task that could be assigned to a container on the node.
+	 */
+	public boolean nothingToSchedule(String nodeId) {
+		return nothingToSchedule();
+	}
+
 	protected void parseLogs() {
 		String hdfsBaseDirectoryName = conf.get(HiWayConfiguration.HIWAY_AM_DIRECTORY_BASE, HiWayConfiguration.HIWAY_AM_DIRECTORY_BASE_DEFAULT);
 		String hdfsSandboxDirectoryName = conf.get(HiWayConfiguration.HIWAY_AM_DIRECTORY_CACHE, HiWayConfiguration.HIWAY_AM_DIRECTORY_CACHE_DEFAULT);
@@ -278,10 +824,84 @@ public abstract class Scheduler {
 		}
 	}
 
+	/**
+	 * Refreshes the runtime estimates from the provenance database if the configured refresh interval has elapsed since the last refresh. This allows picking
+	 * up invocations logged by concurrently running workflows, whereas the invocations of this workflow are accounted for as they complete.
+	 * 
+	 * @param runId
+	 *            The id of the current run.
+	 */
+	protected void refreshRuntimeEstimates(String runId) {
+		if (estimatesRefreshInterval > 0 && System.currentTimeMillis() - lastEstimatesRefresh >= estimatesRefreshInterval) {
+			updateRuntimeEstimates(runId);
+		}
+	}
+
 	public boolean relaxLocality() {
 		return relaxLocality;
 	}
 
+	/**
+	 * Revokes a request for a container on the given nodes, since the task it has been issued for is no longer to be executed there. If the request has not been
+	 * issued to the application master yet, it is discarded right away.
+	 * 
+	 * @param nodes
+	 *            The nodes on which the container has been requested.
+	 * @param task
+	 *            The task for which the container has been requested.
+	 */
+	protected void revokeNodeRequest(String[] nodes, TaskInstance task) {
+		Iterator<NodeRequest> iterator = unissuedNodeRequests.iterator();
+		while (iterator.hasNext()) {
+			if (Arrays.equals(iterator.next().nodes, nodes)) {
+				iterator.remove();
+				return;
+			}
+		}
+		revokedNodeRequests.add(new NodeRequest(nodes, getMemory(task.getTaskId()), getVirtualCores(task.getTaskId())));
+	}
+
+	/**
+	 * Informs the scheduler of the nodes that are available when the workflow is started. Nodes known from previous runs that are not among them are treated
+	 * as having left the cluster.
+	 * 
+	 * @param nodeIds
+	 *            The host names of the available nodes.
+	 */
+	public void setAvailableNodes(Collection<String> nodeIds) {
+		availableNodes = new HashSet<>();
+		for (String nodeId : nodeIds) {
+			nodeJoined(nodeId);
+		}
+		for (String nodeId : new ArrayList<>(getNodeIds())) {
+			if (!availableNodes.contains(nodeId)) {
+				nodeLeft(nodeId);
+			}
+		}
+	}
+
+	/**
+	 * Informs the scheduler of the maximum resources of a container in the cluster, such that the resources requested for a task (and required of a container
+	 * the task is assigned to) do not exceed what the ResourceManager can allocate.
+	 * 
+	 * @param capability
+	 *            The maximum resource capability, as reported by the ResourceManager upon registration.
+	 */
+	public void setMaximumCapability(Resource capability) {
+		synchronized (resourceProfiles) {
+			maxMemory = capability.getMemory();
+			maxCores = capability.getVirtualCores();
+		}
+	}
+
+	public void setNodeMembership(NodeMembership nodeMembership) {
+		this.nodeMembership = nodeMembership;
+	}
+
+	public void setTaskCache(TaskCache taskCache) {
+		this.taskCache = taskCache;
+	}
+
 	@SuppressWarnings("deprecation")
 	public Collection<ContainerId> taskCompleted(TaskInstance task, ContainerStatus containerStatus, long runtimeInMs) {
 
@@ -309,15 +929,106 @@ public abstract class Scheduler {
 		return new ArrayList<>();
 	}
 
+	/**
+	 * Accounts for a task that is not executed, since its outputs have been found in the task cache.
+	 * 
+	 * @param task
+	 *            The task found in the cache.
+	 */
+	protected void taskMemoized(TaskInstance task) {
+		numberOfRemainingTasks--;
+		numberOfFinishedTasks++;
+	}
+
+	protected void updateResourceProfile(JsonReportEntry entry) {
+		try {
+			JSONObject value = entry.getValueJsonObj();
+			long realTime = value.getLong(JsonReportEntry.LABEL_REALTIME);
+			long cpuTime = value.getLong(HiwayDBI.LABEL_CPUTIME);
+			long peakRss = value.getLong(HiwayDBI.LABEL_PEAKRSS);
+			synchronized (resourceProfiles) {
+				if (!resourceProfiles.containsKey(entry.getTaskId())) {
+					resourceProfiles.put(entry.getTaskId(), new ResourceProfile(sizingWindow));
+				}
+				resourceProfiles.get(entry.getTaskId()).add((peakRss + (1 << 20) - 1) >> 20, realTime > 0 ? (double) cpuTime / realTime : 0d);
+			}
+		} catch (JSONException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+	/**
+	 * Updates the runtime estimates with the invocation of a task that has just completed, as described by the report already held in memory, such that the
+	 * provenance database does not have to be queried.
+	 * 
+	 * @param task
+	 *            The completed task.
+	 * @param hostName
+	 *            The node on which the task has been executed.
+	 * @param runtimeInMs
+	 *            The runtime of the task as observed by the AM, which is used if the report lacks the runtime measured by the Worker.
+	 */
+	protected void updateRuntimeEstimate(TaskInstance task, String hostName, long runtimeInMs) {
+		InvocStat stat = new InvocStat(System.currentTimeMillis(), runtimeInMs, task.getWorkflowId().toString(), task.getTaskId(), hostName);
+		for (JsonReportEntry entry : task.getReport()) {
+			String fileName = entry.getFile();
+			try {
+				switch (entry.getKey()) {
+				case JsonReportEntry.KEY_INVOC_TIME:
+					stat.setRealTime(entry.getValueJsonObj().getLong(JsonReportEntry.LABEL_REALTIME), entry.getTimestamp());
+					break;
+				case JsonReportEntry.KEY_FILE_SIZE_STAGEIN:
+					getInputFile(stat, fileName).setSize(Long.parseLong(entry.getValueRawString()));
+					break;
+				case HiwayDBI.KEY_FILE_TIME_STAGEIN:
+					getInputFile(stat, fileName).setRealTime(entry.getValueJsonObj().getLong(JsonReportEntry.LABEL_REALTIME));
+					break;
+				case JsonReportEntry.KEY_FILE_SIZE_STAGEOUT:
+					if (!stat.containsOutputFile(fileName)) {
+						stat.addOutputFile(new FileStat(fileName));
+					}
+					stat.getOutputFile(fileName).setSize(Long.parseLong(entry.getValueRawString()));
+					break;
+				default:
+				}
+			} catch (JSONException e) {
+				e.printStackTrace();
+				System.exit(-1);
+			}
+		}
+		if (!runtimeEstimates.containsNode(hostName)) {
+			newHost(hostName);
+		}
+		if (!runtimeEstimates.containsTask(task.getTaskId())) {
+			newTask(task.getTaskId());
+		}
+		updateRuntimeEstimate(stat);
+	}
+
 	protected void updateRuntimeEstimate(InvocStat stat) {
-		RuntimeEstimate re = runtimeEstimatesPerNode.get(stat.getHostName()).get(stat.getTaskId());
-		re.finishedTasks += 1;
-		re.timeSpent += stat.getRealTime();
-		re.weight = re.averageRuntime = re.timeSpent / re.finishedTasks;
+		// the total size of the input data or -1 if the size of any input file is unknown
+		long inputBytes = 0;
+		for (FileStat inputFile : stat.getInputFiles()) {
+			if (inputFile.getSize() == null) {
+				inputBytes = -1;
+				break;
+			}
+			inputBytes += inputFile.getSize();
+		}
+
+		int node = runtimeEstimates.getNodeIndex(stat.getHostName());
+		int task = runtimeEstimates.getTaskIndex(stat.getTaskId());
+		if (runtimeEstimates.getEstimator(node, task) == null) {
+			runtimeEstimates.setEstimator(node, task, newRuntimeEstimator());
+		}
+		runtimeEstimates.addObservation(node, task, stat.getRealTime(), inputBytes);
+		transferStatistics.addInvocation(stat);
 	}
 
-	public void updateRuntimeEstimates(String runId) {
+	public void updateRuntimeEstimates(final String runId) {
 		System.out.println("Updating Runtime Estimates.");
+		lastEstimatesRefresh = System.currentTimeMillis();
 
 		System.out.println("HiwayDB: Querying Host Names from database.");
 		Collection<String> newHostIds = dbInterface.getHostNames();
@@ -335,24 +1046,26 @@ public abstract class Scheduler {
 			newTask(newTaskId);
 		}
 
-		for (String hostName : getNodeIds()) {
-			long oldMaxTimestamp = maxTimestampPerHost.get(hostName);
-			long newMaxTimestamp = oldMaxTimestamp;
-			for (long taskId : getTaskIds()) {
-				System.out.println("HiwayDB: Querying InvocStats for task id " + taskId + " on host " + hostName + " since timestamp " + oldMaxTimestamp
-						+ " from database.");
-				Collection<InvocStat> invocStats = dbInterface.getLogEntriesForTaskOnHostSince(taskId, hostName, oldMaxTimestamp);
-				System.out.println("HiwayDB: Retrieved InvocStats " + invocStats.toString() + " from database.");
-				for (InvocStat stat : invocStats) {
-					newMaxTimestamp = Math.max(newMaxTimestamp, stat.getTimestamp());
+		System.out.println("HiwayDB: Querying InvocStats for workflow " + workflowName + " since timestamp " + maxTimestamp + " from database.");
+		dbInterface.getLogEntriesForWorkflowSince(workflowName, maxTimestamp, new InvocStatHandler() {
+			@Override
+			public void handle(InvocStat stat) {
+				// the invocation might belong to a task that has been added to the database since the task ids were queried
+				if (!runtimeEstimates.containsTask(stat.getTaskId())) {
+					return;
+				}
+				maxTimestamp = Math.max(maxTimestamp, stat.getTimestamp());
+				if (!runtimeEstimates.containsNode(stat.getHostName())) {
+					newHost(stat.getHostName());
+				}
+				// the invocations of the current run have already been accounted for upon their completion
+				if (!runId.equals(stat.getRunId())) {
 					updateRuntimeEstimate(stat);
-					if (!runId.equals(stat.getRunId())) {
-						numberOfPreviousRunTasks++;
-						numberOfFinishedTasks++;
-					}
+					numberOfPreviousRunTasks++;
+					numberOfFinishedTasks++;
 				}
 			}
-			maxTimestampPerHost.put(hostName, newMaxTimestamp);
-		}
+		});
+		System.out.println("HiwayDB: Retrieved InvocStats from database.");
 	}
 }
@@ -32,8 +32,10 @@
  ******************************************************************************/
 package de.huberlin.wbi.hiway.scheduler;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 
@@ -52,8 +54,11 @@ import de.huberlin.wbi.hiway.common.TaskInstance;
  */
 public abstract class StaticScheduler extends Scheduler {
 
-	// the tasks per compute node that are ready to execute
+	// the tasks per compute node that are ready to execute; only nodes on which containers can be allocated are assigned a queue
 	protected Map<String, Queue<TaskInstance>> queues;
+	// whether the schedule is to be revised if the actual runtime of a task deviates from its planned runtime by more than the given fraction
+	protected boolean replan;
+	protected float replanDeviation;
 
 	// the static schedule
 	protected Map<TaskInstance, String> schedule;
@@ -63,19 +68,14 @@ public abstract class StaticScheduler extends Scheduler {
 		schedule = new HashMap<>();
 		queues = new HashMap<>();
 		relaxLocality = false;
-
-		for (String node : runtimeEstimatesPerNode.keySet()) {
-			Queue<TaskInstance> queue = new LinkedList<>();
-			queues.put(node, queue);
-		}
 	}
 
 	@Override
-	public void addTaskToQueue(TaskInstance task) {
+	protected void enqueueTask(TaskInstance task) {
 		String node = schedule.get(task);
 		String[] nodes = new String[1];
 		nodes[0] = node;
-		unissuedNodeRequests.add(nodes);
+		addNodeRequest(nodes, task);
 		queues.get(node).add(task);
 		System.out.println("Added task " + task + " to queue " + node);
 	}
@@ -83,14 +83,21 @@ public abstract class StaticScheduler extends Scheduler {
 	@SuppressWarnings("deprecation")
 	@Override
 	public TaskInstance getNextTask(Container container) {
-		numberOfRemainingTasks--;
-		numberOfRunningTasks++;
 		String node = container.getNodeId().getHost();
+		Queue<TaskInstance> queue = queues.get(node);
 
 		System.out.println("Looking for task on container " + container.getId().getId() + " on node " + node);
-		System.out.println("Queue: " + queues.get(node).toString());
+		System.out.println("Queue: " + queue);
 
-		TaskInstance task = queues.get(node).remove();
+		// the tasks of the node might have been moved to other nodes while the container was being allocated, in which case the container is declined
+		TaskInstance task = (queue == null || queue.isEmpty()) ? null : getFittingTask(queue, container);
+		if (task == null || !fits(task.getTaskId(), container)) {
+			System.out.println("No task fits into container " + container.getId().getId() + " on node " + node);
+			return null;
+		}
+		queue.remove(task);
+		numberOfRemainingTasks--;
+		numberOfRunningTasks++;
 
 		System.out.println("Assigned task " + task + " to container " + container.getId().getId() + " on node " + node);
 		task.incTries();
@@ -98,6 +105,12 @@ public abstract class StaticScheduler extends Scheduler {
 		return task;
 	}
 
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		Queue<TaskInstance> queue = queues.get(container.getNodeId().getHost());
+		return (queue == null) ? null : getNextFusableTask(task, queue, container);
+	}
+
 	@Override
 	public int getNumberOfReadyTasks() {
 		int readyTasks = 0;
@@ -107,4 +120,95 @@ public abstract class StaticScheduler extends Scheduler {
 		return readyTasks;
 	}
 
+	@Override
+	public void initialize() {
+		super.initialize();
+		replan = conf.getBoolean(HiWayConfiguration.HIWAY_SCHEDULER_REPLAN, HiWayConfiguration.HIWAY_SCHEDULER_REPLAN_DEFAULT);
+		replanDeviation = conf.getFloat(HiWayConfiguration.HIWAY_SCHEDULER_REPLAN_DEVIATION, HiWayConfiguration.HIWAY_SCHEDULER_REPLAN_DEVIATION_DEFAULT);
+	}
+
+	/**
+	 * Assigns a task that has not been started yet to a different node. If the task is ready to execute already, it is moved to the queue of the new node and
+	 * the request for a container on its previous node is replaced by a request for a container on the new node.
+	 * 
+	 * @param task
+	 *            The task to be moved.
+	 * @param node
+	 *            The node to which the task is assigned.
+	 */
+	protected void moveTask(TaskInstance task, String node) {
+		String previousNode = schedule.put(task, node);
+		if (node.equals(previousNode)) {
+			return;
+		}
+		System.out.println("Task " + task + " moved from node " + previousNode + " to node " + node);
+		Queue<TaskInstance> previousQueue = queues.get(previousNode);
+		if (previousQueue != null && previousQueue.remove(task)) {
+			revokeNodeRequest(new String[] { previousNode }, task);
+			enqueueTask(task);
+		}
+	}
+
+	@Override
+	protected void newHost(String nodeId) {
+		super.newHost(nodeId);
+		if (isAvailable(nodeId)) {
+			queues.put(nodeId, new LinkedList<TaskInstance>());
+		}
+	}
+
+	@Override
+	public void nodeJoined(String nodeId) {
+		super.nodeJoined(nodeId);
+		// the node might be known from previous runs or have left the cluster before
+		if (!queues.containsKey(nodeId)) {
+			queues.put(nodeId, new LinkedList<TaskInstance>());
+		}
+	}
+
+	@Override
+	public void nodeLeft(String nodeId) {
+		super.nodeLeft(nodeId);
+		Queue<TaskInstance> queue = queues.remove(nodeId);
+		if (queue == null) {
+			return;
+		}
+		if (queues.isEmpty()) {
+			System.out.println("No other node available. Keeping tasks assigned to node " + nodeId + ".");
+			queues.put(nodeId, queue);
+			return;
+		}
+
+		// the tasks assigned to the node that have not been started yet are either waiting in its queue or not yet ready to execute
+		List<TaskInstance> tasks = new ArrayList<>(queue);
+		for (Map.Entry<TaskInstance, String> entry : schedule.entrySet()) {
+			if (nodeId.equals(entry.getValue()) && !entry.getKey().readyToExecute()) {
+				tasks.add(entry.getKey());
+			}
+		}
+		System.out.println("Rescheduling " + tasks.size() + " tasks assigned to node " + nodeId + ".");
+		for (TaskInstance task : queue) {
+			revokeNodeRequest(new String[] { nodeId }, task);
+		}
+		rescheduleTasks(tasks);
+		for (TaskInstance task : queue) {
+			enqueueTask(task);
+		}
+	}
+
+	// only the tasks in the queue of the node can be assigned to a container on the node
+	@Override
+	public boolean nothingToSchedule(String nodeId) {
+		Queue<TaskInstance> queue = queues.get(nodeId);
+		return queue == null || queue.isEmpty();
+	}
+
+	/**
+	 * Assigns tasks that have not been started yet to one of the nodes that have a queue (e.g., since the node they have been assigned to has left the cluster).
+	 * 
+	 * @param tasks
+	 *            The tasks to be assigned to other nodes.
+	 */
+	protected abstract void rescheduleTasks(List<TaskInstance> tasks);
+
 }
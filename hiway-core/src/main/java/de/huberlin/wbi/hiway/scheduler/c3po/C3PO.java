@@ -36,12 +36,16 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Random;
 
@@ -53,8 +57,6 @@ import org.apache.hadoop.yarn.api.records.ContainerStatus;
 import de.huberlin.hiwaydb.useDB.InvocStat;
 import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.TaskInstance;
-import de.huberlin.wbi.hiway.scheduler.Estimate;
-import de.huberlin.wbi.hiway.scheduler.RuntimeEstimate;
 import de.huberlin.wbi.hiway.scheduler.Scheduler;
 
 /**
@@ -192,22 +194,37 @@ import de.huberlin.wbi.hiway.scheduler.Scheduler;
  */
 public class C3PO extends Scheduler {
 
-	private static void normalizeWeights(Collection<? extends Estimate> statistics) {
+	private static double[] ensureCapacity(double[] weights, int n) {
+		return (weights.length < n) ? Arrays.copyOf(weights, Math.max(n, 2 * weights.length)) : weights;
+	}
+
+	private static void normalizeWeights(double[] weights, int n) {
 		double sum = 0d;
-		for (Estimate statistic : statistics)
-			sum += statistic.weight;
-		for (Estimate statistic : statistics)
-			statistic.weight /= (sum != 0d) ? sum : statistics.size();
+		for (int i = 0; i < n; i++)
+			sum += weights[i];
+		for (int i = 0; i < n; i++)
+			weights[i] /= (sum != 0d) ? sum : n;
 	}
 
+	// the weights of the current decision by task index; these arrays are reused across decisions
+	private double[] combinedWeights = new double[0];
 	private double conservatismWeight = 1d;
+	private double[] conservatismWeights = new double[0];
+	// the unnormalized suitability of each node (first index) for each task (second index), indexed as in the runtime estimates, i.e., the inverse of the
+	// runtime estimate or Long.MAX_VALUE if the node has not executed the task yet; this value only changes when a runtime estimate is updated, as does the sum
+	// of each task's column across all nodes
+	private double[][] conservatismPerNode = new double[0][];
+	private double[] conservatismSums = new double[0];
 	protected Map<Long, PlacementAwarenessEstimate> dataLocalityStatistics;
+	private boolean debug = false;
 	private final DecimalFormat df;
 	protected Map<Long, OutlookEstimate> jobStatistics;
 	private int nClones = 0;
 	private final Random numGen;
 	private double outlookWeight = 1d;
+	private double[] outlookWeights = new double[0];
 	private double placementAwarenessWeight = 1d;
+	private double[] placementAwarenessWeights = new double[0];
 	// One queue of ready-to-execute tasks for each job, identified by its unique job name.
 	protected Map<Long, Queue<TaskInstance>> readyTasks;
 	protected Map<Long, Queue<TaskInstance>> runningTasks;
@@ -249,7 +266,7 @@ public class C3PO extends Scheduler {
 
 		numberOfRemainingTasks++;
 		long taskId = task.getTaskId();
-		if (!getTaskIds().contains(taskId)) {
+		if (!runtimeEstimates.containsTask(taskId)) {
 			newTask(taskId);
 			taskIdToName.put(taskId, task.getTaskName());
 			System.out.println("TaskId " + taskId + " (" + task.getTaskName() + ") to map.");
@@ -261,8 +278,8 @@ public class C3PO extends Scheduler {
 	}
 
 	@Override
-	public void addTaskToQueue(TaskInstance task) {
-		unissuedNodeRequests.add(new String[0]);
+	protected void enqueueTask(TaskInstance task) {
+		addLocalityHintedNodeRequest(task);
 		readyTasks.get(task.getTaskId()).add(task);
 		System.out.println("Added task " + task + " to queue " + task.getTaskName());
 	}
@@ -270,30 +287,35 @@ public class C3PO extends Scheduler {
 	/* Outlook: Zero probabiliy for tasks which are not currently ready (or - in the case of speculative execution - running) Equally high probability for tasks
 	 * which have not been executed by any node; if no such tasks exist, assign higher probabilites to tasks which contribute stronger to overall runtime */
 	private void computeJobStatisticsWeight(boolean replicate) {
-		for (long taskId : getTaskIds()) {
+		int nTasks = runtimeEstimates.getNumberOfTasks();
+		for (int i = 0; i < nTasks; i++) {
+			long taskId = runtimeEstimates.getTaskId(i);
 			OutlookEstimate jobStatistic = jobStatistics.get(taskId);
 			double avgRuntime = (jobStatistic.finishedTasks != 0) ? jobStatistic.timeSpent / jobStatistic.finishedTasks : 0d;
 			if ((replicate && runningTasks.get(taskId).size() == 0) || (!replicate && readyTasks.get(taskId).size() == 0)) {
-				jobStatistic.weight = 0;
+				outlookWeights[i] = 0;
 			} else if (avgRuntime == 0d) {
-				jobStatistic.weight = Long.MAX_VALUE;
+				outlookWeights[i] = Long.MAX_VALUE;
 			} else {
-				jobStatistic.weight = jobStatistic.remainingTasks;
+				outlookWeights[i] = jobStatistic.remainingTasks;
 				if (replicate)
-					jobStatistic.weight += runningTasks.get(taskId).size();
-				jobStatistic.weight *= avgRuntime;
+					outlookWeights[i] += runningTasks.get(taskId).size();
+				outlookWeights[i] *= avgRuntime;
 			}
 		}
-		normalizeWeights(jobStatistics.values());
-		printJobStatisticsWeight();
+		normalizeWeights(outlookWeights, nTasks);
+		if (debug)
+			printJobStatisticsWeight();
 	}
 
 	private void computePlacementAwarenessWeights(Container container, boolean replicate) {
-		for (long taskId : getTaskIds()) {
+		int nTasks = runtimeEstimates.getNumberOfTasks();
+		for (int i = 0; i < nTasks; i++) {
+			long taskId = runtimeEstimates.getTaskId(i);
 			Queue<TaskInstance> queue = replicate ? runningTasks.get(taskId) : readyTasks.get(taskId);
 			PlacementAwarenessEstimate dataLocalityStatistic = dataLocalityStatistics.get(taskId);
 			if (queue.size() == 0) {
-				dataLocalityStatistic.weight = 0d;
+				placementAwarenessWeights[i] = 0d;
 			} else {
 				TaskInstance task = queue.peek();
 				try {
@@ -301,33 +323,46 @@ public class C3PO extends Scheduler {
 					dataLocalityStatistic.localData = task.countAvailableLocalData(container) + 1;
 					/* in case of total data being zero (prevent division by zero) */
 					dataLocalityStatistic.totalData = task.countAvailableTotalData() + 1;
-					dataLocalityStatistic.weight = ((double) (dataLocalityStatistic.localData)) / ((double) dataLocalityStatistic.totalData);
+					placementAwarenessWeights[i] = ((double) (dataLocalityStatistic.localData)) / ((double) dataLocalityStatistic.totalData);
 				} catch (IOException e) {
 					System.err.println("Error during hdfs block location determination.");
 					e.printStackTrace();
-					dataLocalityStatistic.weight = 0d;
+					placementAwarenessWeights[i] = 0d;
 				}
 			}
 		}
-		normalizeWeights(dataLocalityStatistics.values());
-		printPlacementAwarenessWeights(replicate);
+		normalizeWeights(placementAwarenessWeights, nTasks);
+		if (debug)
+			printPlacementAwarenessWeights(replicate);
 	}
 
 	/* Conservatism: Equally high probability for tasks which this node has not executed yet; if no such tasks exist, assign higher probabilities to tasks which
 	 * this node is good at */
-	private void computeTaskStatisticsWeights() {
-		for (long taskId : getTaskIds()) {
-			Collection<RuntimeEstimate> taskStatistics = new ArrayList<>();
-			for (String nodeId : getNodeIds()) {
-				RuntimeEstimate taskStatistic = runtimeEstimatesPerNode.get(nodeId).get(taskId);
-				taskStatistic.weight = (taskStatistic.finishedTasks != 0) ? 1d / taskStatistic.averageRuntime : Long.MAX_VALUE;
-				taskStatistics.add(taskStatistic);
+	private void computeTaskStatisticsWeights(int node) {
+		int nTasks = runtimeEstimates.getNumberOfTasks();
+		int nNodes = runtimeEstimates.getNumberOfNodes();
+		for (int i = 0; i < nTasks; i++) {
+			conservatismWeights[i] = conservatismPerNode[node][i] / ((conservatismSums[i] != 0d) ? conservatismSums[i] : nNodes);
+		}
+		if (debug)
+			printTaskStatisticsWeights();
+		normalizeWeights(conservatismWeights, nTasks);
+	}
+
+	// tasks whose resource requirements are not met by the container are not considered, unless no other tasks are left to choose from
+	private void excludeUnfittingTasks(Container container) {
+		int nTasks = runtimeEstimates.getNumberOfTasks();
+		boolean fittingTaskLeft = false;
+		for (int i = 0; i < nTasks && !fittingTaskLeft; i++) {
+			fittingTaskLeft = combinedWeights[i] > 0d && fits(runtimeEstimates.getTaskId(i), container);
+		}
+		if (fittingTaskLeft) {
+			for (int i = 0; i < nTasks; i++) {
+				if (combinedWeights[i] > 0d && !fits(runtimeEstimates.getTaskId(i), container)) {
+					combinedWeights[i] = 0d;
+				}
 			}
-			normalizeWeights(taskStatistics);
 		}
-		printTaskStatisticsWeights();
-		for (String nodeId : getNodeIds())
-			normalizeWeights(runtimeEstimatesPerNode.get(nodeId).values());
 	}
 
 	@SuppressWarnings("deprecation")
@@ -335,46 +370,59 @@ public class C3PO extends Scheduler {
 	public TaskInstance getNextTask(Container container) {
 		TaskInstance task = null;
 
-		numberOfRemainingTasks--;
-		numberOfRunningTasks++;
-
 		boolean replicate = getNumberOfReadyTasks() == 0;
 
 		String nodeId = container.getNodeId().getHost();
-		if (!runtimeEstimatesPerNode.containsKey(nodeId)) {
+		if (!runtimeEstimates.containsNode(nodeId)) {
 			newHost(nodeId);
 		}
+		int node = runtimeEstimates.getNodeIndex(nodeId);
+		int nTasks = runtimeEstimates.getNumberOfTasks();
 
 		computeJobStatisticsWeight(replicate);
-		computeTaskStatisticsWeights();
-		computePlacementAwarenessWeights(container, replicate);
-
-		Map<Long, Estimate> combinedWeights = new HashMap<>();
-		for (long taskId : getTaskIds())
-			combinedWeights.put(taskId, new Estimate());
-		multiplyWeights(combinedWeights, runtimeEstimatesPerNode.get(nodeId), conservatismWeight);
-		multiplyWeights(combinedWeights, jobStatistics, outlookWeight);
-		multiplyWeights(combinedWeights, dataLocalityStatistics, placementAwarenessWeight);
-		normalizeWeights(combinedWeights.values());
-
-		System.out.println("Updated Decision Vector for node " + nodeId + ":");
-		System.out.println("\tConservatism (x" + (int) (conservatismWeight + 0.5d) + ")\t" + printWeights(runtimeEstimatesPerNode.get(nodeId)));
-		System.out.println("\tOutlook (x" + (int) (outlookWeight + 0.5d) + ")\t\t" + printWeights(jobStatistics));
-		System.out.println("\tPlacement (x" + (int) (placementAwarenessWeight + 0.5d) + ")\t\t" + printWeights(dataLocalityStatistics));
-		System.out.println("\tCombined\t\t" + printWeights(combinedWeights));
+		computeTaskStatisticsWeights(node);
+		// with a placement awareness weight of zero, the data locality of tasks does not affect the decision, so there is no need to determine it
+		if (placementAwarenessWeight != 0d)
+			computePlacementAwarenessWeights(container, replicate);
+
+		for (int i = 0; i < nTasks; i++) {
+			combinedWeights[i] = Math.pow(conservatismWeights[i], conservatismWeight) * Math.pow(outlookWeights[i], outlookWeight);
+			if (placementAwarenessWeight != 0d)
+				combinedWeights[i] *= Math.pow(placementAwarenessWeights[i], placementAwarenessWeight);
+		}
+		excludeUnfittingTasks(container);
+		normalizeWeights(combinedWeights, nTasks);
+
+		if (debug) {
+			System.out.println("Updated Decision Vector for node " + nodeId + ":");
+			System.out.println("\tConservatism (x" + (int) (conservatismWeight + 0.5d) + ")\t" + printWeights(conservatismWeights));
+			System.out.println("\tOutlook (x" + (int) (outlookWeight + 0.5d) + ")\t\t" + printWeights(outlookWeights));
+			if (placementAwarenessWeight != 0d)
+				System.out.println("\tPlacement (x" + (int) (placementAwarenessWeight + 0.5d) + ")\t\t" + printWeights(placementAwarenessWeights));
+			System.out.println("\tCombined\t\t" + printWeights(combinedWeights));
+		}
 
 		double sample = numGen.nextDouble();
 		double min = 0d;
-		for (long taskId : getTaskIds()) {
-			double max = min + combinedWeights.get(taskId).weight;
+		for (int i = 0; i < nTasks; i++) {
+			double max = min + combinedWeights[i];
 			if (sample < max) {
-				Queue<TaskInstance> queue = runningTasks.get(taskId);
-				if (!replicate) {
+				long taskId = runtimeEstimates.getTaskId(i);
+				if (replicate) {
+					task = runningTasks.get(taskId).remove();
+				} else {
+					// the sampled task might make way for a task whose input data is closer to the container (or the container might be declined)
+					task = applyDelayScheduling(readyTasks.get(taskId).peek(), getReadyTasks(), container);
+					if (task == null) {
+						return null;
+					}
+					taskId = task.getTaskId();
+					readyTasks.get(taskId).remove(task);
 					jobStatistics.get(taskId).remainingTasks--;
-					queue = readyTasks.get(taskId);
 				}
+				numberOfRemainingTasks--;
+				numberOfRunningTasks++;
 
-				task = queue.remove();
 				runningTasks.get(taskId).add(task);
 				if (!taskToContainers.containsKey(task)) {
 					taskToContainers.put(task, new ArrayList<Container>());
@@ -398,6 +446,35 @@ public class C3PO extends Scheduler {
 		return task;
 	}
 
+	@SuppressWarnings("deprecation")
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		long taskId = task.getTaskId();
+		TaskInstance fusableTask = readyTasks.get(taskId).poll();
+		if (fusableTask == null) {
+			return null;
+		}
+
+		numberOfRemainingTasks--;
+		numberOfRunningTasks++;
+		jobStatistics.get(taskId).remainingTasks--;
+		runningTasks.get(taskId).add(fusableTask);
+		if (!taskToContainers.containsKey(fusableTask)) {
+			taskToContainers.put(fusableTask, new ArrayList<Container>());
+		}
+		taskToContainers.get(fusableTask).add(container);
+
+		System.out.println("Assigned task " + fusableTask + " to container " + container.getId().getId() + " for fusion with task " + task);
+		fusableTask.incTries();
+		return fusableTask;
+	}
+
+	// speculative copies of running tasks are executed on the containers requested in addition to the ready tasks
+	@Override
+	public int getNumberOfContainersNeeded() {
+		return getNumberOfReadyTasks() + nClones;
+	}
+
 	@Override
 	public int getNumberOfReadyTasks() {
 		int nReadyTasks = 0;
@@ -427,6 +504,41 @@ public class C3PO extends Scheduler {
 		return fin + run + rem;
 	}
 
+	// a read-only view of the ready tasks of all signatures, which the delay-scheduling policy traverses only if it searches for tasks whose input data is
+	// close to a container
+	private Iterable<TaskInstance> getReadyTasks() {
+		return new Iterable<TaskInstance>() {
+			@Override
+			public Iterator<TaskInstance> iterator() {
+				final Iterator<Queue<TaskInstance>> queues = readyTasks.values().iterator();
+				return new Iterator<TaskInstance>() {
+					private Iterator<TaskInstance> tasks = Collections.emptyIterator();
+
+					@Override
+					public boolean hasNext() {
+						while (!tasks.hasNext() && queues.hasNext()) {
+							tasks = queues.next().iterator();
+						}
+						return tasks.hasNext();
+					}
+
+					@Override
+					public TaskInstance next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						return tasks.next();
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
 	public void init() {
 
 	}
@@ -434,32 +546,55 @@ public class C3PO extends Scheduler {
 	@Override
 	public void initialize() {
 		super.initialize();
+		debug = conf.getBoolean(HiWayConfiguration.HIWAY_SCHEDULER_DEBUG, HiWayConfiguration.HIWAY_SCHEDULER_DEBUG_DEFAULT);
 		System.out.println("HiwayDB: Querying Task Ids for workflow " + workflowName + " from database.");
 		Collection<Long> newTaskIds = dbInterface.getTaskIdsForWorkflow(workflowName);
 		System.out.println("HiwayDB: Retrieved Task Ids " + newTaskIds.toString() + " from database.");
-		for (long taskId : newTaskIds) {
-			System.out.println("HiwayDB: Querying Task Name for Task Id " + taskId + " from database.");
-			String taskName = dbInterface.getTaskName(taskId);
-			taskIdToName.put(taskId, taskName);
-			System.out.println("HiwayDB: Retrieved Task Name " + taskName + " from database.");
-		}
+		System.out.println("HiwayDB: Querying Task Names for Task Ids " + newTaskIds.toString() + " from database.");
+		Map<Long, String> taskNames = dbInterface.getTaskNames(newTaskIds);
+		taskIdToName.putAll(taskNames);
+		System.out.println("HiwayDB: Retrieved Task Names " + taskNames.values().toString() + " from database.");
 	}
 
-	private void multiplyWeights(Map<Long, Estimate> weights, Map<Long, ? extends Estimate> statistics, double factor) {
-		for (Long taskId : getTaskIds())
-			weights.get(taskId).weight *= Math.pow(statistics.get(taskId).weight, factor);
+	@Override
+	protected void newHost(String nodeId) {
+		super.newHost(nodeId);
+		int node = runtimeEstimates.getNodeIndex(nodeId);
+		if (conservatismPerNode.length <= node) {
+			conservatismPerNode = Arrays.copyOf(conservatismPerNode, Math.max(node + 1, 2 * conservatismPerNode.length));
+		}
+		int nTasks = runtimeEstimates.getNumberOfTasks();
+		conservatismPerNode[node] = new double[conservatismSums.length];
+		for (int i = 0; i < nTasks; i++) {
+			conservatismPerNode[node][i] = Long.MAX_VALUE;
+			updateConservatismSum(i);
+		}
 	}
 
 	@Override
 	protected void newTask(long taskId) {
 		super.newTask(taskId);
-		for (Map<Long, RuntimeEstimate> runtimeEstimates : runtimeEstimatesPerNode.values()) {
-			runtimeEstimates.put(taskId, new RuntimeEstimate());
-		}
 		jobStatistics.put(taskId, new OutlookEstimate());
 		dataLocalityStatistics.put(taskId, new PlacementAwarenessEstimate());
 		readyTasks.put(taskId, new LinkedList<TaskInstance>());
 		runningTasks.put(taskId, new LinkedList<TaskInstance>());
+
+		int task = runtimeEstimates.getTaskIndex(taskId);
+		int nTasks = task + 1;
+		if (conservatismSums.length < nTasks) {
+			conservatismSums = ensureCapacity(conservatismSums, nTasks);
+			for (int i = 0; i < runtimeEstimates.getNumberOfNodes(); i++) {
+				conservatismPerNode[i] = Arrays.copyOf(conservatismPerNode[i], conservatismSums.length);
+			}
+			combinedWeights = ensureCapacity(combinedWeights, nTasks);
+			conservatismWeights = ensureCapacity(conservatismWeights, nTasks);
+			outlookWeights = ensureCapacity(outlookWeights, nTasks);
+			placementAwarenessWeights = ensureCapacity(placementAwarenessWeights, nTasks);
+		}
+		for (int i = 0; i < runtimeEstimates.getNumberOfNodes(); i++) {
+			conservatismPerNode[i][task] = Long.MAX_VALUE;
+		}
+		updateConservatismSum(task);
 	}
 
 	@Override
@@ -474,13 +609,12 @@ public class C3PO extends Scheduler {
 		System.out.println("Updated Job Statistics:");
 
 		System.out.println("\t\t#finish\tavg\t#remain\t#ready\tshare");
-		for (long taskId : getTaskIds()) {
-			String jobName = taskIdToName.get(taskId);
-			String jobName7 = (jobName.length() > 7) ? jobName.substring(0, 7) : jobName;
+		for (int i = 0; i < runtimeEstimates.getNumberOfTasks(); i++) {
+			long taskId = runtimeEstimates.getTaskId(i);
 			OutlookEstimate jobStatistic = jobStatistics.get(taskId);
 			double avgRuntime = (jobStatistic.finishedTasks != 0) ? jobStatistic.timeSpent / jobStatistic.finishedTasks : 0d;
-			System.out.println("\t" + jobName7 + "\t" + df.format(jobStatistic.finishedTasks) + "\t" + df.format(avgRuntime) + "\t"
-					+ df.format(jobStatistic.remainingTasks) + "\t" + df.format(readyTasks.get(taskId).size()) + "\t" + df.format(jobStatistic.weight));
+			System.out.println("\t" + shortJobName(taskId) + "\t" + df.format(jobStatistic.finishedTasks) + "\t" + df.format(avgRuntime) + "\t"
+					+ df.format(jobStatistic.remainingTasks) + "\t" + df.format(readyTasks.get(taskId).size()) + "\t" + df.format(outlookWeights[i]));
 		}
 	}
 
@@ -489,14 +623,13 @@ public class C3PO extends Scheduler {
 
 		System.out.println("\t\tlocal\ttotal\tshare");
 
-		for (long taskId : getTaskIds()) {
+		for (int i = 0; i < runtimeEstimates.getNumberOfTasks(); i++) {
+			long taskId = runtimeEstimates.getTaskId(i);
 			Queue<TaskInstance> queue = replicate ? runningTasks.get(taskId) : readyTasks.get(taskId);
 			if (queue.size() != 0) {
-				String jobName = taskIdToName.get(taskId);
-				String jobName7 = (jobName.length() > 7) ? jobName.substring(0, 7) : jobName;
 				PlacementAwarenessEstimate dataLocalityStatistic = dataLocalityStatistics.get(taskId);
-				System.out.println("\t" + jobName7 + "\t" + dataLocalityStatistic.localData + "\t" + dataLocalityStatistic.totalData + "\t"
-						+ df.format(dataLocalityStatistic.weight));
+				System.out.println("\t" + shortJobName(taskId) + "\t" + dataLocalityStatistic.localData + "\t" + dataLocalityStatistic.totalData + "\t"
+						+ df.format(placementAwarenessWeights[i]));
 			}
 		}
 	}
@@ -505,34 +638,34 @@ public class C3PO extends Scheduler {
 		System.out.println("Updated Task Statistics:");
 
 		String row = "";
-		for (long taskId : getTaskIds()) {
-			String jobName = taskIdToName.get(taskId);
-			String jobName7 = (jobName.length() > 7) ? jobName.substring(0, 7) : jobName;
-			row += "\t\t" + jobName7;
+		for (int i = 0; i < runtimeEstimates.getNumberOfTasks(); i++) {
+			row += "\t\t" + shortJobName(runtimeEstimates.getTaskId(i));
 		}
 		System.out.println(row);
 
-		for (String nodeId : getNodeIds()) {
+		int nNodes = runtimeEstimates.getNumberOfNodes();
+		for (int node = 0; node < nNodes; node++) {
+			String nodeId = runtimeEstimates.getNodeId(node);
 			String nodeName7 = (nodeId.length() > 7) ? nodeId.substring(nodeId.length() - 7) : nodeId;
 
 			row = "";
-			for (long taskId : getTaskIds()) {
-				RuntimeEstimate taskStatistic = runtimeEstimatesPerNode.get(nodeId).get(taskId);
-				row += "\t" + df.format(taskStatistic.averageRuntime) + "\t" + df.format(taskStatistic.weight);
+			for (int i = 0; i < runtimeEstimates.getNumberOfTasks(); i++) {
+				double weight = conservatismPerNode[node][i] / ((conservatismSums[i] != 0d) ? conservatismSums[i] : nNodes);
+				row += "\t" + df.format(runtimeEstimates.getEstimate(node, i)) + "\t" + df.format(weight);
 			}
 
 			System.out.println("\t" + nodeName7 + row);
 		}
 	}
 
-	private String printWeights(Map<Long, ? extends Estimate> statistics) {
+	private String printWeights(double[] weights) {
 		String names = "";
-		String weights = "";
-		for (Long taskId : getTaskIds()) {
-			names += ", " + taskIdToName.get(taskId);
-			weights += ", " + df.format(statistics.get(taskId).weight);
+		String values = "";
+		for (int i = 0; i < runtimeEstimates.getNumberOfTasks(); i++) {
+			names += ", " + taskIdToName.get(runtimeEstimates.getTaskId(i));
+			values += ", " + df.format(weights[i]);
 		}
-		return "(" + names.substring(2) + ")" + "\t" + "(" + weights.substring(2) + ")";
+		return "(" + (names.isEmpty() ? "" : names.substring(2)) + ")" + "\t" + "(" + (values.isEmpty() ? "" : values.substring(2)) + ")";
 	}
 
 	public void setConservatismWeight(double conservatismWeight) {
@@ -542,7 +675,7 @@ public class C3PO extends Scheduler {
 	public void setnClones(int nClones) {
 		if (this.nClones < nClones) {
 			for (int i = 0; i < nClones - this.nClones; i++) {
-				unissuedNodeRequests.add(new String[0]);
+				addNodeRequest(new String[0], null);
 			}
 		} else {
 			for (int i = 0; i < this.nClones - nClones; i++) {
@@ -564,16 +697,18 @@ public class C3PO extends Scheduler {
 	@Override
 	public Collection<ContainerId> taskCompleted(TaskInstance task, ContainerStatus containerStatus, long runtimeInMs) {
 		super.taskCompleted(task, containerStatus, runtimeInMs);
-		updateRuntimeEstimates(task.getWorkflowId().toString());
 		Collection<ContainerId> toBeReleasedContainers = new ArrayList<>();
 
 		// kill speculative copies
 		for (Container container : taskToContainers.get(task)) {
 			if (!container.getId().equals(containerStatus.getContainerId())) {
 				toBeReleasedContainers.add(container.getId());
-				unissuedNodeRequests.add(new String[0]);
+				addNodeRequest(new String[0], null);
+			} else {
+				updateRuntimeEstimate(task, container.getNodeId().getHost(), runtimeInMs);
 			}
 		}
+		refreshRuntimeEstimates(task.getWorkflowId().toString());
 		taskToContainers.remove(task);
 		runningTasks.get(task.getTaskId()).remove(task);
 
@@ -599,12 +734,36 @@ public class C3PO extends Scheduler {
 		return new ArrayList<>();
 	}
 
+	@Override
+	protected void taskMemoized(TaskInstance task) {
+		super.taskMemoized(task);
+		jobStatistics.get(task.getTaskId()).remainingTasks--;
+	}
+
+	private String shortJobName(long taskId) {
+		String jobName = String.valueOf(taskIdToName.get(taskId));
+		return (jobName.length() > 7) ? jobName.substring(0, 7) : jobName;
+	}
+
+	// the sum has to be recomputed rather than adjusted, since the weights of unexplored nodes (Long.MAX_VALUE) would otherwise erase all other weights
+	private void updateConservatismSum(int task) {
+		double sum = 0d;
+		for (int i = 0; i < runtimeEstimates.getNumberOfNodes(); i++)
+			sum += conservatismPerNode[i][task];
+		conservatismSums[task] = sum;
+	}
+
 	@Override
 	protected void updateRuntimeEstimate(InvocStat stat) {
 		super.updateRuntimeEstimate(stat);
 		OutlookEstimate jobStatistic = jobStatistics.get(stat.getTaskId());
 		jobStatistic.finishedTasks++;
 		jobStatistic.timeSpent += stat.getRealTime();
+
+		int node = runtimeEstimates.getNodeIndex(stat.getHostName());
+		int task = runtimeEstimates.getTaskIndex(stat.getTaskId());
+		conservatismPerNode[node][task] = 1d / runtimeEstimates.getEstimate(node, task);
+		updateConservatismSum(task);
 	}
 
 }
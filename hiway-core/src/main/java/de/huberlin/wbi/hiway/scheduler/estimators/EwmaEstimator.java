@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.estimators;
+
+/**
+ * Estimates runtimes as the exponentially weighted moving average of the observed runtimes, such that the estimate follows changes in the performance of a
+ * node (e.g., due to contention or new hardware) instead of being dominated by old observations.
+ */
+public class EwmaEstimator extends RuntimeEstimator {
+
+	private final double alpha;
+	private double average;
+	private boolean observed;
+
+	/**
+	 * @param alpha
+	 *            The weight in (0, 1] of the most recent observation; higher values forget old observations faster.
+	 */
+	public EwmaEstimator(double alpha) {
+		this.alpha = Math.min(1d, Math.max(Double.MIN_VALUE, alpha));
+	}
+
+	@Override
+	public void addObservation(long runtimeInMs, long inputBytes) {
+		average = observed ? alpha * runtimeInMs + (1d - alpha) * average : runtimeInMs;
+		observed = true;
+	}
+
+	@Override
+	public long getEstimate() {
+		return Math.round(average);
+	}
+
+}
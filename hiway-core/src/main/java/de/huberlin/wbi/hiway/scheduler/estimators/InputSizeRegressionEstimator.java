@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.estimators;
+
+/**
+ * Estimates runtimes by means of a linear model over the total size of a task's input data, fit by ordinary least squares on the observed invocations. Only
+ * the sums required for the fit are kept, such that adding an observation takes constant time and space. As long as the model cannot be fit (e.g., since all
+ * observed invocations had the same input size or their input size is unknown), the mean observed runtime serves as the estimate.
+ */
+public class InputSizeRegressionEstimator extends RuntimeEstimator {
+
+	// the number of observations with known input size and the sums of their input sizes (x), runtimes (y), squared input sizes, and products
+	private int n;
+	private int observations;
+	private double sumX;
+	private double sumXX;
+	private double sumXY;
+	private double sumY;
+	private long timeSpent;
+
+	@Override
+	public void addObservation(long runtimeInMs, long inputBytes) {
+		observations++;
+		timeSpent += runtimeInMs;
+		if (inputBytes >= 0) {
+			n++;
+			sumX += inputBytes;
+			sumY += runtimeInMs;
+			sumXX += (double) inputBytes * inputBytes;
+			sumXY += (double) inputBytes * runtimeInMs;
+		}
+	}
+
+	@Override
+	public long getEstimate() {
+		return observations > 0 ? timeSpent / observations : 0;
+	}
+
+	@Override
+	public long getEstimate(long inputBytes) {
+		double denominator = n * sumXX - sumX * sumX;
+		if (n < 2 || inputBytes < 0 || denominator <= 0d) {
+			return getEstimate();
+		}
+		double slope = (n * sumXY - sumX * sumY) / denominator;
+		double intercept = (sumY - slope * sumX) / n;
+		return Math.max(0, Math.round(intercept + slope * inputBytes));
+	}
+
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.estimators;
+
+import java.util.Arrays;
+
+/**
+ * Estimates runtimes as a quantile of the observed runtimes (e.g., the median, which is robust to outliers, or a high percentile for conservative estimates).
+ * The quantile is tracked in constant space by means of the P<sup>2</sup> algorithm described in [1], which maintains five markers whose heights approximate
+ * the minimum, the p/2-, p-, and (1+p)/2-quantiles, and the maximum of the observations.
+ * 
+ * <p>
+ * [1] Jain, R., and Chlamtac, I. (1985). <i>The P<sup>2</sup> Algorithm for Dynamic Calculation of Quantiles and Histograms Without Storing Observations.</i>
+ * Communications of the ACM, 28(10), 1076-1085.
+ * </p>
+ */
+public class QuantileEstimator extends RuntimeEstimator {
+
+	private int count;
+	// the desired positions of the markers
+	private final double[] desiredPositions;
+	// the heights of the markers (or, until five runtimes have been observed, the observed runtimes)
+	private final double[] heights = new double[5];
+	// the desired increments of the marker positions per observation
+	private final double[] increments;
+	// the actual positions of the markers
+	private final int[] positions = { 0, 1, 2, 3, 4 };
+	private final double quantile;
+
+	/**
+	 * @param quantile
+	 *            The quantile in [0, 1] to be estimated.
+	 */
+	public QuantileEstimator(double quantile) {
+		this.quantile = Math.min(1d, Math.max(0d, quantile));
+		increments = new double[] { 0d, this.quantile / 2d, this.quantile, (1d + this.quantile) / 2d, 1d };
+		desiredPositions = new double[] { 0d, 2d * this.quantile, 4d * this.quantile, 2d + 2d * this.quantile, 4d };
+	}
+
+	@Override
+	public void addObservation(long runtimeInMs, long inputBytes) {
+		double x = runtimeInMs;
+		if (count < 5) {
+			heights[count++] = x;
+			if (count == 5) {
+				Arrays.sort(heights);
+			}
+			return;
+		}
+		count++;
+
+		// determine the cell the observation falls into, extending the extreme markers if necessary
+		int k;
+		if (x < heights[0]) {
+			heights[0] = x;
+			k = 0;
+		} else if (x >= heights[4]) {
+			heights[4] = x;
+			k = 3;
+		} else {
+			k = 0;
+			while (x >= heights[k + 1])
+				k++;
+		}
+		for (int i = k + 1; i < 5; i++)
+			positions[i]++;
+		for (int i = 0; i < 5; i++)
+			desiredPositions[i] += increments[i];
+
+		// adjust the heights of the inner markers if they are off their desired positions
+		for (int i = 1; i < 4; i++) {
+			double d = desiredPositions[i] - positions[i];
+			if ((d >= 1d && positions[i + 1] - positions[i] > 1) || (d <= -1d && positions[i - 1] - positions[i] < -1)) {
+				int sign = d > 0 ? 1 : -1;
+				double height = parabolic(i, sign);
+				heights[i] = (heights[i - 1] < height && height < heights[i + 1]) ? height : linear(i, sign);
+				positions[i] += sign;
+			}
+		}
+	}
+
+	@Override
+	public long getEstimate() {
+		if (count == 0) {
+			return 0;
+		}
+		if (count < 5) {
+			double[] observations = Arrays.copyOf(heights, count);
+			Arrays.sort(observations);
+			return Math.round(observations[(int) Math.round(quantile * (count - 1))]);
+		}
+		return Math.round(heights[2]);
+	}
+
+	private double linear(int i, int sign) {
+		return heights[i] + sign * (heights[i + sign] - heights[i]) / (positions[i + sign] - positions[i]);
+	}
+
+	private double parabolic(int i, int sign) {
+		return heights[i] + (double) sign / (positions[i + 1] - positions[i - 1])
+				* ((positions[i] - positions[i - 1] + sign) * (heights[i + 1] - heights[i]) / (positions[i + 1] - positions[i]) + (positions[i + 1] - positions[i] - sign)
+						* (heights[i] - heights[i - 1]) / (positions[i] - positions[i - 1]));
+	}
+
+}
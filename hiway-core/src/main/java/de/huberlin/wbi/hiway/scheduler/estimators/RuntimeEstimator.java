@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.estimators;
+
+/**
+ * An estimator of the runtime of tasks of a given signature on a given node, which is fed with the runtimes of the invocations observed so far.
+ * Implementations differ in how they weigh past observations against recent ones and whether they account for the size of a task's input data.
+ */
+public abstract class RuntimeEstimator {
+
+	/**
+	 * Accounts for an observed invocation.
+	 * 
+	 * @param runtimeInMs
+	 *            The runtime of the invocation.
+	 * @param inputBytes
+	 *            The total size of the invocation's input data or -1 if unknown.
+	 */
+	public abstract void addObservation(long runtimeInMs, long inputBytes);
+
+	/**
+	 * @return The expected runtime in ms of a task of this signature, irrespective of its input data.
+	 */
+	public abstract long getEstimate();
+
+	/**
+	 * Determines the expected runtime of a task whose input data is of the given size. By default, the size of the input data is disregarded.
+	 * 
+	 * @param inputBytes
+	 *            The total size of the task's input data.
+	 * @return The expected runtime in ms.
+	 */
+	public long getEstimate(long inputBytes) {
+		return getEstimate();
+	}
+
+}
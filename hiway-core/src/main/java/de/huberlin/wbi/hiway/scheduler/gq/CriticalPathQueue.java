@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.gq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.ContainerStatus;
+
+import de.huberlin.hiwaydb.useDB.InvocStat;
+import de.huberlin.wbi.hiway.common.HiWayConfiguration;
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.common.WorkflowStructureUnknownException;
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
+
+/**
+ * A variant of the {@link GreedyQueue} scheduler that, instead of assigning ready-to-execute tasks in the order in which they have become ready, assigns the
+ * ready task of highest upward rank (i.e., the task at the start of the longest remaining chain of tasks) whose resource requirements the container meets. The
+ * cost of a task is the average of the runtime estimates of its signature across all nodes on which it has been observed. Whenever these estimates change, the
+ * upward ranks of the affected tasks are updated in place. Since the upward ranks are computed from the structure of the workflow, this scheduler requires the
+ * structure to be known in advance (i.e., it does not support Cuneiform workflows).
+ */
+public class CriticalPathQueue extends Scheduler {
+
+	// whether the task has a higher upward rank than the other task (or the other task is null)
+	private static boolean outranks(TaskInstance task, TaskInstance other) {
+		return other == null || TaskInstance.Comparators.UPWARDSRANK.compare(task, other) < 0;
+	}
+
+	// the task signatures whose runtime estimates have changed since the upward ranks have last been updated
+	private final Set<Long> changedSignatures;
+	// the average runtime estimate (in ms) per task signature on which the current upward ranks are based
+	private final Map<Long, Double> costPerSignature;
+	private final TaskHeap queue;
+	// the tasks that have not been completed yet, by signature
+	private final Map<Long, Set<TaskInstance>> remainingTasksPerSignature;
+
+	public CriticalPathQueue(String workflowName, HiWayConfiguration conf, FileSystem hdfs) {
+		super(workflowName, conf, hdfs);
+		changedSignatures = new HashSet<>();
+		costPerSignature = new HashMap<>();
+		queue = new TaskHeap();
+		remainingTasksPerSignature = new HashMap<>();
+	}
+
+	@Override
+	protected void addTask(TaskInstance task) {
+		numberOfRemainingTasks++;
+		if (!remainingTasksPerSignature.containsKey(task.getTaskId())) {
+			remainingTasksPerSignature.put(task.getTaskId(), new HashSet<TaskInstance>());
+		}
+		remainingTasksPerSignature.get(task.getTaskId()).add(task);
+		if (task.readyToExecute())
+			addTaskToQueue(task);
+	}
+
+	@Override
+	public void addTasks(Collection<TaskInstance> tasks) {
+		// the upward ranks are computed before any of the tasks is queued, starting with the tasks at the end of the workflow
+		List<TaskInstance> taskList = new ArrayList<>(tasks);
+		Collections.sort(taskList, TaskInstance.Comparators.DEPTH);
+		try {
+			for (int i = taskList.size() - 1; i >= 0; i--) {
+				TaskInstance task = taskList.get(i);
+				task.setUpwardRank(computeUpwardRank(task));
+			}
+		} catch (WorkflowStructureUnknownException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		super.addTasks(tasks);
+	}
+
+	private double computeUpwardRank(TaskInstance task) throws WorkflowStructureUnknownException {
+		double maxSuccessorRank = 0;
+		for (TaskInstance child : task.getChildTasks()) {
+			maxSuccessorRank = Math.max(maxSuccessorRank, child.getUpwardRank());
+		}
+		return getCost(task.getTaskId()) + maxSuccessorRank;
+	}
+
+	@Override
+	protected void enqueueTask(TaskInstance task) {
+		addLocalityHintedNodeRequest(task);
+		try {
+			queue.add(task, task.getUpwardRank());
+		} catch (WorkflowStructureUnknownException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		System.out.println("Added task " + task + " to queue");
+	}
+
+	// the average runtime estimate of the task signature across all nodes on which it has been observed, or 1 ms if it has not been observed yet
+	private double estimateCost(long taskId) {
+		int task = runtimeEstimates.getTaskIndex(taskId);
+		if (task < 0) {
+			return 1d;
+		}
+		double cost = 0d;
+		int nodes = 0;
+		for (int node = 0; node < runtimeEstimates.getNumberOfNodes(); node++) {
+			if (runtimeEstimates.getFinishedTasks(node, task) > 0) {
+				cost += runtimeEstimates.getEstimate(node, task);
+				nodes++;
+			}
+		}
+		return nodes > 0 ? cost / nodes : 1d;
+	}
+
+	private double getCost(long taskId) {
+		Double cost = costPerSignature.get(taskId);
+		if (cost == null) {
+			cost = estimateCost(taskId);
+			costPerSignature.put(taskId, cost);
+		}
+		return cost;
+	}
+
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		updateUpwardRanks();
+		// the heap is traversed in array order, such that each task is considered before the tasks below it (which it outranks)
+		return getNextFusableTask(task, queue, container);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public TaskInstance getNextTask(Container container) {
+		updateUpwardRanks();
+
+		TaskInstance task = queue.peek();
+		// only if the task of highest rank does not fit into the container, the queue has to be searched for the fitting task of highest rank
+		if (!fits(task.getTaskId(), container)) {
+			TaskInstance fittingTask = null;
+			for (TaskInstance candidate : queue) {
+				if (fits(candidate.getTaskId(), container) && outranks(candidate, fittingTask)) {
+					fittingTask = candidate;
+				}
+			}
+			if (fittingTask != null) {
+				task = fittingTask;
+			}
+		}
+		task = applyDelayScheduling(task, queue, container);
+		if (task == null) {
+			return null;
+		}
+		queue.remove(task);
+		numberOfRemainingTasks--;
+		numberOfRunningTasks++;
+
+		System.out.println("Assigned task " + task + " to container " + container.getId().getId() + " on node " + container.getNodeId().getHost());
+		task.incTries();
+		return task;
+	}
+
+	@Override
+	public int getNumberOfReadyTasks() {
+		return queue.size();
+	}
+
+	@Override
+	public Collection<ContainerId> taskCompleted(TaskInstance task, ContainerStatus containerStatus, long runtimeInMs) {
+		Collection<ContainerId> toBeReleasedContainers = super.taskCompleted(task, containerStatus, runtimeInMs);
+		Set<TaskInstance> remainingTasks = remainingTasksPerSignature.get(task.getTaskId());
+		if (remainingTasks != null) {
+			remainingTasks.remove(task);
+		}
+		return toBeReleasedContainers;
+	}
+
+	@Override
+	protected void updateRuntimeEstimate(InvocStat stat) {
+		super.updateRuntimeEstimate(stat);
+		// the upward ranks are updated lazily, such that a batch of new estimates (e.g., from the provenance database) is accounted for at once
+		changedSignatures.add(stat.getTaskId());
+	}
+
+	/* updates the upward ranks of the remaining tasks whose signature's cost has changed, along with the ranks of their ancestors; the tasks are processed in
+	 * order of decreasing depth, such that the rank of each task is recomputed at most once and only after the ranks of its children */
+	private void updateUpwardRanks() {
+		if (changedSignatures.isEmpty()) {
+			return;
+		}
+		PriorityQueue<TaskInstance> tasksToUpdate = new PriorityQueue<>(11, Collections.reverseOrder(TaskInstance.Comparators.DEPTH));
+		Set<TaskInstance> visited = new HashSet<>();
+		for (long taskId : changedSignatures) {
+			double cost = estimateCost(taskId);
+			Double previousCost = costPerSignature.put(taskId, cost);
+			Set<TaskInstance> remainingTasks = remainingTasksPerSignature.get(taskId);
+			if (remainingTasks != null && (previousCost == null || previousCost != cost)) {
+				for (TaskInstance task : remainingTasks) {
+					if (visited.add(task)) {
+						tasksToUpdate.add(task);
+					}
+				}
+			}
+		}
+		changedSignatures.clear();
+
+		try {
+			while (!tasksToUpdate.isEmpty()) {
+				TaskInstance task = tasksToUpdate.poll();
+				double upwardRank = computeUpwardRank(task);
+				if (upwardRank != task.getUpwardRank()) {
+					task.setUpwardRank(upwardRank);
+					queue.update(task, upwardRank);
+					for (TaskInstance parent : task.getParentTasks()) {
+						if (!parent.isCompleted() && visited.add(parent)) {
+							tasksToUpdate.add(parent);
+						}
+					}
+				}
+			}
+		} catch (WorkflowStructureUnknownException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+	}
+
+}
@@ -44,7 +44,7 @@ import de.huberlin.wbi.hiway.scheduler.Scheduler;
 
 /**
  * A basic implementation of a scheduler that stores ready-to-execute tasks in a queue. Whenever a container has been allocated, this container is greedily
- * assigned the first task from the queue.
+ * assigned the first task from the queue whose resource requirements it meets (subject to delay scheduling).
  * 
  * @author Marc Bux
  * 
@@ -66,8 +66,8 @@ public class GreedyQueue extends Scheduler {
 	}
 
 	@Override
-	public void addTaskToQueue(TaskInstance task) {
-		unissuedNodeRequests.add(new String[0]);
+	protected void enqueueTask(TaskInstance task) {
+		addLocalityHintedNodeRequest(task);
 		queue.add(task);
 		System.out.println("Added task " + task + " to queue");
 	}
@@ -75,15 +75,24 @@ public class GreedyQueue extends Scheduler {
 	@SuppressWarnings("deprecation")
 	@Override
 	public TaskInstance getNextTask(Container container) {
+		TaskInstance task = applyDelayScheduling(getFittingTask(queue, container), queue, container);
+		if (task == null) {
+			return null;
+		}
+		queue.remove(task);
 		numberOfRemainingTasks--;
 		numberOfRunningTasks++;
-		TaskInstance task = queue.remove();
 
 		System.out.println("Assigned task " + task + " to container " + container.getId().getId() + " on node " + container.getNodeId().getHost());
 		task.incTries();
 		return task;
 	}
 
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		return getNextFusableTask(task, queue, container);
+	}
+
 	@Override
 	public int getNumberOfReadyTasks() {
 		return queue.size();
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.gq;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.yarn.api.records.Container;
+
+import de.huberlin.wbi.hiway.common.HiWayConfiguration;
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
+
+/**
+ * A variant of the {@link GreedyQueue} scheduler that assigns an allocated container the ready-to-execute task with the most input data stored on the
+ * container's node. When a task becomes ready, the number of bytes of its input data stored on each node is determined from the block locations of its input
+ * files, and the task is added to an index of ready tasks per node, ordered by these numbers. If no ready task has input data on the node (or the task with
+ * the most local input data does not fit into the container), the container is assigned the first fitting task in the order in which the tasks have become
+ * ready, unless the delay-scheduling policy has it wait for a container closer to its input data.
+ */
+public class LocalityAwareQueue extends Scheduler {
+
+	// the hosts storing input data of each ready task
+	private final Map<TaskInstance, Set<String>> hostsPerTask;
+	// the ready tasks in the order in which they have become ready
+	private final Set<TaskInstance> queue;
+	// the ready tasks with input data on each host, ordered by the number of bytes of input data stored on the host
+	private final Map<String, TaskHeap> tasksPerHost;
+
+	public LocalityAwareQueue(String workflowName, HiWayConfiguration conf, FileSystem hdfs) {
+		super(workflowName, conf, hdfs);
+		hostsPerTask = new HashMap<>();
+		queue = new LinkedHashSet<>();
+		tasksPerHost = new HashMap<>();
+	}
+
+	@Override
+	protected void addTask(TaskInstance task) {
+		numberOfRemainingTasks++;
+		if (task.readyToExecute())
+			addTaskToQueue(task);
+	}
+
+	@Override
+	protected void enqueueTask(TaskInstance task) {
+		addLocalityHintedNodeRequest(task);
+		queue.add(task);
+		try {
+			Map<String, Long> bytesPerHost = task.countAvailableLocalDataPerHost();
+			hostsPerTask.put(task, bytesPerHost.keySet());
+			for (Map.Entry<String, Long> bytesOnHost : bytesPerHost.entrySet()) {
+				TaskHeap tasks = tasksPerHost.get(bytesOnHost.getKey());
+				if (tasks == null) {
+					tasks = new TaskHeap();
+					tasksPerHost.put(bytesOnHost.getKey(), tasks);
+				}
+				tasks.add(task, bytesOnHost.getValue());
+			}
+		} catch (IOException e) {
+			System.err.println("Error during hdfs block location determination.");
+			e.printStackTrace();
+		}
+		System.out.println("Added task " + task + " to queue");
+	}
+
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		TaskInstance fusableTask = getNextFusableTask(task, queue, container);
+		if (fusableTask != null) {
+			removeFromIndex(fusableTask);
+		}
+		return fusableTask;
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public TaskInstance getNextTask(Container container) {
+		String host = container.getNodeId().getHost();
+
+		TaskHeap localTasks = tasksPerHost.get(host);
+		TaskInstance task = (localTasks != null) ? localTasks.peek() : null;
+		if (task != null && fits(task.getTaskId(), container)) {
+			System.out.println("Task " + task + " has the most input data on node " + host);
+		} else {
+			// fall back to the first fitting task in the order in which the tasks have become ready
+			task = getFittingTask(queue, container);
+		}
+		task = applyDelayScheduling(task, queue, container);
+		if (task == null) {
+			return null;
+		}
+		remove(task);
+		numberOfRemainingTasks--;
+		numberOfRunningTasks++;
+
+		System.out.println("Assigned task " + task + " to container " + container.getId().getId() + " on node " + host);
+		task.incTries();
+		return task;
+	}
+
+	@Override
+	public int getNumberOfReadyTasks() {
+		return queue.size();
+	}
+
+	// removes the task from the queue and from the index of each host storing some of its input data
+	private void remove(TaskInstance task) {
+		queue.remove(task);
+		removeFromIndex(task);
+	}
+
+	private void removeFromIndex(TaskInstance task) {
+		Set<String> hosts = hostsPerTask.remove(task);
+		if (hosts != null) {
+			for (String host : hosts) {
+				TaskHeap tasks = tasksPerHost.get(host);
+				tasks.remove(task);
+				if (tasks.isEmpty()) {
+					tasksPerHost.remove(host);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.gq;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import de.huberlin.wbi.hiway.common.TaskInstance;
+
+/**
+ * An indexed binary max-heap of tasks, ordered by a priority that is given upon insertion and can be changed in place afterwards. Tasks of equal priority are
+ * ordered by the time of their insertion. The position of each task in the heap is tracked, such that a task's priority can be updated (and an arbitrary task
+ * be removed) in logarithmic time. Tasks can only be added along with their priority.
+ */
+public class TaskHeap extends AbstractCollection<TaskInstance> {
+
+	private long insertions;
+	private final Map<TaskInstance, Integer> positions = new HashMap<>();
+	private double[] priorities = new double[16];
+	private long[] sequenceNumbers = new long[16];
+	private int size;
+	private TaskInstance[] tasks = new TaskInstance[16];
+
+	/**
+	 * Adds a task to the heap.
+	 * 
+	 * @param task
+	 *            The task, which must not be contained in the heap already.
+	 * @param priority
+	 *            The priority of the task.
+	 */
+	public void add(TaskInstance task, double priority) {
+		if (size == tasks.length) {
+			tasks = Arrays.copyOf(tasks, 2 * size);
+			priorities = Arrays.copyOf(priorities, 2 * size);
+			sequenceNumbers = Arrays.copyOf(sequenceNumbers, 2 * size);
+		}
+		set(size, task, priority, insertions++);
+		siftUp(size++);
+	}
+
+	@Override
+	public boolean contains(Object task) {
+		return positions.containsKey(task);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return An iterator over the tasks in the heap in no particular order, which does not support removal.
+	 */
+	@Override
+	public Iterator<TaskInstance> iterator() {
+		return new Iterator<TaskInstance>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public TaskInstance next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				return tasks[next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return The task of highest priority or null if the heap is empty.
+	 */
+	public TaskInstance peek() {
+		return size == 0 ? null : tasks[0];
+	}
+
+	/**
+	 * Retrieves and removes the task of highest priority.
+	 * 
+	 * @return The task of highest priority or null if the heap is empty.
+	 */
+	public TaskInstance poll() {
+		if (size == 0) {
+			return null;
+		}
+		TaskInstance task = tasks[0];
+		removeAt(0);
+		return task;
+	}
+
+	// whether the element at position i precedes the element at position j
+	private boolean precedes(int i, int j) {
+		return priorities[i] > priorities[j] || (priorities[i] == priorities[j] && sequenceNumbers[i] < sequenceNumbers[j]);
+	}
+
+	/**
+	 * Removes a task from the heap.
+	 * 
+	 * @param task
+	 *            The task to remove.
+	 * @return True if the task has been contained in the heap.
+	 */
+	@Override
+	public boolean remove(Object task) {
+		Integer position = positions.get(task);
+		if (position == null) {
+			return false;
+		}
+		removeAt(position);
+		return true;
+	}
+
+	private void removeAt(int i) {
+		positions.remove(tasks[i]);
+		size--;
+		if (i < size) {
+			set(i, tasks[size], priorities[size], sequenceNumbers[size]);
+			tasks[size] = null;
+			siftDown(i);
+			siftUp(i);
+		} else {
+			tasks[size] = null;
+		}
+	}
+
+	private void set(int i, TaskInstance task, double priority, long sequenceNumber) {
+		tasks[i] = task;
+		priorities[i] = priority;
+		sequenceNumbers[i] = sequenceNumber;
+		positions.put(task, i);
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				return;
+			}
+			if (child + 1 < size && precedes(child + 1, child)) {
+				child++;
+			}
+			if (!precedes(child, i)) {
+				return;
+			}
+			swap(i, child);
+			i = child;
+		}
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!precedes(i, parent)) {
+				return;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	private void swap(int i, int j) {
+		TaskInstance task = tasks[i];
+		double priority = priorities[i];
+		long sequenceNumber = sequenceNumbers[i];
+		set(i, tasks[j], priorities[j], sequenceNumbers[j]);
+		set(j, task, priority, sequenceNumber);
+	}
+
+	/**
+	 * Changes the priority of a task in the heap.
+	 * 
+	 * @param task
+	 *            The task.
+	 * @param priority
+	 *            The new priority of the task.
+	 * @return True if the task has been contained in the heap.
+	 */
+	public boolean update(TaskInstance task, double priority) {
+		Integer position = positions.get(task);
+		if (position == null) {
+			return false;
+		}
+		priorities[position] = priority;
+		siftUp(position);
+		siftDown(positions.get(task));
+		return true;
+	}
+
+}
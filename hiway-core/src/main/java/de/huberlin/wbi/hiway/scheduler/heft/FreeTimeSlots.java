@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.heft;
+
+import java.util.Arrays;
+
+/**
+ * The free time slots of a node in a HEFT schedule, i.e., the disjoint intervals (in milliseconds) in which no task is scheduled on the node. Initially, the
+ * whole timeline is free. The slots are kept in a treap whose nodes are stored in primitive arrays and are ordered by the start of their slot, with each node
+ * being augmented by the maximum slot length in its subtree. Hence, the earliest slot of a given length after a given time can be found (and occupied) in
+ * expected logarithmic time.
+ */
+public class FreeTimeSlots {
+
+	private static final int NIL = -1;
+
+	private int[] left;
+	private long[] lengths;
+	private long[] maxLengths;
+	private int[] priorities;
+	// the node ids that have been released and can be reused, chained via the right child
+	private int released = NIL;
+	private int[] right;
+	private int root = NIL;
+	private int seed = 0x2545F491;
+	private int size;
+	// the results of the last split
+	private int splitLeft;
+	private int splitRight;
+	private long[] starts;
+
+	public FreeTimeSlots() {
+		int capacity = 16;
+		left = new int[capacity];
+		right = new int[capacity];
+		priorities = new int[capacity];
+		starts = new long[capacity];
+		lengths = new long[capacity];
+		maxLengths = new long[capacity];
+		insert(0, Long.MAX_VALUE);
+	}
+
+	private int allocate(long start, long length) {
+		int node;
+		if (released != NIL) {
+			node = released;
+			released = right[node];
+		} else {
+			if (size == starts.length) {
+				int capacity = 2 * size;
+				left = Arrays.copyOf(left, capacity);
+				right = Arrays.copyOf(right, capacity);
+				priorities = Arrays.copyOf(priorities, capacity);
+				starts = Arrays.copyOf(starts, capacity);
+				lengths = Arrays.copyOf(lengths, capacity);
+				maxLengths = Arrays.copyOf(maxLengths, capacity);
+			}
+			node = size++;
+		}
+		// xorshift
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		left[node] = NIL;
+		right[node] = NIL;
+		priorities[node] = seed;
+		starts[node] = start;
+		lengths[node] = length;
+		maxLengths[node] = length;
+		return node;
+	}
+
+	// the node of the earliest slot starting at or after the given time that is at least of the given length
+	private int ceilingFit(int node, long time, long length) {
+		if (node == NIL || maxLengths[node] < length) {
+			return NIL;
+		}
+		if (starts[node] < time) {
+			return ceilingFit(right[node], time, length);
+		}
+		int fit = ceilingFit(left[node], time, length);
+		if (fit != NIL) {
+			return fit;
+		}
+		return (lengths[node] >= length) ? node : ceilingFit(right[node], time, length);
+	}
+
+	// the node of the latest slot starting at or before the given time
+	private int floor(long time) {
+		int floor = NIL;
+		int node = root;
+		while (node != NIL) {
+			if (starts[node] <= time) {
+				floor = node;
+				node = right[node];
+			} else {
+				node = left[node];
+			}
+		}
+		return floor;
+	}
+
+	/**
+	 * Determines the earliest time at or after the given ready time at which a task of the given duration can be scheduled without overlapping any other task.
+	 * 
+	 * @param readyTime
+	 *            The earliest time at which the task can start.
+	 * @param duration
+	 *            The duration of the task.
+	 * @return The earliest start time of the task.
+	 */
+	public long getEarliestStart(long readyTime, long duration) {
+		int floor = floor(readyTime);
+		if (floor != NIL && lengths[floor] - (readyTime - starts[floor]) >= duration) {
+			return readyTime;
+		}
+		// since the last slot never ends, there always is a fitting slot
+		return starts[ceilingFit(root, readyTime, duration)];
+	}
+
+	private void insert(long start, long length) {
+		int node = allocate(start, length);
+		split(root, start);
+		int lower = splitLeft;
+		int upper = splitRight;
+		root = merge(merge(lower, node), upper);
+	}
+
+	private int merge(int lower, int upper) {
+		if (lower == NIL) {
+			return upper;
+		}
+		if (upper == NIL) {
+			return lower;
+		}
+		if (priorities[lower] > priorities[upper]) {
+			right[lower] = merge(right[lower], upper);
+			update(lower);
+			return lower;
+		}
+		left[upper] = merge(lower, left[upper]);
+		update(upper);
+		return upper;
+	}
+
+	/**
+	 * Marks the given interval as occupied. The interval has to lie within a single free slot, as is the case if its start has been determined via
+	 * {@link #getEarliestStart(long, long)}. Empty intervals do not occupy any time.
+	 * 
+	 * @param start
+	 *            The start of the interval.
+	 * @param duration
+	 *            The length of the interval.
+	 */
+	public void occupy(long start, long duration) {
+		if (duration <= 0) {
+			return;
+		}
+		int floor = floor(start);
+		long slotStart = starts[floor];
+		long slotLength = lengths[floor];
+		remove(slotStart);
+		// add time slots before and after
+		if (start > slotStart) {
+			insert(slotStart, start - slotStart);
+		}
+		long remainder = slotLength - (start - slotStart) - duration;
+		if (remainder > 0) {
+			insert(start + duration, remainder);
+		}
+	}
+
+	private void remove(long start) {
+		split(root, start);
+		int lower = splitLeft;
+		split(splitRight, start + 1);
+		int node = splitLeft;
+		int upper = splitRight;
+		if (node != NIL) {
+			right[node] = released;
+			released = node;
+		}
+		root = merge(lower, upper);
+	}
+
+	// splits the subtree into the slots starting before the given time (splitLeft) and the remaining slots (splitRight)
+	private void split(int node, long time) {
+		if (node == NIL) {
+			splitLeft = NIL;
+			splitRight = NIL;
+			return;
+		}
+		if (starts[node] < time) {
+			split(right[node], time);
+			right[node] = splitLeft;
+			update(node);
+			splitLeft = node;
+		} else {
+			split(left[node], time);
+			left[node] = splitRight;
+			update(node);
+			splitRight = node;
+		}
+	}
+
+	private void update(int node) {
+		long maxLength = lengths[node];
+		if (left[node] != NIL && maxLengths[left[node]] > maxLength) {
+			maxLength = maxLengths[left[node]];
+		}
+		if (right[node] != NIL && maxLengths[right[node]] > maxLength) {
+			maxLength = maxLengths[right[node]];
+		}
+		maxLengths[node] = maxLength;
+	}
+
+}
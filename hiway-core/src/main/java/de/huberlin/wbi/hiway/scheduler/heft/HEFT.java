@@ -32,17 +32,23 @@
  ******************************************************************************/
 package de.huberlin.wbi.hiway.scheduler.heft;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.ContainerStatus;
 
+import de.huberlin.wbi.hiway.common.Data;
 import de.huberlin.wbi.hiway.common.HiWayConfiguration;
 import de.huberlin.wbi.hiway.common.TaskInstance;
 import de.huberlin.wbi.hiway.common.WorkflowStructureUnknownException;
@@ -51,7 +57,15 @@ import de.huberlin.wbi.hiway.scheduler.StaticScheduler;
 
 /**
  * <p>
- * The HEFT scheduler, as described in [1]. This implementation of HEFT does not yet make use of estimates for data transfer times between nodes.
+ * The HEFT scheduler, as described in [1]. The communication cost of an edge between two tasks is estimated from the size of the files passed along the edge
+ * (as given in the workflow description or, if unknown, as observed for previous tasks of the same signature) and the bandwidth at which files have been
+ * staged in on the receiving node. A task can only start on a node once the data of all of its parents has been transferred to this node, which takes no time
+ * if parent and child are scheduled on the same node.
+ * </p>
+ * 
+ * <p>
+ * If re-planning is enabled and the runtime of a task deviates considerably from its planned runtime, the processor selection is repeated for all tasks that have not
+ * been started yet, taking into account the updated runtime estimates and the tasks still running on each node.
  * </p>
  * 
  * <p>
@@ -64,60 +78,74 @@ import de.huberlin.wbi.hiway.scheduler.StaticScheduler;
  */
 public class HEFT extends StaticScheduler {
 
-	private Map<String, Map<Double, Double>> freeTimeSlotLengthsPerNode;
-	private Map<String, TreeSet<Double>> freeTimeSlotStartsPerNode;
-	private Map<TaskInstance, Double> readyTimePerTask;
+	/**
+	 * Determines the earliest start and finish time of a task on a range of candidate nodes, forking into subtasks if the range is large.
+	 */
+	private class NodeEvaluation extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final long inputBytes;
+		private final TaskInstance task;
+		private final int to;
+
+		public NodeEvaluation(TaskInstance task, long inputBytes, int from, int to) {
+			this.task = task;
+			this.inputBytes = inputBytes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= NODES_PER_EVALUATION) {
+				for (int i = from; i < to; i++) {
+					String node = candidateNodes[i];
+					long computationCost = getComputationCost(task, node, inputBytes);
+					candidateStarts[i] = freeTimeSlotsPerNode.get(node).getEarliestStart(getReadyTime(task, node), computationCost);
+					candidateFinishes[i] = candidateStarts[i] + computationCost;
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new NodeEvaluation(task, inputBytes, from, mid), new NodeEvaluation(task, inputBytes, mid, to));
+			}
+		}
+	}
+
+	// the number of candidate nodes below which they are evaluated sequentially
+	private static final int NODES_PER_EVALUATION = 16;
+
+	// the candidate nodes of the task currently being scheduled, along with the earliest start and finish time of the task on each of them
+	private long[] candidateFinishes = new long[0];
+	private String[] candidateNodes = new String[0];
+	private long[] candidateStarts = new long[0];
+	// the tasks whose planned runtime is based on a runtime estimate (and can thus be compared to their actual runtime)
+	private Set<TaskInstance> estimatedTasks;
+	private final ForkJoinPool evaluationPool;
+	private Map<TaskInstance, Long> finishTimePerTask;
+	private Map<String, FreeTimeSlots> freeTimeSlotsPerNode;
+	// the tasks that have been planned, but not yet started
+	private Set<TaskInstance> pendingTasks;
+	private Map<TaskInstance, Long> plannedRuntimePerTask;
+	// the point in time from which the times in the schedule are measured
+	private long planStart;
 
 	public HEFT(String workflowName, FileSystem hdfs, HiWayConfiguration conf) {
 		super(workflowName, hdfs, conf);
-		readyTimePerTask = new HashMap<>();
-		freeTimeSlotStartsPerNode = new HashMap<>();
-		freeTimeSlotLengthsPerNode = new HashMap<>();
-		for (String node : runtimeEstimatesPerNode.keySet()) {
-			TreeSet<Double> occupiedTimeSlotStarts = new TreeSet<>();
-			occupiedTimeSlotStarts.add(0d);
-			freeTimeSlotStartsPerNode.put(node, occupiedTimeSlotStarts);
-			Map<Double, Double> freeTimeSlotLengths = new HashMap<>();
-			freeTimeSlotLengths.put(0d, Double.MAX_VALUE);
-			freeTimeSlotLengthsPerNode.put(node, freeTimeSlotLengths);
-		}
+		finishTimePerTask = new HashMap<>();
+		freeTimeSlotsPerNode = new HashMap<>();
+		estimatedTasks = new HashSet<>();
+		pendingTasks = new HashSet<>();
+		plannedRuntimePerTask = new HashMap<>();
+		evaluationPool = new ForkJoinPool();
 	}
 
 	@Override
 	protected void addTask(TaskInstance task) {
 		numberOfRemainingTasks++;
-		Collection<String> nodes = runtimeEstimatesPerNode.keySet();
-		double readyTime = readyTimePerTask.get(task);
-
-		String bestNode = null;
-		double bestNodeFreeTimeSlotActualStart = Double.MAX_VALUE;
-		double bestFinish = Double.MAX_VALUE;
-
-		for (String node : nodes) {
-			double computationCost = runtimeEstimatesPerNode.get(node).get(task.getTaskId()).weight;
-
-			/* the readytime of this task will have been set by now, as all predecessor tasks have a higher upward rank and thus have been assigned to a vm
-			 * already */
-			TreeSet<Double> freeTimeSlotStarts = freeTimeSlotStartsPerNode.get(node);
-			Map<Double, Double> freeTimeSlotLengths = freeTimeSlotLengthsPerNode.get(node);
-
-			SortedSet<Double> freeTimeSlotStartsAfterReadyTime = (freeTimeSlotStarts.floor(readyTime) != null) ? freeTimeSlotStarts.tailSet(freeTimeSlotStarts
-					.floor(readyTime)) : freeTimeSlotStarts.tailSet(freeTimeSlotStarts.ceiling(readyTime));
-
-			for (double freeTimeSlotStart : freeTimeSlotStartsAfterReadyTime) {
-				double freeTimeSlotActualStart = Math.max(readyTime, freeTimeSlotStart);
-				if (freeTimeSlotActualStart + computationCost > bestFinish)
-					break;
-				double freeTimeSlotLength = freeTimeSlotLengths.get(freeTimeSlotStart);
-				if (freeTimeSlotActualStart > freeTimeSlotStart)
-					freeTimeSlotLength -= freeTimeSlotActualStart - freeTimeSlotStart;
-				if (computationCost < freeTimeSlotLength) {
-					bestNode = node;
-					bestNodeFreeTimeSlotActualStart = freeTimeSlotActualStart;
-					bestFinish = freeTimeSlotActualStart + computationCost;
-				}
-			}
-		}
+		int best = selectNode(task);
+		String bestNode = candidateNodes[best];
 
 		// assign task to node
 		schedule.put(task, bestNode);
@@ -126,53 +154,46 @@ public class HEFT extends StaticScheduler {
 			addTaskToQueue(task);
 		}
 
-		// update readytime of all successor tasks
-		try {
-			for (TaskInstance child : task.getChildTasks()) {
-				if (bestFinish > readyTimePerTask.get(child)) {
-					readyTimePerTask.put(child, bestFinish);
-				}
-			}
-		} catch (WorkflowStructureUnknownException e) {
-			e.printStackTrace();
-			System.exit(-1);
-		}
+		plan(task, best);
+	}
 
-		double timeslotStart = freeTimeSlotStartsPerNode.get(bestNode).floor(bestNodeFreeTimeSlotActualStart);
-		double timeslotLength = freeTimeSlotLengthsPerNode.get(bestNode).get(timeslotStart);
-		double diff = bestNodeFreeTimeSlotActualStart - timeslotStart;
-		// add time slots before and after
-		if (bestNodeFreeTimeSlotActualStart > timeslotStart) {
-			freeTimeSlotLengthsPerNode.get(bestNode).put(timeslotStart, diff);
-		} else {
-			freeTimeSlotStartsPerNode.get(bestNode).remove(timeslotStart);
-			freeTimeSlotLengthsPerNode.get(bestNode).remove(timeslotStart);
+	@Override
+	public void addTasks(Collection<TaskInstance> tasks) {
+		if (planStart == 0) {
+			planStart = System.currentTimeMillis();
 		}
+		List<TaskInstance> taskList = new ArrayList<>(tasks);
+		computeUpwardRanks(taskList);
 
-		double computationCost = bestFinish - bestNodeFreeTimeSlotActualStart;
-		double actualTimeSlotLength = timeslotLength - diff;
-		if (computationCost < actualTimeSlotLength) {
-			freeTimeSlotStartsPerNode.get(bestNode).add(bestFinish);
-			freeTimeSlotLengthsPerNode.get(bestNode).put(bestFinish, actualTimeSlotLength - computationCost);
+		// Phase 1: Task Prioritizing (sort by decreasing order of rank)
+		Collections.sort(taskList, new UpwardsRankComparator());
+
+		// Phase 2: Processor Selection
+		for (TaskInstance task : taskList) {
+			addTask(task);
 		}
+
 	}
 
 	@Override
-	public void addTasks(Collection<TaskInstance> tasks) {
-		List<TaskInstance> taskList = new LinkedList<>(tasks);
-		Collections.sort(taskList, new DepthComparator());
+	public void close() {
+		evaluationPool.shutdown();
+	}
 
-		Collection<String> nodes = runtimeEstimatesPerNode.keySet();
+	// sorts the tasks by depth and computes their upward ranks
+	private void computeUpwardRanks(List<TaskInstance> taskList) {
+		Collections.sort(taskList, new DepthComparator());
+		Collection<String> nodes = queues.keySet();
 
-		// compute upward ranks of all tasks
 		for (int i = taskList.size() - 1; i >= 0; i--) {
 			TaskInstance task = taskList.get(i);
-			readyTimePerTask.put(task, 0d);
 			double maxSuccessorRank = 0;
 			try {
 				for (TaskInstance child : task.getChildTasks()) {
-					if (child.getUpwardRank() > maxSuccessorRank) {
-						maxSuccessorRank = child.getUpwardRank();
+					// the communication cost of the edge is estimated with the average bandwidth, since the nodes of the two tasks are not known yet
+					double successorRank = transferStatistics.getTransferTime(getTransferredBytes(task, child)) + child.getUpwardRank();
+					if (successorRank > maxSuccessorRank) {
+						maxSuccessorRank = successorRank;
 					}
 				}
 			} catch (WorkflowStructureUnknownException e) {
@@ -181,10 +202,13 @@ public class HEFT extends StaticScheduler {
 			}
 
 			double averageComputationCost = 0;
+			long inputBytes = getInputBytes(task);
 			for (String node : nodes) {
-				averageComputationCost += runtimeEstimatesPerNode.get(node).get(task.getTaskId()).weight;
+				averageComputationCost += getComputationCost(task, node, inputBytes);
+			}
+			if (!nodes.isEmpty()) {
+				averageComputationCost /= nodes.size();
 			}
-			averageComputationCost /= nodes.size();
 
 			// note that the upward rank of a task will always be greater than that of its successors
 			try {
@@ -194,15 +218,197 @@ public class HEFT extends StaticScheduler {
 				System.exit(-1);
 			}
 		}
+	}
 
-		// Phase 1: Task Prioritizing (sort by decreasing order of rank)
+	// the estimated runtime of the task on the node, which accounts for the size of its input data if it is known already (e.g., for input files of the
+	// workflow) and the runtime estimator makes use of it
+	private long getComputationCost(TaskInstance task, String node, long inputBytes) {
+		return hasEstimate(task, node) ? getEstimatedRuntime(task.getTaskId(), node, inputBytes) : 1;
+	}
+
+	@Override
+	public TaskInstance getNextFusableTask(TaskInstance task, Container container) {
+		TaskInstance fusableTask = super.getNextFusableTask(task, container);
+		pendingTasks.remove(fusableTask);
+		return fusableTask;
+	}
+
+	@Override
+	public TaskInstance getNextTask(Container container) {
+		TaskInstance task = super.getNextTask(container);
+		pendingTasks.remove(task);
+		return task;
+	}
+
+	/* the readytime of a task on a node is the time at which the data of all of its parents has arrived on the node; the parents will have been scheduled by
+	 * now, as they have a higher upward rank */
+	private long getReadyTime(TaskInstance task, String node) {
+		long readyTime = 0;
+		try {
+			for (TaskInstance parent : task.getParentTasks()) {
+				Long parentFinish = finishTimePerTask.get(parent);
+				if (parentFinish == null) {
+					continue;
+				}
+				long arrival = parentFinish;
+				if (!node.equals(schedule.get(parent))) {
+					arrival += (long) Math.ceil(transferStatistics.getTransferTime(getTransferredBytes(parent, task), node));
+				}
+				readyTime = Math.max(readyTime, arrival);
+			}
+		} catch (WorkflowStructureUnknownException e) {
+			e.printStackTrace();
+			System.exit(-1);
+		}
+		return readyTime;
+	}
+
+	// the size of the data produced by the parent and consumed by the child
+	private long getTransferredBytes(TaskInstance parent, TaskInstance child) {
+		long bytes = 0;
+		Set<Data> outputs = parent.getOutputData();
+		for (Data input : child.getInputData()) {
+			if (outputs.contains(input)) {
+				long size = parent.getExpectedFileSize(input);
+				if (size < 0) {
+					// the size of the file is assumed to be the average size of the output files of tasks of the parent's signature
+					double outputBytes = transferStatistics.getAverageOutputBytes(parent.getTaskId());
+					size = outputBytes > 0d ? (long) (outputBytes / outputs.size()) : 0;
+				}
+				bytes += size;
+			}
+		}
+		return bytes;
+	}
+
+	// whether tasks of the task's signature have been observed on the node, such that its runtime on the node can be estimated
+	private boolean hasEstimate(TaskInstance task, String node) {
+		int nodeIndex = runtimeEstimates.getNodeIndex(node);
+		int taskIndex = runtimeEstimates.getTaskIndex(task.getTaskId());
+		return nodeIndex >= 0 && taskIndex >= 0 && runtimeEstimates.getFinishedTasks(nodeIndex, taskIndex) > 0;
+	}
+
+	@Override
+	protected void newHost(String nodeId) {
+		super.newHost(nodeId);
+		freeTimeSlotsPerNode.put(nodeId, new FreeTimeSlots());
+	}
+
+	@Override
+	public void nodeJoined(String nodeId) {
+		boolean joined = !queues.containsKey(nodeId);
+		super.nodeJoined(nodeId);
+		// the tasks that have not been started yet might finish earlier on the new node
+		if (joined && replan && !pendingTasks.isEmpty()) {
+			System.out.println("Node " + nodeId + " has joined the cluster. Re-planning " + pendingTasks.size() + " pending tasks.");
+			replan();
+		}
+	}
+
+	// reserves the time slot on the selected candidate node for the task
+	private void plan(TaskInstance task, int candidate) {
+		String node = candidateNodes[candidate];
+		long start = candidateStarts[candidate];
+		long finish = candidateFinishes[candidate];
+		finishTimePerTask.put(task, finish);
+		plannedRuntimePerTask.put(task, finish - start);
+		freeTimeSlotsPerNode.get(node).occupy(start, finish - start);
+		pendingTasks.add(task);
+		if (hasEstimate(task, node)) {
+			estimatedTasks.add(task);
+		} else {
+			estimatedTasks.remove(task);
+		}
+	}
+
+	/* repeats the processor selection for all tasks that have not been started yet; the free time slots of each node are reset, such that the node is
+	 * available from the time at which the tasks currently running on it are expected to finish */
+	private void replan() {
+		long now = System.currentTimeMillis() - planStart;
+		Map<String, Long> busyUntilPerNode = new HashMap<>();
+		for (String node : queues.keySet()) {
+			busyUntilPerNode.put(node, now);
+		}
+		for (Map.Entry<TaskInstance, String> entry : schedule.entrySet()) {
+			TaskInstance task = entry.getKey();
+			Long busyUntil = busyUntilPerNode.get(entry.getValue());
+			Long finish = finishTimePerTask.get(task);
+			if (!task.isCompleted() && !pendingTasks.contains(task) && busyUntil != null && finish != null && finish > busyUntil) {
+				busyUntilPerNode.put(entry.getValue(), finish);
+			}
+		}
+		for (Map.Entry<String, Long> entry : busyUntilPerNode.entrySet()) {
+			FreeTimeSlots freeTimeSlots = new FreeTimeSlots();
+			freeTimeSlots.occupy(0, entry.getValue());
+			freeTimeSlotsPerNode.put(entry.getKey(), freeTimeSlots);
+		}
+
+		List<TaskInstance> taskList = new ArrayList<>(pendingTasks);
+		computeUpwardRanks(taskList);
 		Collections.sort(taskList, new UpwardsRankComparator());
+		for (TaskInstance task : taskList) {
+			int best = selectNode(task);
+			moveTask(task, candidateNodes[best]);
+			plan(task, best);
+		}
+	}
 
-		// Phase 2: Processor Selection
+	@Override
+	protected void rescheduleTasks(List<TaskInstance> tasks) {
+		// the tasks are assigned in the order of their upward ranks, such that the parents of a task are assigned before the task itself
+		List<TaskInstance> taskList = new ArrayList<>(tasks);
+		Collections.sort(taskList, new UpwardsRankComparator());
 		for (TaskInstance task : taskList) {
-			addTask(task);
+			int best = selectNode(task);
+			moveTask(task, candidateNodes[best]);
+			plan(task, best);
+		}
+	}
+
+	// determines the earliest start and finish time of the task on each node and returns the index of the candidate node on which it finishes the earliest
+	private int selectNode(TaskInstance task) {
+		Collection<String> nodes = queues.keySet();
+		int nNodes = nodes.size();
+		if (candidateNodes.length < nNodes) {
+			candidateNodes = new String[Math.max(nNodes, 2 * candidateNodes.length)];
+			candidateStarts = new long[candidateNodes.length];
+			candidateFinishes = new long[candidateNodes.length];
+		}
+		nodes.toArray(candidateNodes);
+
+		/* the nodes are evaluated independently, as the free time slots of the nodes and the finish times of the parent tasks do not change in the meantime;
+		 * the size of the task's input data is looked up in HDFS beforehand, such that the evaluation does not block on HDFS */
+		long inputBytes = getInputBytes(task);
+		if (nNodes > NODES_PER_EVALUATION) {
+			evaluationPool.invoke(new NodeEvaluation(task, inputBytes, 0, nNodes));
+		} else {
+			new NodeEvaluation(task, inputBytes, 0, nNodes).compute();
 		}
 
+		// on equal finish times, the node evaluated last is selected
+		int best = 0;
+		for (int i = 1; i < nNodes; i++) {
+			if (candidateFinishes[i] <= candidateFinishes[best]) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public Collection<ContainerId> taskCompleted(TaskInstance task, ContainerStatus containerStatus, long runtimeInMs) {
+		Collection<ContainerId> toBeReleasedContainers = super.taskCompleted(task, containerStatus, runtimeInMs);
+		finishTimePerTask.put(task, System.currentTimeMillis() - planStart);
+		Long plannedRuntime = plannedRuntimePerTask.remove(task);
+		/* the deviation is only meaningful if the planned runtime has been based on a runtime estimate; the runtime is compared instead of the finish time,
+		 * since the latter is also shifted by delays that occur before the task has started (e.g., while waiting for a container) */
+		boolean estimated = estimatedTasks.remove(task);
+		if (replan && estimated && plannedRuntime != null && Math.abs(runtimeInMs - plannedRuntime) > replanDeviation * plannedRuntime) {
+			System.out.println("Task " + task + " finished after " + runtimeInMs + " ms instead of " + plannedRuntime + " ms. Re-planning " + pendingTasks.size()
+					+ " pending tasks.");
+			replan();
+		}
+		return toBeReleasedContainers;
 	}
 
 }
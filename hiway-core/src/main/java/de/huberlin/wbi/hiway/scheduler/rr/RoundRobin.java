@@ -57,16 +57,12 @@ public class RoundRobin extends StaticScheduler {
 
 	public RoundRobin(String workflowName, FileSystem hdfs, HiWayConfiguration conf) {
 		super(workflowName, hdfs, conf);
-		nodeIterator = queues.keySet().iterator();
 	}
 
 	@Override
 	protected void addTask(TaskInstance task) {
 		numberOfRemainingTasks++;
-		if (!nodeIterator.hasNext()) {
-			nodeIterator = queues.keySet().iterator();
-		}
-		String node = nodeIterator.next();
+		String node = nextNode();
 		schedule.put(task, node);
 		System.out.println("Task " + task + " scheduled on node " + node);
 		if (task.readyToExecute()) {
@@ -81,4 +77,37 @@ public class RoundRobin extends StaticScheduler {
 		super.addTasks(taskList);
 	}
 
+	@Override
+	protected void newHost(String nodeId) {
+		super.newHost(nodeId);
+		// the set of queues has changed, so the iteration has to start over
+		nodeIterator = null;
+	}
+
+	private String nextNode() {
+		if (nodeIterator == null || !nodeIterator.hasNext()) {
+			nodeIterator = queues.keySet().iterator();
+		}
+		return nodeIterator.next();
+	}
+
+	@Override
+	public void nodeJoined(String nodeId) {
+		nodeIterator = null;
+		super.nodeJoined(nodeId);
+	}
+
+	@Override
+	public void nodeLeft(String nodeId) {
+		nodeIterator = null;
+		super.nodeLeft(nodeId);
+	}
+
+	@Override
+	protected void rescheduleTasks(List<TaskInstance> tasks) {
+		for (TaskInstance task : tasks) {
+			moveTask(task, nextNode());
+		}
+	}
+
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.yarn.api.protocolrecords.RegisterApplicationMasterResponse;
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.FinalApplicationStatus;
+import org.apache.hadoop.yarn.api.records.NodeId;
+import org.apache.hadoop.yarn.api.records.Priority;
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.apache.hadoop.yarn.client.api.AMRMClient.ContainerRequest;
+import org.apache.hadoop.yarn.client.api.async.AMRMClientAsync;
+import org.junit.Test;
+
+public class TestContainerRequestLedger {
+
+	private static int containerIds = 0;
+
+	// records the requests added and removed instead of sending them to the ResourceManager
+	private static class RecordingClient extends AMRMClientAsync<ContainerRequest> {
+		private final List<ContainerRequest> added = new ArrayList<>();
+		private final List<ContainerRequest> removed = new ArrayList<>();
+
+		public RecordingClient() {
+			super(1000, null);
+		}
+
+		@Override
+		public void addContainerRequest(ContainerRequest req) {
+			added.add(req);
+		}
+
+		@Override
+		public Resource getAvailableResources() {
+			return null;
+		}
+
+		@Override
+		public int getClusterNodeCount() {
+			return 0;
+		}
+
+		@Override
+		public List<? extends Collection<ContainerRequest>> getMatchingRequests(Priority priority, String resourceName, Resource capability) {
+			return null;
+		}
+
+		@Override
+		public RegisterApplicationMasterResponse registerApplicationMaster(String appHostName, int appHostPort, String appTrackingUrl) {
+			return null;
+		}
+
+		@Override
+		public void releaseAssignedContainer(ContainerId containerId) {
+		}
+
+		@Override
+		public void removeContainerRequest(ContainerRequest req) {
+			removed.add(req);
+		}
+
+		@Override
+		public void unregisterApplicationMaster(FinalApplicationStatus appStatus, String appMessage, String appTrackingUrl) {
+		}
+	}
+
+	private static Container newContainer(String host, int priority, int memory) {
+		ContainerId containerId = ContainerId.newInstance(null, containerIds++);
+		return Container.newInstance(containerId, NodeId.newInstance(host, 0), "", Resource.newInstance(memory, 1), Priority.newInstance(priority), null);
+	}
+
+	private static ContainerRequest newRequest(String[] nodes, int priority, int memory) {
+		return new ContainerRequest(Resource.newInstance(memory, 1), nodes, null, Priority.newInstance(priority), nodes == null);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void fulfillsRequestsOfOtherPrioritiesOnlyIfTheContainerFits() {
+		RecordingClient client = new RecordingClient();
+		ContainerRequestLedger ledger = new ContainerRequestLedger(client);
+		ContainerRequest request = newRequest(null, 2, 1024);
+		ledger.add(request);
+
+		assertNull(ledger.fulfill(newContainer("Charlie", 1, 512), null));
+		assertEquals(request, ledger.fulfill(newContainer("Charlie", 1, 2048), null));
+		assertEquals(0, ledger.size());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void prefersRequestsHintingAtTheContainersNode() {
+		RecordingClient client = new RecordingClient();
+		ContainerRequestLedger ledger = new ContainerRequestLedger(client);
+		ContainerRequest anyRequest = newRequest(null, 1, 1024);
+		ContainerRequest localRequest = newRequest(new String[] { "Tango" }, 1, 1024);
+		ledger.add(anyRequest);
+		ledger.add(localRequest);
+		assertEquals(2, client.added.size());
+
+		// a container on another node cannot fulfill the request hinting at Tango, since its locality is not relaxed
+		assertEquals(anyRequest, ledger.fulfill(newContainer("Charlie", 1, 1024), null));
+		assertNull(ledger.fulfill(newContainer("Charlie", 1, 1024), null));
+
+		ledger.add(anyRequest);
+		assertEquals(localRequest, ledger.fulfill(newContainer("Tango", 1, 1024), null));
+		assertEquals(1, ledger.size());
+		assertEquals(2, client.removed.size());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void withdrawsRequests() {
+		RecordingClient client = new RecordingClient();
+		ContainerRequestLedger ledger = new ContainerRequestLedger(client);
+		ContainerRequest first = newRequest(null, 1, 1024);
+		ContainerRequest second = newRequest(null, 1, 1024);
+		ContainerRequest local = newRequest(new String[] { "Tango" }, 1, 1024);
+		ContainerRequest last = newRequest(null, 2, 2048);
+		ledger.add(first);
+		ledger.add(second);
+		ledger.add(local);
+		ledger.add(last);
+
+		assertEquals(local, ledger.withdraw(new String[] { "Tango" }));
+		assertNull(ledger.withdraw(new String[] { "Tango" }));
+
+		// the most recently issued requests are withdrawn first
+		List<ContainerRequest> withdrawnRequests = ledger.trim(2);
+		assertEquals(2, withdrawnRequests.size());
+		assertEquals(last, withdrawnRequests.get(0));
+		assertEquals(second, withdrawnRequests.get(1));
+		assertEquals(1, ledger.size());
+		assertEquals(1, ledger.trim(5).size());
+		assertEquals(0, ledger.size());
+		assertEquals(4, client.removed.size());
+	}
+
+}
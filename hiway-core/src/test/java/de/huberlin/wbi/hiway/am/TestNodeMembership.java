@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.yarn.api.records.NodeId;
+import org.apache.hadoop.yarn.api.records.NodeReport;
+import org.apache.hadoop.yarn.api.records.NodeState;
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.scheduler.gq.GreedyQueue;
+
+public class TestNodeMembership {
+
+	// records the nodes the scheduler is informed of
+	private static class RecordingScheduler extends GreedyQueue {
+		private Collection<String> availableNodes;
+		private final List<String> joined = new ArrayList<>();
+		private final List<String> left = new ArrayList<>();
+
+		public RecordingScheduler() {
+			super("nodeMembership", null, null);
+		}
+
+		@Override
+		public void nodeJoined(String nodeId) {
+			joined.add(nodeId);
+		}
+
+		@Override
+		public void nodeLeft(String nodeId) {
+			left.add(nodeId);
+		}
+
+		@Override
+		public void setAvailableNodes(Collection<String> nodeIds) {
+			availableNodes = new ArrayList<>(nodeIds);
+		}
+	}
+
+	private static NodeReport newReport(String host, NodeState state) {
+		return NodeReport.newInstance(NodeId.newInstance(host, 0), state, "", "/rack-" + host, null, Resource.newInstance(8192, 4), 0, "", 0);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void informsSchedulerOfChanges() {
+		RecordingScheduler scheduler = new RecordingScheduler();
+		NodeMembership membership = new NodeMembership(scheduler);
+		membership.initialize(Arrays.asList(newReport("Charlie", NodeState.RUNNING), newReport("Tango", NodeState.RUNNING),
+				newReport("Foxtrot", NodeState.UNHEALTHY)));
+		assertEquals(2, scheduler.availableNodes.size());
+		assertTrue(scheduler.availableNodes.contains("Charlie"));
+		assertEquals("/rack-Tango", membership.getRack("Tango"));
+		assertNull(membership.getRack("Foxtrot"));
+		assertEquals(8192, membership.getCapability("Charlie").getMemory());
+
+		membership.update(Arrays.asList(newReport("Charlie", NodeState.LOST), newReport("Foxtrot", NodeState.RUNNING)));
+		// repeated reports of a node in the same state do not change the membership
+		membership.update(Arrays.asList(newReport("Charlie", NodeState.DECOMMISSIONED), newReport("Foxtrot", NodeState.RUNNING)));
+		assertEquals(Arrays.asList("Charlie"), scheduler.left);
+		assertEquals(Arrays.asList("Foxtrot"), scheduler.joined);
+		assertNull(membership.getRack("Charlie"));
+		assertEquals("/rack-Foxtrot", membership.getRack("Foxtrot"));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void doesNotInformSchedulerIfUninitialized() {
+		RecordingScheduler scheduler = new RecordingScheduler();
+		NodeMembership membership = new NodeMembership(scheduler);
+		membership.update(Arrays.asList(newReport("Charlie", NodeState.RUNNING), newReport("Tango", NodeState.RUNNING)));
+		membership.update(Arrays.asList(newReport("Charlie", NodeState.UNHEALTHY)));
+		assertNull(scheduler.availableNodes);
+		assertTrue(scheduler.joined.isEmpty());
+		assertTrue(scheduler.left.isEmpty());
+		// the racks of nodes are looked up all the same
+		assertEquals("/rack-Tango", membership.getRack("Tango"));
+	}
+
+}
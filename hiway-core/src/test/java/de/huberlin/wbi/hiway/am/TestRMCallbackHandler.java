@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.yarn.api.protocolrecords.RegisterApplicationMasterResponse;
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.FinalApplicationStatus;
+import org.apache.hadoop.yarn.api.records.NodeId;
+import org.apache.hadoop.yarn.api.records.Priority;
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.apache.hadoop.yarn.api.records.Token;
+import org.apache.hadoop.yarn.client.api.AMRMClient.ContainerRequest;
+import org.apache.hadoop.yarn.client.api.async.AMRMClientAsync;
+import org.junit.Test;
+
+import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.Scheduler;
+import de.huberlin.wbi.hiway.scheduler.rr.RoundRobin;
+
+public class TestRMCallbackHandler {
+
+	// an Application Master that neither parses a workflow nor communicates with the ResourceManager
+	private static class StubAppMaster extends HiWay {
+		private final RecordingClient client = new RecordingClient();
+		private final ContainerRequestLedger ledger = new ContainerRequestLedger(client);
+		private final Scheduler scheduler;
+
+		public StubAppMaster(Scheduler scheduler) {
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		public AMRMClientAsync getAmRMClient() {
+			return client;
+		}
+
+		@Override
+		public ContainerRequestLedger getRequestLedger() {
+			return ledger;
+		}
+
+		@Override
+		public Scheduler getScheduler() {
+			return scheduler;
+		}
+
+		@Override
+		public void parseWorkflow() {
+		}
+
+		@Override
+		public void writeEntryToLog(JsonReportEntry entry) {
+		}
+	}
+
+	// records the requests added and the containers released instead of sending them to the ResourceManager
+	private static class RecordingClient extends AMRMClientAsync<ContainerRequest> {
+		private final List<ContainerRequest> added = new ArrayList<>();
+		private final List<ContainerId> released = new ArrayList<>();
+
+		public RecordingClient() {
+			super(1000, null);
+		}
+
+		@Override
+		public void addContainerRequest(ContainerRequest req) {
+			added.add(req);
+		}
+
+		@Override
+		public Resource getAvailableResources() {
+			return null;
+		}
+
+		@Override
+		public int getClusterNodeCount() {
+			return 0;
+		}
+
+		@Override
+		public List<? extends Collection<ContainerRequest>> getMatchingRequests(Priority priority, String resourceName, Resource capability) {
+			return null;
+		}
+
+		@Override
+		public RegisterApplicationMasterResponse registerApplicationMaster(String appHostName, int appHostPort, String appTrackingUrl) {
+			return null;
+		}
+
+		@Override
+		public void releaseAssignedContainer(ContainerId containerId) {
+			released.add(containerId);
+		}
+
+		@Override
+		public void removeContainerRequest(ContainerRequest req) {
+		}
+
+		@Override
+		public void unregisterApplicationMaster(FinalApplicationStatus appStatus, String appMessage, String appTrackingUrl) {
+		}
+	}
+
+	static {
+		// each Application Master registers its metrics
+		DefaultMetricsSystem.setMiniClusterMode(true);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void doesNotRequestDeclinedContainerOfMovedTasksAgain() {
+		RoundRobin scheduler = new RoundRobin("rmCallbackHandler", null, null);
+		scheduler.setAvailableNodes(Arrays.asList("Charlie", "Tango"));
+		List<TaskInstance> tasks = new ArrayList<>();
+		UUID workflowId = UUID.randomUUID();
+		for (int i = 0; i < 2; i++) {
+			tasks.add(new TaskInstance(workflowId, "task", 0));
+		}
+		scheduler.addTasks(tasks);
+
+		StubAppMaster am = new StubAppMaster(scheduler);
+		RMCallbackHandler allocListener = new RMCallbackHandler(am);
+		Resource resource = Resource.newInstance(1024, 1);
+		Priority priority = Priority.newInstance(0);
+		am.getRequestLedger().add(new ContainerRequest(resource, new String[] { "Charlie" }, null, priority, false));
+
+		// the task assigned to Charlie is moved to Tango while a container on Charlie is being allocated
+		scheduler.nodeLeft("Charlie");
+		Container container = Container.newInstance(ContainerId.newInstance(null, 1), NodeId.newInstance("Charlie", 0), "", resource, priority,
+				Token.newInstance(new byte[0], "", new byte[0], ""));
+		allocListener.onContainersAllocated(Collections.singletonList(container));
+
+		assertEquals(Collections.singletonList(container.getId()), am.client.released);
+		assertEquals(1, am.client.added.size());
+		assertEquals(0, am.getRequestLedger().size());
+	}
+
+}
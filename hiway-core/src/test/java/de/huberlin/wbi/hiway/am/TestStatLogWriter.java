@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
+import de.huberlin.wbi.hiway.scheduler.gq.GreedyQueue;
+
+public class TestStatLogWriter {
+
+	// records the entries added to the provenance database instead of writing them to a database
+	private static class RecordingScheduler extends GreedyQueue {
+		private final List<JsonReportEntry> entries = new ArrayList<>();
+
+		public RecordingScheduler() {
+			super("statLogWriter", null, null);
+		}
+
+		@Override
+		public void addEntryToDB(JsonReportEntry entry) {
+			entries.add(entry);
+		}
+	}
+
+	private static void writeAndClose(int capacity, int batchSize, int batchMs) throws IOException {
+		StringWriter log = new StringWriter();
+		RecordingScheduler scheduler = new RecordingScheduler();
+		StatLogWriter writer = new StatLogWriter(new BufferedWriter(log), null, scheduler, capacity, batchSize, batchMs);
+		writer.start();
+
+		UUID runId = UUID.randomUUID();
+		List<JsonReportEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			JsonReportEntry entry = new JsonReportEntry(runId, null, null, null, null, null, "key", Integer.toString(i));
+			entries.add(entry);
+			writer.write(entry);
+		}
+		writer.close();
+		// entries written after the log has been closed are discarded
+		writer.write(new JsonReportEntry(runId, null, null, null, null, null, "key", "closed"));
+
+		assertEquals(entries, scheduler.entries);
+		try (BufferedReader reader = new BufferedReader(new StringReader(log.toString()))) {
+			for (JsonReportEntry entry : entries) {
+				assertEquals(entry.toString(), reader.readLine());
+			}
+			assertEquals(null, reader.readLine());
+		}
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void commitsAllEntriesInOrder() throws IOException {
+		writeAndClose(10000, 100, 10);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void commitsAllEntriesThroughFullQueue() throws IOException {
+		writeAndClose(8, 3, 0);
+	}
+
+}
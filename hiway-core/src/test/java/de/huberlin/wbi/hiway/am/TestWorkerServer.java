@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.am;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.common.Worker;
+
+public class TestWorkerServer {
+
+	private static String pushReport(WorkerServer server, String containerId, String secret) throws IOException, JSONException {
+		JSONObject request = new JSONObject();
+		request.put(Worker.REUSE_KEY_TYPE, Worker.REPORT_TYPE_REPORT);
+		request.put(Worker.REUSE_KEY_CONTAINER, containerId);
+		if (secret != null) {
+			request.put(Worker.REUSE_KEY_SECRET, secret);
+		}
+		request.put(Worker.REPORT_KEY_LINES, new JSONArray());
+		request.put(Worker.REPORT_KEY_STDOUT, "out");
+		request.put(Worker.REPORT_KEY_STDERR, "err");
+		try (Socket socket = new Socket("localhost", server.getPort());
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+			writer.write(request.toString());
+			writer.newLine();
+			writer.flush();
+			return reader.readLine();
+		}
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void acceptsReportWithSecretOfContainer() throws IOException, JSONException {
+		WorkerServer server = new WorkerServer(null, null, 1);
+		server.start();
+		try {
+			String secret = server.newSecret("container_1");
+			assertNotNull(pushReport(server, "container_1", secret));
+			WorkerServer.PushedReport report = server.takeReport("container_1");
+			assertNotNull(report);
+			assertEquals("out\n", report.stdout);
+			assertEquals("err\n", report.stderr);
+		} finally {
+			server.close();
+		}
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void rejectsForgedReports() throws IOException, JSONException {
+		WorkerServer server = new WorkerServer(null, null, 1);
+		server.start();
+		try {
+			String secret = server.newSecret("container_1");
+			server.newSecret("container_2");
+			// no secret, the secret of another container and a container the AM has not launched
+			assertNull(pushReport(server, "container_2", null));
+			assertNull(pushReport(server, "container_2", secret));
+			assertNull(pushReport(server, "container_3", secret));
+			assertNull(server.takeReport("container_2"));
+			assertNull(server.takeReport("container_3"));
+
+			// once the container has completed, its secret is no longer accepted
+			server.forgetContainer("container_1");
+			assertNull(pushReport(server, "container_1", secret));
+			assertNull(server.takeReport("container_1"));
+		} finally {
+			server.close();
+		}
+	}
+
+}
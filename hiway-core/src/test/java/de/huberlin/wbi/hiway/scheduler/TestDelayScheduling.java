@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.DelayScheduling.Locality;
+
+public class TestDelayScheduling {
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void doesNotSkipIfDisabled() {
+		TaskInstance task = new TaskInstance(UUID.randomUUID(), "task", 0);
+		DelayScheduling delayScheduling = new DelayScheduling(0, 1000);
+		assertFalse(delayScheduling.isEnabled());
+		assertFalse(delayScheduling.skip(task));
+		assertFalse(new DelayScheduling(3, 0).skip(task));
+		assertEquals(0, delayScheduling.getTotalSkips());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void skipsAtMostMaxSkipsOffers() {
+		TaskInstance task = new TaskInstance(UUID.randomUUID(), "task", 0);
+		TaskInstance otherTask = new TaskInstance(UUID.randomUUID(), "task", 0);
+		DelayScheduling delayScheduling = new DelayScheduling(2, Long.MAX_VALUE);
+		assertTrue(delayScheduling.skip(task));
+		assertTrue(delayScheduling.skip(task));
+		assertFalse(delayScheduling.skip(task));
+		assertEquals(2, delayScheduling.getSkips(task));
+		// the skips are counted per task
+		assertTrue(delayScheduling.skip(otherTask));
+		assertEquals(3, delayScheduling.getTotalSkips());
+
+		// once assigned, a task starts skipping anew
+		delayScheduling.taskAssigned(task, Locality.OFF_SWITCH);
+		assertEquals(0, delayScheduling.getSkips(task));
+		assertTrue(delayScheduling.skip(task));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void stopsSkippingAfterMaxDelay() throws InterruptedException {
+		TaskInstance task = new TaskInstance(UUID.randomUUID(), "task", 0);
+		DelayScheduling delayScheduling = new DelayScheduling(Integer.MAX_VALUE, 50);
+		assertTrue(delayScheduling.skip(task));
+		Thread.sleep(100);
+		assertFalse(delayScheduling.skip(task));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void tracksLocalityOfAssignments() {
+		DelayScheduling delayScheduling = new DelayScheduling(3, 1000);
+		assertEquals(0d, delayScheduling.getLocalityHitRate(), 0d);
+		delayScheduling.taskAssigned(new TaskInstance(UUID.randomUUID(), "task", 0), Locality.NODE_LOCAL);
+		delayScheduling.taskAssigned(new TaskInstance(UUID.randomUUID(), "task", 0), Locality.NODE_LOCAL);
+		delayScheduling.taskAssigned(new TaskInstance(UUID.randomUUID(), "task", 0), Locality.RACK_LOCAL);
+		delayScheduling.taskAssigned(new TaskInstance(UUID.randomUUID(), "task", 0), Locality.OFF_SWITCH);
+		assertEquals(2, delayScheduling.getAssignments(Locality.NODE_LOCAL));
+		assertEquals(1, delayScheduling.getAssignments(Locality.RACK_LOCAL));
+		assertEquals(0.75, delayScheduling.getLocalityHitRate(), 1e-9);
+	}
+
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.hadoop.yarn.api.records.Resource;
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.scheduler.gq.GreedyQueue;
+
+public class TestResourceProfile {
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void determinesPercentiles() {
+		ResourceProfile profile = new ResourceProfile(100);
+		for (int i = 100; i >= 1; i--) {
+			profile.add(10 * i, i / 100d);
+		}
+		assertEquals(100, profile.size());
+		assertEquals(500, profile.getMemory(50));
+		assertEquals(950, profile.getMemory(95));
+		assertEquals(1000, profile.getMemory(100));
+		assertEquals(10, profile.getMemory(0));
+		assertEquals(0.9, profile.getCores(90), 1e-9);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void forgetsSamplesOutsideOfWindow() {
+		ResourceProfile profile = new ResourceProfile(3);
+		profile.add(5000, 4d);
+		profile.add(100, 1d);
+		profile.add(200, 1d);
+		assertEquals(5000, profile.getMemory(100));
+		profile.add(300, 2d);
+		assertEquals(3, profile.size());
+		assertEquals(300, profile.getMemory(100));
+		assertEquals(2d, profile.getCores(100), 0d);
+		assertEquals(100, profile.getMemory(0));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void sizesContainersFromProfile() {
+		Scheduler scheduler = new GreedyQueue("resourceProfile", null, null);
+		scheduler.containerMemory = 4096;
+		scheduler.containerCores = 2;
+		scheduler.sizeContainers = true;
+		scheduler.sizingIncrement = 256;
+		scheduler.sizingMinSamples = 3;
+		scheduler.sizingPercentile = 100;
+		scheduler.sizingSafetyFactor = 1.5f;
+		scheduler.sizingWindow = 10;
+
+		ResourceProfile profile = new ResourceProfile(scheduler.sizingWindow);
+		scheduler.resourceProfiles.put(42L, profile);
+		profile.add(500, 0.6);
+		profile.add(600, 0.8);
+		// too few samples to size containers from
+		assertEquals(4096, scheduler.getMemory(42));
+		assertEquals(2, scheduler.getVirtualCores(42));
+
+		profile.add(700, 1.4);
+		// 700 MB * 1.5 = 1050 MB, rounded up to the next multiple of 256 MB
+		assertEquals(1280, scheduler.getMemory(42));
+		assertEquals(1, scheduler.getVirtualCores(42));
+		// tasks of other signatures are requested the configured resources
+		assertEquals(4096, scheduler.getMemory(7));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void doesNotExceedMaximumCapability() {
+		Scheduler scheduler = new GreedyQueue("resourceProfile", null, null);
+		scheduler.containerMemory = 4096;
+		scheduler.containerCores = 2;
+		scheduler.sizeContainers = true;
+		scheduler.sizingIncrement = 256;
+		scheduler.sizingMinSamples = 1;
+		scheduler.sizingPercentile = 100;
+		scheduler.sizingSafetyFactor = 1.5f;
+		scheduler.setMaximumCapability(Resource.newInstance(2048, 4));
+
+		ResourceProfile profile = new ResourceProfile(10);
+		scheduler.resourceProfiles.put(42L, profile);
+		profile.add(3000, 6d);
+		assertEquals(2048, scheduler.getMemory(42));
+		assertEquals(4, scheduler.getVirtualCores(42));
+		// the configured resources are limited as well
+		assertEquals(2048, scheduler.getMemory(7));
+		assertEquals(2, scheduler.getVirtualCores(7));
+	}
+
+}
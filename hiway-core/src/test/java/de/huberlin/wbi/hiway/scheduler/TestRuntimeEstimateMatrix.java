@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.scheduler.estimators.MeanEstimator;
+
+public class TestRuntimeEstimateMatrix {
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void internsNodesAndTasks() {
+		RuntimeEstimateMatrix matrix = new RuntimeEstimateMatrix();
+		assertEquals(0, matrix.addNode("Charlie"));
+		assertEquals(1, matrix.addNode("Tango"));
+		assertEquals(0, matrix.addNode("Charlie"));
+		assertEquals(0, matrix.addTask(42));
+		assertEquals(0, matrix.addTask(42));
+
+		assertEquals(2, matrix.getNumberOfNodes());
+		assertEquals(1, matrix.getNumberOfTasks());
+		assertEquals("Tango", matrix.getNodeId(1));
+		assertEquals(42, matrix.getTaskId(0));
+		assertEquals(1, matrix.getNodeIndex("Tango"));
+		assertEquals(-1, matrix.getNodeIndex("Foxtrot"));
+		assertEquals(-1, matrix.getTaskIndex(7));
+		assertTrue(matrix.containsNode("Charlie"));
+		assertFalse(matrix.containsTask(7));
+		assertEquals(2, matrix.getNodeIds().size());
+		assertTrue(matrix.getTaskIds().contains(42L));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void keepsStatisticsWhileGrowing() {
+		RuntimeEstimateMatrix matrix = new RuntimeEstimateMatrix();
+		int n = 40;
+		// nodes and task signatures are registered alternately, such that both the number of rows and the length of each row grow past the initial capacity
+		for (int i = 0; i < n; i++) {
+			int node = matrix.addNode("node" + i);
+			int task = matrix.addTask(i);
+			matrix.setEstimator(node, task, new MeanEstimator());
+			matrix.addObservation(node, task, 10 * i, -1);
+			matrix.addObservation(node, task, 10 * i + 2, -1);
+		}
+
+		for (int i = 0; i < n; i++) {
+			int node = matrix.getNodeIndex("node" + i);
+			int task = matrix.getTaskIndex(i);
+			assertEquals(2, matrix.getFinishedTasks(node, task));
+			assertEquals(20 * i + 2, matrix.getTimeSpent(node, task));
+			assertEquals(10 * i + 1, matrix.getEstimate(node, task));
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					assertEquals(0, matrix.getFinishedTasks(node, matrix.getTaskIndex(j)));
+					assertEquals(0, matrix.getEstimate(node, matrix.getTaskIndex(j)));
+					assertNull(matrix.getEstimator(node, matrix.getTaskIndex(j)));
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.hadoop.yarn.api.records.Container;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.api.records.NodeId;
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.common.TaskInstance;
+import de.huberlin.wbi.hiway.scheduler.rr.RoundRobin;
+
+public class TestStaticScheduler {
+
+	private static int containerIds = 0;
+
+	@SuppressWarnings("deprecation")
+	private static Container newContainer(String host) {
+		return Container.newInstance(ContainerId.newInstance(null, containerIds++), NodeId.newInstance(host, 0), "", null, null, null);
+	}
+
+	private static RoundRobin newScheduler(int nTasks, String... nodeIds) {
+		RoundRobin scheduler = new RoundRobin("staticScheduler", null, null);
+		scheduler.setAvailableNodes(Arrays.asList(nodeIds));
+		List<TaskInstance> tasks = new ArrayList<>();
+		UUID workflowId = UUID.randomUUID();
+		for (int i = 0; i < nTasks; i++) {
+			tasks.add(new TaskInstance(workflowId, "task", 0));
+		}
+		scheduler.addTasks(tasks);
+		return scheduler;
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void movesTasksOfLeavingNode() {
+		RoundRobin scheduler = newScheduler(4, "Charlie", "Tango");
+		assertEquals(2, scheduler.queues.get("Charlie").size());
+
+		scheduler.nodeLeft("Charlie");
+		assertFalse(scheduler.queues.containsKey("Charlie"));
+		assertEquals(4, scheduler.queues.get("Tango").size());
+		assertEquals(4, scheduler.getNumberOfReadyTasks());
+		assertTrue(scheduler.nothingToSchedule("Charlie"));
+		assertFalse(scheduler.nothingToSchedule("Tango"));
+		// the requests for containers on the node that has left are replaced by requests for containers on the other node
+		int nodeRequests = 0;
+		while (scheduler.hasNextNodeRequest()) {
+			assertEquals("Tango", scheduler.getNextNodeRequest().nodes[0]);
+			nodeRequests++;
+		}
+		assertEquals(4, nodeRequests);
+		assertNull(scheduler.pollRevokedNodeRequest());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void keepsTasksOfLastNode() {
+		RoundRobin scheduler = newScheduler(2, "Charlie");
+		scheduler.nodeLeft("Charlie");
+		assertEquals(2, scheduler.queues.get("Charlie").size());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void assignsTasksToJoiningNode() {
+		RoundRobin scheduler = newScheduler(2, "Charlie");
+		scheduler.nodeJoined("Tango");
+		assertTrue(scheduler.queues.containsKey("Tango"));
+		assertTrue(scheduler.nothingToSchedule("Tango"));
+		assertNotNull(scheduler.getNextTask(newContainer("Charlie")));
+		assertNull(scheduler.getNextTask(newContainer("Tango")));
+	}
+
+}
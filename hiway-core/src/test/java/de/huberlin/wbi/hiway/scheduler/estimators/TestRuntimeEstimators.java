@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.estimators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestRuntimeEstimators {
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void ewmaFollowsRecentObservations() {
+		EwmaEstimator estimator = new EwmaEstimator(0.5);
+		assertEquals(0, estimator.getEstimate());
+		estimator.addObservation(100, -1);
+		assertEquals(100, estimator.getEstimate());
+		estimator.addObservation(200, -1);
+		assertEquals(150, estimator.getEstimate());
+		estimator.addObservation(350, -1);
+		assertEquals(250, estimator.getEstimate());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void meanAveragesAllObservations() {
+		MeanEstimator estimator = new MeanEstimator();
+		assertEquals(0, estimator.getEstimate());
+		estimator.addObservation(100, -1);
+		estimator.addObservation(200, 10);
+		estimator.addObservation(300, 20);
+		assertEquals(200, estimator.getEstimate());
+		// the size of the input data is disregarded
+		assertEquals(200, estimator.getEstimate(1000));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void quantileOfFewObservations() {
+		QuantileEstimator estimator = new QuantileEstimator(0.5);
+		assertEquals(0, estimator.getEstimate());
+		estimator.addObservation(30, -1);
+		estimator.addObservation(10, -1);
+		estimator.addObservation(20, -1);
+		assertEquals(20, estimator.getEstimate());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void quantileApproximatesDistribution() {
+		QuantileEstimator median = new QuantileEstimator(0.5);
+		QuantileEstimator percentile = new QuantileEstimator(0.9);
+		Random random = new Random(0);
+		for (int i = 0; i < 10000; i++) {
+			long runtime = random.nextInt(1000);
+			median.addObservation(runtime, -1);
+			percentile.addObservation(runtime, -1);
+		}
+		// a few outliers do not affect the median
+		for (int i = 0; i < 10; i++) {
+			median.addObservation(1000000, -1);
+		}
+		assertTrue(Math.abs(median.getEstimate() - 500) < 30);
+		assertTrue(Math.abs(percentile.getEstimate() - 900) < 30);
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void regressionExtrapolatesInputSize() {
+		InputSizeRegressionEstimator estimator = new InputSizeRegressionEstimator();
+		estimator.addObservation(120, 10);
+		estimator.addObservation(140, 20);
+		estimator.addObservation(180, 40);
+		assertEquals(200, estimator.getEstimate(50));
+		assertEquals(100, estimator.getEstimate(0));
+		// without a known input size, the mean runtime serves as the estimate
+		assertEquals(146, estimator.getEstimate(-1));
+		assertEquals(146, estimator.getEstimate());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void regressionFallsBackToMean() {
+		InputSizeRegressionEstimator estimator = new InputSizeRegressionEstimator();
+		assertEquals(0, estimator.getEstimate(100));
+		estimator.addObservation(100, 10);
+		estimator.addObservation(200, 10);
+		estimator.addObservation(300, -1);
+		// all invocations of known input size had the same input size, such that no slope can be fit
+		assertEquals(200, estimator.getEstimate(100));
+	}
+
+}
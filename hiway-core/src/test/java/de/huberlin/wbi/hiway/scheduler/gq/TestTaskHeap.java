@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.gq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import de.huberlin.wbi.hiway.common.TaskInstance;
+
+public class TestTaskHeap {
+
+	private static List<TaskInstance> createTasks(int n) {
+		UUID workflowId = UUID.randomUUID();
+		List<TaskInstance> tasks = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			tasks.add(new TaskInstance(workflowId, "task" + i, i));
+		}
+		return tasks;
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void pollsInOrderOfPriority() {
+		List<TaskInstance> tasks = createTasks(100);
+		TaskHeap heap = new TaskHeap();
+		Random random = new Random(0);
+		double[] priorities = new double[tasks.size()];
+		for (int i = 0; i < tasks.size(); i++) {
+			priorities[i] = random.nextInt(20);
+			heap.add(tasks.get(i), priorities[i]);
+		}
+		assertEquals(tasks.size(), heap.size());
+
+		double lastPriority = Double.MAX_VALUE;
+		long lastTaskId = -1;
+		while (!heap.isEmpty()) {
+			TaskInstance task = heap.poll();
+			double priority = priorities[(int) task.getTaskId()];
+			assertTrue(priority <= lastPriority);
+			// tasks of equal priority are polled in the order of their insertion
+			if (priority == lastPriority) {
+				assertTrue(task.getTaskId() > lastTaskId);
+			}
+			lastPriority = priority;
+			lastTaskId = task.getTaskId();
+		}
+		assertNull(heap.poll());
+		assertNull(heap.peek());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void removesArbitraryTasks() {
+		List<TaskInstance> tasks = createTasks(10);
+		TaskHeap heap = new TaskHeap();
+		for (int i = 0; i < tasks.size(); i++) {
+			heap.add(tasks.get(i), i);
+		}
+
+		assertTrue(heap.remove(tasks.get(9)));
+		assertTrue(heap.remove(tasks.get(4)));
+		assertFalse(heap.remove(tasks.get(4)));
+		assertFalse(heap.contains(tasks.get(4)));
+		assertTrue(heap.contains(tasks.get(5)));
+		assertEquals(8, heap.size());
+
+		int[] expectedOrder = { 8, 7, 6, 5, 3, 2, 1, 0 };
+		for (int i : expectedOrder) {
+			assertEquals(tasks.get(i), heap.poll());
+		}
+		assertTrue(heap.isEmpty());
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void updatesPriorities() {
+		List<TaskInstance> tasks = createTasks(5);
+		TaskHeap heap = new TaskHeap();
+		for (int i = 0; i < tasks.size(); i++) {
+			heap.add(tasks.get(i), i);
+		}
+
+		assertTrue(heap.update(tasks.get(0), 10));
+		assertEquals(tasks.get(0), heap.peek());
+		assertTrue(heap.update(tasks.get(0), -1));
+		assertEquals(tasks.get(4), heap.peek());
+		assertTrue(heap.update(tasks.get(2), 3));
+		heap.poll();
+		// the updated task keeps its sequence number and thus precedes the task of equal priority inserted after it
+		assertEquals(tasks.get(2), heap.poll());
+		assertEquals(tasks.get(3), heap.poll());
+		assertEquals(tasks.get(1), heap.poll());
+		assertEquals(tasks.get(0), heap.poll());
+
+		assertFalse(heap.update(tasks.get(0), 0));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void visitsParentsBeforeChildren() {
+		List<TaskInstance> tasks = createTasks(50);
+		TaskHeap heap = new TaskHeap();
+		Random random = new Random(1);
+		for (TaskInstance task : tasks) {
+			heap.add(task, random.nextDouble());
+		}
+		// the first task visited by the iterator is the task of highest priority
+		assertEquals(heap.peek(), heap.iterator().next());
+		int visited = 0;
+		for (TaskInstance task : heap) {
+			assertTrue(heap.contains(task));
+			visited++;
+		}
+		assertEquals(tasks.size(), visited);
+	}
+
+}
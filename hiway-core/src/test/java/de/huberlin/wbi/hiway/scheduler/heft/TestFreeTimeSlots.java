@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * In the Hi-WAY project we propose a novel approach of executing scientific
+ * workflows processing Big Data, as found in NGS applications, on distributed
+ * computational infrastructures. The Hi-WAY software stack comprises the func-
+ * tional workflow language Cuneiform as well as the Hi-WAY ApplicationMaster
+ * for Apache Hadoop 2.x (YARN).
+ *
+ * List of Contributors:
+ *
+ * Marc Bux (HU Berlin)
+ * Jörgen Brandt (HU Berlin)
+ * Hannes Schuh (HU Berlin)
+ * Ulf Leser (HU Berlin)
+ *
+ * Jörgen Brandt is funded by the European Commission through the BiobankCloud
+ * project. Marc Bux is funded by the Deutsche Forschungsgemeinschaft through
+ * research training group SOAMED (GRK 1651).
+ *
+ * Copyright 2014 Humboldt-Universität zu Berlin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.huberlin.wbi.hiway.scheduler.heft;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestFreeTimeSlots {
+
+	// the earliest start determined by checking every candidate start against every occupied interval
+	private static long getEarliestStart(List<long[]> occupied, long readyTime, long duration) {
+		List<Long> candidates = new ArrayList<>();
+		candidates.add(readyTime);
+		for (long[] interval : occupied) {
+			if (interval[1] > readyTime) {
+				candidates.add(interval[1]);
+			}
+		}
+		long earliestStart = Long.MAX_VALUE;
+		for (long candidate : candidates) {
+			boolean free = true;
+			for (long[] interval : occupied) {
+				if (candidate < interval[1] && interval[0] < candidate + duration) {
+					free = false;
+					break;
+				}
+			}
+			if (free && candidate < earliestStart) {
+				earliestStart = candidate;
+			}
+		}
+		return earliestStart;
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void fillsGaps() {
+		FreeTimeSlots slots = new FreeTimeSlots();
+		assertEquals(5, slots.getEarliestStart(5, 10));
+		slots.occupy(5, 10);
+
+		assertEquals(0, slots.getEarliestStart(0, 5));
+		assertEquals(15, slots.getEarliestStart(0, 6));
+		assertEquals(3, slots.getEarliestStart(3, 2));
+		assertEquals(15, slots.getEarliestStart(3, 3));
+		assertEquals(20, slots.getEarliestStart(20, 100));
+
+		slots.occupy(0, 5);
+		assertEquals(15, slots.getEarliestStart(0, 1));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void ignoresEmptyIntervals() {
+		FreeTimeSlots slots = new FreeTimeSlots();
+		slots.occupy(10, 0);
+		slots.occupy(10, -5);
+		assertEquals(0, slots.getEarliestStart(0, 20));
+
+		slots.occupy(0, 10);
+		slots.occupy(10, 0);
+		assertEquals(10, slots.getEarliestStart(0, 5));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void matchesExhaustiveSearch() {
+		FreeTimeSlots slots = new FreeTimeSlots();
+		List<long[]> occupied = new ArrayList<>();
+		Random random = new Random(0);
+		for (int i = 0; i < 500; i++) {
+			long readyTime = random.nextInt(5000);
+			long duration = 1 + random.nextInt(50);
+			long start = getEarliestStart(occupied, readyTime, duration);
+			assertEquals(start, slots.getEarliestStart(readyTime, duration));
+			slots.occupy(start, duration);
+			occupied.add(new long[] { start, start + duration });
+		}
+	}
+
+}
@@ -37,11 +37,15 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -382,55 +386,60 @@ public class HiwayDB implements HiwayDBI {
 	private static Collection<InvocStat> createInvocStat(List<Invocation> invocations, Session sess) {
 
 		Set<InvocStat> resultList = new HashSet<>();
-		Invocation tempInvoc;
 
 		for (int i = 0; i < invocations.size(); i++) {
-			tempInvoc = invocations.get(i);
-
-			InvocStat invoc = new InvocStat(tempInvoc.getWorkflowrun().getRunId(), tempInvoc.getTask().getTaskId());
+			InvocStat invoc = createInvocStat(invocations.get(i));
+			if (invoc != null) {
+				resultList.add(invoc);
+			}
+		}
+		if (sess != null && sess.isOpen()) {
+			sess.close();
 
-			if (tempInvoc.getHostname() != null && tempInvoc.getTask().getTaskId() != 0 && tempInvoc.getRealTime() != null) {
-				invoc.setHostName(tempInvoc.getHostname());
-				invoc.setRealTime(tempInvoc.getRealTime(), tempInvoc.getTimestamp());
+			System.out.println("hiwayDB | Close Session  -> CreateInvocStat DONE ->Size: " + resultList.size());
+		}
 
-				Set<FileStat> iFiles = new HashSet<>();
-				Set<FileStat> oFiles = new HashSet<>();
+		return resultList;
+	}
 
-				// Files
-				for (File f : tempInvoc.getFiles()) {
+	// returns null if the invocation has not been completed
+	private static InvocStat createInvocStat(Invocation tempInvoc) {
+		InvocStat invoc = new InvocStat(tempInvoc.getWorkflowrun().getRunId(), tempInvoc.getTask().getTaskId());
 
-					FileStat iFile = new FileStat();
-					iFile.setFileName(f.getName());
+		if (tempInvoc.getHostname() == null || tempInvoc.getTask().getTaskId() == 0 || tempInvoc.getRealTime() == null) {
+			return null;
+		}
+		invoc.setHostName(tempInvoc.getHostname());
+		invoc.setRealTime(tempInvoc.getRealTime(), tempInvoc.getTimestamp());
 
-					FileStat oFile = new FileStat();
-					oFile.setFileName(f.getName());
+		Set<FileStat> iFiles = new HashSet<>();
+		Set<FileStat> oFiles = new HashSet<>();
 
-					if (f.getRealTimeIn() != null) {
-						iFile.setRealTime(f.getRealTimeIn());
-						iFile.setSize(f.getSize());
-						iFiles.add(iFile);
-					}
+		// Files
+		for (File f : tempInvoc.getFiles()) {
 
-					if (f.getRealTimeOut() != null) {
-						oFile.setRealTime(f.getRealTimeOut());
-						oFile.setSize(f.getSize());
-						oFiles.add(oFile);
-					}
-				}
+			FileStat iFile = new FileStat();
+			iFile.setFileName(f.getName());
 
-				invoc.setInputfiles(iFiles);
-				invoc.setOutputfiles(oFiles);
+			FileStat oFile = new FileStat();
+			oFile.setFileName(f.getName());
 
-				resultList.add(invoc);
+			if (f.getRealTimeIn() != null) {
+				iFile.setRealTime(f.getRealTimeIn());
+				iFile.setSize(f.getSize());
+				iFiles.add(iFile);
 			}
-		}
-		if (sess != null && sess.isOpen()) {
-			sess.close();
 
-			System.out.println("hiwayDB | Close Session  -> CreateInvocStat DONE ->Size: " + resultList.size());
+			if (f.getRealTimeOut() != null) {
+				oFile.setRealTime(f.getRealTimeOut());
+				oFile.setSize(f.getSize());
+				oFiles.add(oFile);
+			}
 		}
 
-		return resultList;
+		invoc.setInputfiles(iFiles);
+		invoc.setOutputfiles(oFiles);
+		return invoc;
 	}
 
 	@Override
@@ -494,6 +503,135 @@ public class HiwayDB implements HiwayDBI {
 		return resultList;
 	}
 
+	@Override
+	public void getLogEntriesForWorkflowSince(String workflowName, long timestamp, InvocStatHandler handler) {
+		Long tick = System.currentTimeMillis();
+		if (dbSessionFactory == null) {
+			dbSessionFactory = getSQLSession();
+		}
+
+		Session sess = dbSessionFactory.openSession();
+		Session sessAT = dbSessionFactoryMessung.openSession();
+		Transaction txMessung = null;
+		Accesstime at = new Accesstime();
+		long x = 0;
+
+		try {
+			txMessung = sessAT.beginTransaction();
+
+			at.setTick(tick);
+			at.setFunktion("getLogEntriesForWorkflowSince");
+			at.setInput("SQL");
+			at.setConfig(config);
+			at.setDbvolume(dbVolume);
+
+			Query query = sess.createQuery("FROM Invocation I WHERE I.workflowrun.wfname = :wfname and I.Timestamp > :timestamp");
+			query.setString("wfname", workflowName);
+			query.setLong("timestamp", timestamp);
+			query.setFetchSize(1000);
+
+			// the invocations are streamed from a cursor and evicted from the session once handled, such that they are not held in memory all at once
+			ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (results.next()) {
+					InvocStat invoc = createInvocStat((Invocation) results.get(0));
+					if (invoc != null) {
+						handler.handle(invoc);
+					}
+					if (++x % 1000 == 0) {
+						sess.clear();
+					}
+				}
+			} finally {
+				results.close();
+			}
+
+			at.setReturnvolume(x);
+
+		} catch (RuntimeException e) {
+			throw e; // or display error message
+		} finally {
+			if (sess.isOpen()) {
+				sess.close();
+			}
+
+		}
+
+		Long tock = System.currentTimeMillis();
+		at.setTock(tock);
+		at.setTicktockdif(tock - tick);
+		at.setRunId(this.runIDat);
+		at.setWfName(this.wfName);
+		sessAT.save(at);
+
+		txMessung.commit();
+
+		if (sessAT.isOpen()) {
+			sessAT.close();
+		}
+	}
+
+	@Override
+	public Map<Long, String> getTaskNames(Collection<Long> taskIds) {
+		Long tick = System.currentTimeMillis();
+		if (dbSessionFactory == null) {
+			dbSessionFactory = getSQLSession();
+		}
+
+		Map<Long, String> result = new HashMap<>();
+		if (taskIds.isEmpty()) {
+			return result;
+		}
+
+		Session sess = dbSessionFactory.openSession();
+		Session sessAT = dbSessionFactoryMessung.openSession();
+		Transaction txMessung = null;
+		Accesstime at = new Accesstime();
+
+		try {
+			txMessung = sessAT.beginTransaction();
+
+			at.setTick(tick);
+			at.setFunktion("getTaskNames");
+			at.setWfName(wfName);
+			at.setConfig(config);
+			at.setInput("SQL");
+			at.setDbvolume(dbVolume);
+
+			Query query = sess.createQuery("FROM Task T WHERE T.taskid IN (:taskids)");
+			query.setParameterList("taskids", taskIds);
+
+			for (Object t : query.list()) {
+				result.put(((Task) t).getTaskId(), ((Task) t).getTaskName());
+			}
+
+			at.setReturnvolume((long) result.size());
+
+		} catch (RuntimeException e) {
+			throw e; // or display error message
+		} finally {
+			if (sess.isOpen()) {
+				sess.close();
+			}
+
+		}
+
+		Long tock = System.currentTimeMillis();
+		at.setTock(tock);
+		at.setTicktockdif(tock - tick);
+		at.setRunId(this.runIDat);
+		at.setWfName(this.wfName);
+		sessAT.save(at);
+
+		txMessung.commit();
+
+		if (sessAT.isOpen()) {
+			sessAT.close();
+		}
+
+		return result;
+	}
+
 	private void lineToDB(JsonReportEntry logEntryRow) {
 
 		Long tick = System.currentTimeMillis();
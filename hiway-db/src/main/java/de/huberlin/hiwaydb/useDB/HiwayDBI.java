@@ -33,6 +33,7 @@
 package de.huberlin.hiwaydb.useDB;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import de.huberlin.wbi.cuneiform.core.semanticmodel.JsonReportEntry;
@@ -43,12 +44,15 @@ public interface HiwayDBI {
 	public static final String KEY_FILE_TIME_STAGEOUT = "file-time-stageout";
 	public static final String KEY_HIWAY_EVENT = "hiway-event";
 	public static final String KEY_INVOC_HOST = "invoc-host";
+	public static final String KEY_INVOC_RESOURCES = "invoc-resources";
 	public static final String KEY_INVOC_TIME_SCHED = "invoc-time-sched";
 	public static final String KEY_INVOC_TIME_STAGEIN = "invoc-time-stagein";
 	public static final String KEY_INVOC_TIME_STAGEOUT = "invoc-time-stageout";
 	public static final String KEY_WF_NAME = "wf-name";
 	public static final String KEY_WF_TIME = "wf-time";
 	public static final String KEY_WF_OUTPUT = "wf-output";
+	public static final String LABEL_CPUTIME = "cpuTime";
+	public static final String LABEL_PEAKRSS = "peakRss";
 
 	public Set<String> getHostNames();
 
@@ -60,6 +64,28 @@ public interface HiwayDBI {
 
 	public Collection<InvocStat> getLogEntriesForTaskOnHostSince(long taskId, String hostName, long timestamp);
 
+	/**
+	 * Retrieves all completed invocations of the given workflow (on any host) that have been logged after the given timestamp in a single query, handing
+	 * them over to the given handler one at a time.
+	 * 
+	 * @param workflowName
+	 *            The name of the workflow.
+	 * @param timestamp
+	 *            Only invocations with a later timestamp are retrieved.
+	 * @param handler
+	 *            The handler to which the invocations are handed over.
+	 */
+	public void getLogEntriesForWorkflowSince(String workflowName, long timestamp, InvocStatHandler handler);
+
+	/**
+	 * Retrieves the names of the given tasks in a single query.
+	 * 
+	 * @param taskIds
+	 *            The ids of the tasks.
+	 * @return The names of the tasks by their id (tasks not found in the database are omitted).
+	 */
+	public Map<Long, String> getTaskNames(Collection<Long> taskIds);
+
 	public void logToDB(JsonReportEntry entry);
 
 }
@@ -439,6 +439,39 @@ public class HiwayDBNoSQL implements HiwayDBI {
 		return workflowName;
 	}
 
+	@Override
+	public Map<Long, String> getTaskNames(Collection<Long> taskIds) {
+		Long tick = System.currentTimeMillis();
+		Map<Long, String> names = new HashMap<>();
+		if (taskIds.isEmpty()) {
+			return names;
+		}
+		if (client == null) {
+			getConnection();
+		}
+
+		View view = client.getView("Invoc", "getTaskname");
+		// Set up the Query object
+		Query query = new Query();
+		StringBuilder keys = new StringBuilder("[");
+		// task ids are emitted as numbers, such that the keys must not be quoted (cf. getTaskNameTemp)
+		for (Long id : taskIds) {
+			keys.append(id).append(",");
+		}
+		keys.setCharAt(keys.length() - 1, ']');
+		query.setIncludeDocs(false).setKeys(keys.toString());
+		// Query the Cluster
+		ViewResponse result = client.query(view, query);
+
+		for (ViewRow row : result) {
+			names.put(Long.parseLong(row.getKey()), row.getValue());
+		}
+
+		Long tock = System.currentTimeMillis();
+		saveAccessTime(tick, tock, names.size(), "getTaskNames", null);
+		return names;
+	}
+
 	private String getTaskNameTemp(long taskId) {
 		if (client == null) {
 			getConnection();
@@ -499,6 +532,34 @@ public class HiwayDBNoSQL implements HiwayDBI {
 		return stats;
 	}
 
+	@Override
+	public void getLogEntriesForWorkflowSince(String workflowName, long timestamp, InvocStatHandler handler) {
+		Long tick = System.currentTimeMillis();
+		Set<Long> taskIds = getTaskIdsForWorkflowTemp(workflowName);
+		long x = 0;
+
+		if (!taskIds.isEmpty()) {
+			View view = client.getView("Invoc", "getLogEntriesForTaskSince");
+
+			// only the invocations logged after the given timestamp are queried, such that a refresh does not re-read all documents of the workflow
+			for (Long id : taskIds) {
+				Query query = new Query();
+				query.setIncludeDocs(true).setRange(ComplexKey.of(id, timestamp + 1), ComplexKey.of(id, 999999999999999999l));
+
+				for (ViewRow row : client.query(view, query)) {
+					InvocStat stat = createInvocStat(gson.fromJson((String) row.getDocument(), InvocDoc.class));
+					if (stat != null) {
+						handler.handle(stat);
+						x++;
+					}
+				}
+			}
+		}
+
+		Long tock = System.currentTimeMillis();
+		saveAccessTime(tick, tock, x, "getLogEntriesForWorkflowSince", null);
+	}
+
 	private Collection<InvocStat> getLogEntriesForTaskOnHostSinceTemp(long taskId, String hostName, long timestamp) {
 		if (client == null) {
 			getConnection();
@@ -518,58 +579,59 @@ public class HiwayDBNoSQL implements HiwayDBI {
 	}
 
 	private static Set<InvocStat> createInvocStat(ViewResponse result) {
-		InvocDoc invocDocument = new InvocDoc();
 		Set<InvocStat> tempResult = new HashSet<>();
 		Gson gson = new Gson();
 
-		InvocStat temp = null;
 		// Iterate over the found documents
 		for (ViewRow row : result) {
+			InvocStat temp = createInvocStat(gson.fromJson((String) row.getDocument(), InvocDoc.class));
+			if (temp != null) {
+				tempResult.add(temp);
+			}
+		}
+		return tempResult;
+	}
 
-			// System.out.println("resrow: "+ row.getValue()) ;
-			invocDocument = gson.fromJson((String) row.getDocument(), InvocDoc.class);
-
-			temp = new InvocStat(invocDocument.getRunId(), invocDocument.getTaskId());
-
-			if (invocDocument.getHostname() != null && invocDocument.getTaskId() != 0 && invocDocument.getRealTime() != null) {
-				temp.setHostName(invocDocument.getHostname());
-				temp.setRealTime(invocDocument.getRealTime(), invocDocument.getTimestamp());
-
-				Map<String, HashMap<String, Long>> output = invocDocument.getFiles();
+	// returns null if the invocation has not been completed
+	private static InvocStat createInvocStat(InvocDoc invocDocument) {
+		InvocStat temp = new InvocStat(invocDocument.getRunId(), invocDocument.getTaskId());
 
-				List<FileStat> fileStatout = new ArrayList<>();
-				List<FileStat> fileStatin = new ArrayList<>();
-				FileStat file = null;
-				Long in = 0l;
-				Long out = 0l;
+		if (invocDocument.getHostname() == null || invocDocument.getTaskId() == 0 || invocDocument.getRealTime() == null) {
+			return null;
+		}
+		temp.setHostName(invocDocument.getHostname());
+		temp.setRealTime(invocDocument.getRealTime(), invocDocument.getTimestamp());
 
-				for (Entry<String, HashMap<String, Long>> val : output.entrySet()) {
-					file = new FileStat();
-					file.setFileName(val.getKey());
-					in = val.getValue().get("realTimeIn");
-					out = val.getValue().get("realTimeOut");
+		Map<String, HashMap<String, Long>> output = invocDocument.getFiles();
 
-					file.setSize(val.getValue().get("size"));
+		List<FileStat> fileStatout = new ArrayList<>();
+		List<FileStat> fileStatin = new ArrayList<>();
+		FileStat file = null;
+		Long in = 0l;
+		Long out = 0l;
 
-					if (in != null) {
-						file.setRealTime(in);
-						fileStatin.add(file);
-					}
+		for (Entry<String, HashMap<String, Long>> val : output.entrySet()) {
+			file = new FileStat();
+			file.setFileName(val.getKey());
+			in = val.getValue().get("realTimeIn");
+			out = val.getValue().get("realTimeOut");
 
-					if (out != null) {
-						file.setRealTime(out);
-						fileStatout.add(file);
-					}
+			file.setSize(val.getValue().get("size"));
 
-				}
-				temp.setOutputfiles(fileStatout);
-				temp.setInputfiles(fileStatin);
+			if (in != null) {
+				file.setRealTime(in);
+				fileStatin.add(file);
+			}
 
-				tempResult.add(temp);
+			if (out != null) {
+				file.setRealTime(out);
+				fileStatout.add(file);
 			}
 
 		}
-		return tempResult;
+		temp.setOutputfiles(fileStatout);
+		temp.setInputfiles(fileStatin);
+		return temp;
 	}
 
 	private SessionFactory getSQLSession() {
@@ -7,9 +7,9 @@
  *
  * List of Contributors:
  *
+ * Hannes Schuh (HU Berlin)
  * Marc Bux (HU Berlin)
  * Jörgen Brandt (HU Berlin)
- * Hannes Schuh (HU Berlin)
  * Ulf Leser (HU Berlin)
  *
  * Jörgen Brandt is funded by the European Commission through the BiobankCloud
@@ -30,10 +30,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  ******************************************************************************/
-package de.huberlin.wbi.hiway.scheduler;
+package de.huberlin.hiwaydb.useDB;
+
+/**
+ * A callback to which the invocations retrieved by bulk queries are handed over one at a time, such that they do not have to be collected in memory first.
+ */
+public interface InvocStatHandler {
+
+	public void handle(InvocStat invocStat);
 
-public class RuntimeEstimate extends Estimate {
-	public long averageRuntime;
-	public int finishedTasks;
-	public long timeSpent;
 }